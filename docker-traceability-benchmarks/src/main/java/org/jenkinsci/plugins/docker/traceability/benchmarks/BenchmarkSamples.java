@@ -0,0 +1,135 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.benchmarks;
+
+import hudson.model.Fingerprint;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+import org.apache.commons.io.IOUtils;
+import org.jenkinsci.plugins.docker.traceability.api.DockerTraceabilityReport;
+import org.jenkinsci.plugins.docker.traceability.dockerjava.api.model.Event;
+import org.jenkinsci.plugins.docker.traceability.fingerprint.DockerContainerRecord;
+import org.jenkinsci.plugins.docker.traceability.fingerprint.DockerDeploymentFacet;
+import org.jenkinsci.plugins.docker.traceability.model.DockerEvent;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityCodecs;
+
+/**
+ * Test data for benchmarks.
+ * JSON samples are being shared with the plugin tests.
+ */
+public enum BenchmarkSamples {
+    
+    inspectContainerData,
+    inspectContainerData_emptyImage,
+    submitReport;
+    
+    /**
+     * Statuses, which are being used to generate container histories.
+     */
+    private static final String[] STATUSES = {"create", "start", "inspect", "inspect", "die", "start"};
+    
+    public @Nonnull String readString() throws IOException {
+        final String fileName = "/org/jenkinsci/plugins/docker/traceability/samples/" + this + ".json";
+        final InputStream stream = BenchmarkSamples.class.getResourceAsStream(fileName);
+        if (stream == null) {
+            throw new IOException("Cannot find resource " + fileName);
+        }
+        try {
+            return IOUtils.toString(stream, "UTF-8");
+        } finally {
+            stream.close();
+        }
+    }
+    
+    /**
+     * Creates a fingerprint, which is not being stored on the disk.
+     * It allows to use fingerprint facets without a running Jenkins instance.
+     * @param name Name of the fingerprint
+     * @param seed Seed of the MD5 sum
+     * @return New fingerprint
+     * @throws IOException Never happens
+     */
+    public static @Nonnull Fingerprint newFingerprint(@Nonnull String name, int seed) throws IOException {
+        final byte[] md5sum = new byte[16];
+        Arrays.fill(md5sum, (byte) seed);
+        return new InMemoryFingerprint(name, md5sum);
+    }
+    
+    /**
+     * Creates a report based on {@link #submitReport} with the specified event.
+     * @param template Parsed {@link #submitReport} sample
+     * @param index Index of the record in the history
+     * @param time Event time
+     * @return New record
+     * @throws IOException Event conversion error
+     */
+    public static @Nonnull DockerContainerRecord newRecord(@Nonnull DockerTraceabilityReport template, 
+            int index, long time) throws IOException {
+        final String status = STATUSES[index % STATUSES.length];
+        final Event event = new DockerEvent(status, template.getContainerId(), 
+                template.getImageName(), time).toDockerEvent();
+        return new DockerContainerRecord(new DockerTraceabilityReport(event, template.getHostInfo(), 
+                template.getContainer(), template.getImageId(), template.getImageName(), template.getImage(), 
+                template.getParents(), template.getEnvironment()));
+    }
+    
+    /**
+     * Creates a deployment facet with the specified number of records.
+     * @param template Parsed {@link #submitReport} sample
+     * @param records Number of records
+     * @return New facet
+     * @throws IOException Record creation error
+     */
+    public static @Nonnull DockerDeploymentFacet newFacet(@Nonnull DockerTraceabilityReport template, 
+            int records) throws IOException {
+        final Fingerprint fingerprint = newFingerprint("container", records);
+        final DockerDeploymentFacet facet = new DockerDeploymentFacet(fingerprint, 0);
+        fingerprint.getFacets().add(facet);
+        for (int i = 0; i < records; i++) {
+            facet.add(newRecord(template, i, i));
+        }
+        return facet;
+    }
+    
+    public static @Nonnull DockerTraceabilityReport readTemplate() throws IOException {
+        return DockerTraceabilityCodecs.reportReader().readValue(submitReport.readString());
+    }
+    
+    /**
+     * Fingerprint, which ignores save requests.
+     */
+    private static class InMemoryFingerprint extends Fingerprint {
+
+        InMemoryFingerprint(@Nonnull String name, @Nonnull byte[] md5sum) throws IOException {
+            super(null, name, md5sum);
+        }
+
+        @Override
+        public synchronized void save() throws IOException {
+            // Do nothing
+        }
+    }
+}
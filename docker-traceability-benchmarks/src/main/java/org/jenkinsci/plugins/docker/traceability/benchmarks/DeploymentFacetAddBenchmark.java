@@ -0,0 +1,89 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.jenkinsci.plugins.docker.traceability.api.DockerTraceabilityReport;
+import org.jenkinsci.plugins.docker.traceability.fingerprint.DockerContainerRecord;
+import org.jenkinsci.plugins.docker.traceability.fingerprint.DockerDeploymentFacet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of {@link DockerDeploymentFacet#add(DockerContainerRecord)}.
+ * The operation modifies the facet, hence each iteration adds a fixed batch
+ * of new records to a facet with the specified number of existing records.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = DeploymentFacetAddBenchmark.BATCH_SIZE)
+@Measurement(iterations = 10, batchSize = DeploymentFacetAddBenchmark.BATCH_SIZE)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeploymentFacetAddBenchmark {
+    
+    static final int BATCH_SIZE = 1000;
+    
+    @Param({"10", "1000", "100000"})
+    public int records;
+    
+    private DockerTraceabilityReport template;
+    private DockerDeploymentFacet facet;
+    private List<DockerContainerRecord> newRecords;
+    private int next;
+    
+    @Setup(Level.Trial)
+    public void setupTemplate() throws IOException {
+        template = BenchmarkSamples.readTemplate();
+    }
+    
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        facet = BenchmarkSamples.newFacet(template, records);
+        newRecords = new ArrayList<DockerContainerRecord>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            newRecords.add(BenchmarkSamples.newRecord(template, records + i, records + i));
+        }
+        next = 0;
+    }
+    
+    @Benchmark
+    public DockerDeploymentFacet add() throws IOException {
+        facet.add(newRecords.get(next++));
+        return facet;
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.benchmarks;
+
+import hudson.model.Fingerprint;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.jenkinsci.plugins.docker.traceability.api.DockerTraceabilityReport;
+import org.jenkinsci.plugins.docker.traceability.fingerprint.DockerContainerRecord;
+import org.jenkinsci.plugins.docker.traceability.fingerprint.DockerDeploymentFacet;
+import org.jenkinsci.plugins.docker.traceability.model.DockerAPIReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of read operations of {@link DockerDeploymentFacet} for various history lengths.
+ * {@link DockerAPIReport#forContainer(String)} requires a running Jenkins instance 
+ * for fingerprint lookups, hence the benchmark measures the conversion of the 
+ * latest record via {@link DockerAPIReport#forRecord}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeploymentFacetBenchmark {
+    
+    @Param({"10", "1000", "100000"})
+    public int records;
+    
+    private DockerDeploymentFacet facet;
+    private Fingerprint containerFP;
+    private Fingerprint imageFP;
+    
+    @Setup
+    public void setup() throws IOException {
+        final DockerTraceabilityReport template = BenchmarkSamples.readTemplate();
+        facet = BenchmarkSamples.newFacet(template, records);
+        containerFP = facet.getFingerprint();
+        imageFP = BenchmarkSamples.newFingerprint("image", -1);
+    }
+    
+    @Benchmark
+    public String getLastStatus() {
+        return facet.getLastStatus();
+    }
+    
+    @Benchmark
+    public DockerContainerRecord getLatest() {
+        return facet.getLatest();
+    }
+    
+    @Benchmark
+    public DockerAPIReport forContainer() {
+        final DockerContainerRecord latest = facet.getLatest();
+        return latest != null 
+                ? DockerAPIReport.forRecord(latest, facet.getLastStatus(), containerFP, imageFP) 
+                : null;
+    }
+}
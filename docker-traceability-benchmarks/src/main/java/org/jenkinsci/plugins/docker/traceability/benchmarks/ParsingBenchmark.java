@@ -0,0 +1,81 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.jenkinsci.plugins.docker.traceability.api.DockerTraceabilityReport;
+import org.jenkinsci.plugins.docker.traceability.dockerjava.api.command.InspectContainerResponse;
+import org.jenkinsci.plugins.docker.traceability.dockerjava.api.model.Event;
+import org.jenkinsci.plugins.docker.traceability.model.DockerEvent;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityCodecs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the submission parsing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParsingBenchmark {
+    
+    private String report;
+    private String inspectContainerData;
+    private DockerEvent event;
+    
+    @Setup
+    public void setup() throws IOException {
+        report = BenchmarkSamples.submitReport.readString();
+        inspectContainerData = BenchmarkSamples.inspectContainerData.readString();
+        event = new DockerEvent("start", "469e5edd8d5b33e3c905a7ffc97360ec6ee211d6782815fbcd144568045819e1", 
+                "jenkinsci/workflow-demo", 1430371150L);
+    }
+    
+    @Benchmark
+    public DockerTraceabilityReport parseReport() throws IOException {
+        return DockerTraceabilityCodecs.reportReader().readValue(report);
+    }
+    
+    @Benchmark
+    public InspectContainerResponse[] parseInspectContainerArray() throws IOException {
+        return DockerTraceabilityCodecs.inspectContainerArrayReader().readValue(inspectContainerData);
+    }
+    
+    @Benchmark
+    public Event toDockerEvent() throws IOException {
+        return event.toDockerEvent();
+    }
+}
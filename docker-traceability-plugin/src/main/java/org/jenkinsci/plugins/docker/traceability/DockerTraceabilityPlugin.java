@@ -36,8 +36,16 @@ import javax.servlet.ServletException;
 import jenkins.model.Jenkins;
 import net.sf.json.JSONObject;
 
+import org.jenkinsci.plugins.docker.traceability.core.DockerFingerprintCache;
+import org.jenkinsci.plugins.docker.traceability.core.DockerTraceabilityAuditLog;
+import org.jenkinsci.plugins.docker.traceability.core.DockerTraceabilityIngestionPipeline;
+import org.jenkinsci.plugins.docker.traceability.core.DockerTraceabilityListenerDispatcher;
 import org.jenkinsci.plugins.docker.traceability.core.DockerTraceabilityRootAction;
+import org.jenkinsci.plugins.docker.traceability.core.DockerTraceabilityStatistics;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityStringPool;
+import org.jenkinsci.plugins.docker.traceability.util.FingerprintSaveQueue;
 import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.export.Exported;
 import org.kohsuke.stapler.export.ExportedBean;
 
 /**
@@ -104,6 +112,16 @@ public class DockerTraceabilityPlugin extends Plugin {
         return new Api(this);
     }
 
+    /**
+     * Gets the estimated heap savings of the string deduplication in reports.
+     * @return Number of bytes since the startup
+     * @since 1.3
+     */
+    @Exported
+    public long getStringPoolSavedBytes() {
+        return DockerTraceabilityStringPool.getSavedBytes();
+    }
+    
     public @Nonnull DockerTraceabilityPluginConfiguration getConfiguration() {
         return configuration != null ? configuration : DockerTraceabilityPluginConfiguration.getDefault();
     }
@@ -111,5 +129,17 @@ public class DockerTraceabilityPlugin extends Plugin {
     @Override 
     public void start() throws Exception {
         load();
+        DockerTraceabilityStatistics.registerMBeans();
+    }
+    
+    @Override
+    public void stop() throws Exception {
+        DockerTraceabilityStatistics.unregisterMBeans();
+        DockerTraceabilityIngestionPipeline.shutdownInstance();
+        DockerTraceabilityListenerDispatcher.shutdownInstance();
+        DockerTraceabilityAuditLog.shutdownInstance();
+        FingerprintSaveQueue.shutdown();
+        DockerTraceabilityRootAction.closeRegistry();
+        DockerFingerprintCache.invalidateAllCaches();
     }
 }
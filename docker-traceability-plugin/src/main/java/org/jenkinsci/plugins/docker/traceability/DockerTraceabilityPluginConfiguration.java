@@ -26,6 +26,7 @@ package org.jenkinsci.plugins.docker.traceability;
 import hudson.Extension;
 import hudson.model.Describable;
 import hudson.model.Descriptor;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import org.kohsuke.stapler.DataBoundConstructor;
 
@@ -37,16 +38,59 @@ public class DockerTraceabilityPluginConfiguration implements Describable<Docker
     
     private static final DockerTraceabilityPluginConfiguration DEFAULT = 
             new DockerTraceabilityPluginConfiguration(false, false);
+    
+    /**
+     * Defines which reports are being written to the audit log.
+     * @since 1.3
+     */
+    public enum AuditLevel {
+        /**
+         * Reports are not being logged.
+         */
+        OFF,
+        /**
+         * Only one of {@link AuditSettings#getAuditSampleRate()} reports is being logged.
+         */
+        SAMPLED,
+        /**
+         * All reports are being logged.
+         */
+        FULL
+    }
             
     private final boolean createImageFingerprints;
     
     private final boolean showRootAction;
+    
+    private final @CheckForNull IngestionSettings ingestion;
+    
+    private final @CheckForNull RetentionSettings retention;
+    
+    private final @CheckForNull AuditSettings audit;
 
-    @DataBoundConstructor
     public DockerTraceabilityPluginConfiguration(boolean createImageFingerprints, 
             boolean showRootAction) {
+        this(createImageFingerprints, showRootAction, null, null, null);
+    }
+    
+    /**
+     * Creates the configuration.
+     * @param createImageFingerprints Create missing image fingerprints
+     * @param showRootAction Show the root action on the main side panel
+     * @param ingestion Report ingestion settings. Defaults will be used if null
+     * @param retention Retention of deployment records. Defaults will be used if null
+     * @param audit Audit log settings. Defaults will be used if null
+     * @since 1.3
+     */
+    @DataBoundConstructor
+    public DockerTraceabilityPluginConfiguration(boolean createImageFingerprints, 
+            boolean showRootAction, @CheckForNull IngestionSettings ingestion, 
+            @CheckForNull RetentionSettings retention, @CheckForNull AuditSettings audit) {
         this.createImageFingerprints = createImageFingerprints;
         this.showRootAction = showRootAction;
+        this.ingestion = ingestion;
+        this.retention = retention;
+        this.audit = audit;
     }
     
     @Override
@@ -74,6 +118,33 @@ public class DockerTraceabilityPluginConfiguration implements Describable<Docker
         return showRootAction;
     }
     
+    /**
+     * Gets settings of the report ingestion.
+     * @return Ingestion settings
+     * @since 1.3
+     */
+    public @Nonnull IngestionSettings getIngestion() {
+        return ingestion != null ? ingestion : IngestionSettings.DEFAULT;
+    }
+    
+    /**
+     * Gets settings of the deployment records retention.
+     * @return Retention settings
+     * @since 1.3
+     */
+    public @Nonnull RetentionSettings getRetention() {
+        return retention != null ? retention : RetentionSettings.DEFAULT;
+    }
+    
+    /**
+     * Gets settings of the report audit log.
+     * @return Audit settings
+     * @since 1.3
+     */
+    public @Nonnull AuditSettings getAudit() {
+        return audit != null ? audit : AuditSettings.DEFAULT;
+    }
+    
     /**
      * Gets the default configuration of {@link DockerTraceabilityPlugin}
      * @return Default configuration
@@ -92,4 +163,119 @@ public class DockerTraceabilityPluginConfiguration implements Describable<Docker
             return "N/A";
         }
     }
+    
+    /**
+     * Settings of the report ingestion.
+     * @since 1.3
+     */
+    public static final class IngestionSettings {
+        
+        private static final IngestionSettings DEFAULT = new IngestionSettings(false);
+        
+        private final boolean asyncIngestion;
+
+        @DataBoundConstructor
+        public IngestionSettings(boolean asyncIngestion) {
+            this.asyncIngestion = asyncIngestion;
+        }
+        
+        /**
+         * Check if the submitted reports should be processed asynchronously.
+         * If enabled, the submission API accepts reports to a bounded in-memory 
+         * queue and responds with 202 (Accepted) before the processing.
+         * @return false by default
+         */
+        public boolean isAsyncIngestion() {
+            return asyncIngestion;
+        }
+    }
+    
+    /**
+     * Settings of the deployment records retention.
+     * @since 1.3
+     */
+    public static final class RetentionSettings {
+        
+        private static final RetentionSettings DEFAULT = new RetentionSettings(0, 0, 0);
+        
+        private final int maxRecordsPerContainer;
+        
+        private final int maxRecordAgeDays;
+        
+        private final int inspectIntervalMinutes;
+
+        @DataBoundConstructor
+        public RetentionSettings(int maxRecordsPerContainer, int maxRecordAgeDays, int inspectIntervalMinutes) {
+            this.maxRecordsPerContainer = Math.max(0, maxRecordsPerContainer);
+            this.maxRecordAgeDays = Math.max(0, maxRecordAgeDays);
+            this.inspectIntervalMinutes = Math.max(0, inspectIntervalMinutes);
+        }
+        
+        /**
+         * Gets the maximum number of deployment records per container.
+         * The oldest records will be removed, the latest record is always retained.
+         * @return Number of records. 0 means unlimited (default)
+         */
+        public int getMaxRecordsPerContainer() {
+            return maxRecordsPerContainer;
+        }
+
+        /**
+         * Gets the maximum age of deployment records.
+         * The latest record of the container is always retained.
+         * @return Age in days. 0 means unlimited (default)
+         */
+        public int getMaxRecordAgeDays() {
+            return maxRecordAgeDays;
+        }
+
+        /**
+         * Gets the minimal interval between stored inspect-only records of a container.
+         * Lifecycle events are not affected by this option.
+         * @return Interval in minutes. 0 means that all inspect records are retained (default)
+         */
+        public int getInspectIntervalMinutes() {
+            return inspectIntervalMinutes;
+        }
+    }
+    
+    /**
+     * Settings of the report audit log.
+     * @since 1.3
+     */
+    public static final class AuditSettings {
+        
+        private static final AuditSettings DEFAULT = new AuditSettings(AuditLevel.OFF, 0);
+        
+        /**
+         * Default sampling rate of {@link AuditLevel#SAMPLED} audit logs.
+         */
+        private static final int DEFAULT_AUDIT_SAMPLE_RATE = 100;
+        
+        private final @CheckForNull AuditLevel auditLevel;
+        
+        private final int auditSampleRate;
+
+        @DataBoundConstructor
+        public AuditSettings(@CheckForNull AuditLevel auditLevel, int auditSampleRate) {
+            this.auditLevel = auditLevel;
+            this.auditSampleRate = Math.max(0, auditSampleRate);
+        }
+        
+        /**
+         * Gets the level of the report audit log.
+         * @return Audit level. {@link AuditLevel#OFF} by default
+         */
+        public @Nonnull AuditLevel getAuditLevel() {
+            return auditLevel != null ? auditLevel : AuditLevel.OFF;
+        }
+
+        /**
+         * Gets the sampling rate of the {@link AuditLevel#SAMPLED} audit log.
+         * @return One of the specified number of reports is being logged. 100 by default
+         */
+        public int getAuditSampleRate() {
+            return auditSampleRate > 0 ? auditSampleRate : DEFAULT_AUDIT_SAMPLE_RATE;
+        }
+    }
 }
@@ -0,0 +1,470 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPlugin;
+import org.jenkinsci.plugins.docker.traceability.api.DockerTraceabilityReport;
+import org.jenkinsci.plugins.docker.traceability.dockerjava.api.command.InspectContainerResponse;
+import org.jenkinsci.plugins.docker.traceability.dockerjava.api.command.InspectImageResponse;
+import org.jenkinsci.plugins.docker.traceability.dockerjava.api.model.Info;
+import org.jenkinsci.plugins.docker.traceability.fingerprint.DockerContainerRecord;
+import org.jenkinsci.plugins.docker.traceability.fingerprint.DockerDeploymentFacet;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * In-memory secondary indexes of registered containers.
+ * The index stores a summary of the latest known properties of each container.
+ * It allows to find containers and to render container lists without loading fingerprints.
+ * Entries are being updated by {@link DockerTraceabilityReportListenerImpl},
+ * the whole index is being built from fingerprints in background on startup.
+ */
+@Restricted(NoExternalUse.class)
+public class DockerContainerIndex {
+    
+    private final static Logger LOGGER = Logger.getLogger(DockerTraceabilityPlugin.class.getName());
+    
+    /**
+     * Indexed properties.
+     */
+    public enum Field {
+        containerName,
+        imageId,
+        imageName,
+        hostId,
+        hostName,
+        environment,
+        status;
+        
+        /**
+         * Normalizes the value for the lookup.
+         * @param value Raw value
+         * @return Normalized value. Null if the value is empty
+         */
+        @CheckForNull String normalize(@CheckForNull String value) {
+            if (StringUtils.isBlank(value)) {
+                return null;
+            }
+            switch (this) {
+                case containerName: // Docker returns names with the leading slash
+                    return StringUtils.removeStart(value.trim(), "/");
+                case status:
+                    return value.trim().toUpperCase(Locale.ENGLISH);
+                default:
+                    return value.trim();
+            }
+        }
+    }
+    
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+    private final Map<Field, Map<String, Set<String>>> indexes = new EnumMap<Field, Map<String, Set<String>>>(Field.class);
+    private final DockerContainerSearchIndex searchIndex = new DockerContainerSearchIndex();
+    private boolean built;
+    private boolean building;
+    
+    /**
+     * Containers, which have been removed while the index is being built.
+     */
+    private final Set<String> removedWhileBuilding = new HashSet<String>();
+
+    public DockerContainerIndex() {
+        for (Field field : Field.values()) {
+            indexes.put(field, new HashMap<String, Set<String>>());
+        }
+    }
+    
+    public synchronized boolean isBuilt() {
+        return built;
+    }
+    
+    /**
+     * Builds the index from fingerprints.
+     * The index is being built only once. Concurrent and subsequent calls return immediately.
+     * Fingerprints are being loaded without holding the index lock, so updates 
+     * and lookups are not blocked by the build. Lookups see a partial index until
+     * the build completes.
+     * @param containerIDs IDs of registered containers
+     */
+    public void build(@Nonnull Collection<String> containerIDs) {
+        synchronized (this) {
+            if (built || building) {
+                return;
+            }
+            building = true;
+        }
+        
+        try {
+            for (String containerId : containerIDs) {
+                index(containerId, null);
+                try {
+                    final DockerDeploymentFacet facet = DockerDeploymentFacet.getDeploymentFacet(containerId);
+                    if (facet != null) {
+                        index(containerId, facet);
+                    }
+                } catch (RuntimeException ex) {
+                    LOGGER.log(Level.WARNING, "Cannot index the container " + containerId, ex);
+                }
+            }
+            synchronized (this) {
+                built = true;
+            }
+        } finally {
+            synchronized (this) {
+                building = false;
+                removedWhileBuilding.clear();
+            }
+        }
+    }
+    
+    /**
+     * Indexes the container loaded by {@link #build(java.util.Collection)}.
+     * Containers, which have been removed during the build, are being skipped.
+     * @param containerId Container ID
+     * @param facet Deployment facet. If null, the container will be just registered
+     */
+    private synchronized void index(@Nonnull String containerId, @CheckForNull DockerDeploymentFacet facet) {
+        if (removedWhileBuilding.contains(containerId)) {
+            return;
+        }
+        if (facet != null) {
+            update(containerId, facet);
+        } else {
+            register(containerId);
+        }
+    }
+    
+    /**
+     * Updates the entry by the latest data from the facet.
+     * Properties, which are missing in the latest record, are being retained.
+     * @param containerId Container ID
+     * @param facet Deployment facet of the container
+     */
+    public synchronized void update(@Nonnull String containerId, @Nonnull DockerDeploymentFacet facet) {
+        final DockerContainerRecord latest = facet.getLatest();
+        if (latest == null) {
+            return;
+        }
+        final DockerTraceabilityReport report = latest.getReport();
+        final InspectContainerResponse container = report.getContainer();
+        final Info hostInfo = report.getHostInfo();
+        final InspectImageResponse image = report.getImage();
+        
+        final Entry previous = entries.get(containerId);
+        final Entry entry = new Entry(containerId, latest.getTime(), previous);
+        entry.set(Field.containerName, container != null ? container.getName() : null);
+        entry.set(Field.imageId, facet.getImageId());
+        entry.set(Field.imageName, report.getImageName());
+        entry.set(Field.hostId, hostInfo != null ? hostInfo.getID() : null);
+        entry.set(Field.hostName, hostInfo != null ? hostInfo.getName() : null);
+        entry.set(Field.environment, report.getEnvironment());
+        entry.set(Field.status, facet.getLastStatus());
+        if (container != null) {
+            entry.setContainer(container);
+        }
+        if (image != null && image.getCreated() != null) {
+            entry.imageCreated = image.getCreated();
+        }
+        if (!report.getParents().isEmpty()) {
+            entry.parents = Collections.unmodifiableList(new ArrayList<String>(report.getParents()));
+        }
+        
+        if (previous != null) {
+            unindex(previous);
+        }
+        entries.put(containerId, entry);
+        for (Map.Entry<Field, String> value : entry.values.entrySet()) {
+            final String key = value.getKey().normalize(value.getValue());
+            final Map<String, Set<String>> index = indexes.get(value.getKey());
+            Set<String> ids = index.get(key);
+            if (ids == null) {
+                ids = new HashSet<String>();
+                index.put(key, ids);
+            }
+            ids.add(containerId);
+        }
+        searchIndex.put(containerId, entry.getContainerName(), entry.getImageName());
+    }
+    
+    /**
+     * Makes the container searchable before its records are being indexed.
+     * @param containerId Container ID
+     */
+    public synchronized void register(@Nonnull String containerId) {
+        if (!entries.containsKey(containerId)) {
+            searchIndex.put(containerId, null, null);
+        }
+    }
+    
+    /**
+     * Removes the container from the index.
+     * @param containerId Container ID
+     */
+    public synchronized void remove(@Nonnull String containerId) {
+        if (building) {
+            removedWhileBuilding.add(containerId);
+        }
+        final Entry entry = entries.remove(containerId);
+        if (entry != null) {
+            unindex(entry);
+        }
+        searchIndex.remove(containerId);
+    }
+    
+    private void unindex(@Nonnull Entry entry) {
+        for (Map.Entry<Field, String> value : entry.values.entrySet()) {
+            final String key = value.getKey().normalize(value.getValue());
+            final Map<String, Set<String>> index = indexes.get(value.getKey());
+            final Set<String> ids = index.get(key);
+            if (ids != null) {
+                ids.remove(entry.getContainerId());
+                if (ids.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Gets the prefix index for the Jenkins search.
+     * The index is being updated with this index.
+     * @return Search index
+     */
+    public @Nonnull DockerContainerSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+    
+    public synchronized @CheckForNull Entry get(@Nonnull String containerId) {
+        return entries.get(containerId);
+    }
+    
+    /**
+     * Gets all known values of the property.
+     * @param field Indexed property
+     * @return Sorted normalized values
+     */
+    public synchronized @Nonnull List<String> getValues(@Nonnull Field field) {
+        final List<String> res = new ArrayList<String>(indexes.get(field).keySet());
+        Collections.sort(res);
+        return res;
+    }
+    
+    /**
+     * Finds containers, which match all specified properties.
+     * @param predicates Required values of properties. Empty values are ignored
+     * @return Matching entries sorted by container IDs
+     */
+    public synchronized @Nonnull List<Entry> query(@Nonnull Map<Field, String> predicates) {
+        Set<String> matches = null;
+        for (Map.Entry<Field, String> predicate : predicates.entrySet()) {
+            final String value = predicate.getKey().normalize(predicate.getValue());
+            if (value == null) {
+                continue;
+            }
+            final Set<String> ids = indexes.get(predicate.getKey()).get(value);
+            if (ids == null) {
+                return Collections.emptyList();
+            }
+            if (matches == null) {
+                matches = new HashSet<String>(ids);
+            } else {
+                matches.retainAll(ids);
+            }
+        }
+        
+        final Collection<String> containerIDs = matches != null ? matches : entries.keySet();
+        final List<String> sortedIDs = new ArrayList<String>(containerIDs);
+        Collections.sort(sortedIDs);
+        final List<Entry> res = new ArrayList<Entry>(sortedIDs.size());
+        for (String containerId : sortedIDs) {
+            res.add(entries.get(containerId));
+        }
+        return res;
+    }
+    
+    /**
+     * Summary of the container, which is sufficient to render the container lists.
+     * Values are being stored as they have been reported, lookups use normalized ones.
+     * The entry is immutable after the publishing in the index.
+     */
+    public static final class Entry {
+        
+        private final @Nonnull String containerId;
+        private final long time;
+        private final Map<Field, String> values = new EnumMap<Field, String>(Field.class);
+        private @CheckForNull String created;
+        private @CheckForNull String imageCreated;
+        private @Nonnull List<String> parents = Collections.emptyList();
+        private @CheckForNull String startedAt;
+        private @CheckForNull String finishedAt;
+        private boolean running;
+        private boolean paused;
+        private int pid;
+        private int exitCode;
+
+        private Entry(@Nonnull String containerId, long time, @CheckForNull Entry previous) {
+            this.containerId = containerId;
+            this.time = time;
+            if (previous != null) {
+                values.putAll(previous.values);
+                created = previous.created;
+                imageCreated = previous.imageCreated;
+                parents = previous.parents;
+                startedAt = previous.startedAt;
+                finishedAt = previous.finishedAt;
+                running = previous.running;
+                paused = previous.paused;
+                pid = previous.pid;
+                exitCode = previous.exitCode;
+            }
+        }
+        
+        /**
+         * Creates an empty summary for containers without records.
+         * @param containerId Container ID
+         */
+        Entry(@Nonnull String containerId) {
+            this(containerId, 0, null);
+        }
+        
+        private void set(@Nonnull Field field, @CheckForNull String value) {
+            if (field.normalize(value) != null) {
+                values.put(field, value.trim());
+            }
+        }
+        
+        private void setContainer(@Nonnull InspectContainerResponse container) {
+            if (container.getCreated() != null) {
+                created = container.getCreated();
+            }
+            final InspectContainerResponse.ContainerState state = container.getState();
+            if (state != null) {
+                startedAt = state.getStartedAt();
+                finishedAt = state.getFinishedAt();
+                running = state.isRunning();
+                paused = state.isPaused();
+                pid = state.getPid();
+                exitCode = state.getExitCode();
+            }
+        }
+
+        public @Nonnull String getContainerId() {
+            return containerId;
+        }
+
+        /**
+         * Gets the time of the latest record.
+         * @return Time in seconds since January 1, 1970, 00:00:00 GMT
+         */
+        public long getTime() {
+            return time;
+        }
+        
+        public @CheckForNull String getValue(@Nonnull Field field) {
+            return values.get(field);
+        }
+        
+        public @CheckForNull String getContainerName() {
+            return values.get(Field.containerName);
+        }
+        
+        public @CheckForNull String getImageId() {
+            return values.get(Field.imageId);
+        }
+        
+        public @CheckForNull String getImageName() {
+            return values.get(Field.imageName);
+        }
+        
+        public @CheckForNull String getHostId() {
+            return values.get(Field.hostId);
+        }
+        
+        public @CheckForNull String getHostName() {
+            return values.get(Field.hostName);
+        }
+        
+        public @CheckForNull String getEnvironment() {
+            return values.get(Field.environment);
+        }
+        
+        public @CheckForNull String getStatus() {
+            return values.get(Field.status);
+        }
+
+        /**
+         * Gets time and date when the container has been created. 
+         * @return String in the Docker format or null if it is unknown
+         */
+        public @CheckForNull String getCreated() {
+            return created;
+        }
+
+        public @CheckForNull String getImageCreated() {
+            return imageCreated;
+        }
+
+        public @Nonnull List<String> getParents() {
+            return parents;
+        }
+
+        public @CheckForNull String getStartedAt() {
+            return startedAt;
+        }
+
+        public @CheckForNull String getFinishedAt() {
+            return finishedAt;
+        }
+
+        public boolean isRunning() {
+            return running;
+        }
+
+        public boolean isPaused() {
+            return paused;
+        }
+
+        public int getPid() {
+            return pid;
+        }
+
+        public int getExitCode() {
+            return exitCode;
+        }
+    }
+}
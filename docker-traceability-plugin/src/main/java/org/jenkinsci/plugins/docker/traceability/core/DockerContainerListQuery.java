@@ -0,0 +1,237 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import org.apache.commons.lang.StringUtils;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Filters, sorts and pages container summaries for the root action table.
+ * Only the requested page is being returned to the browser.
+ * @see DockerTraceabilityRootAction#doContainerList
+ */
+@Restricted(NoExternalUse.class)
+public class DockerContainerListQuery {
+    
+    /**
+     * Columns, which can be used for sorting.
+     */
+    public enum Column {
+        containerId,
+        containerName,
+        imageName,
+        hostName,
+        environment,
+        status,
+        time;
+        
+        public static @Nonnull Column fromString(@CheckForNull String str) {
+            for (Column column : values()) {
+                if (column.name().equalsIgnoreCase(str)) {
+                    return column;
+                }
+            }
+            return containerId;
+        }
+        
+        @CheckForNull String getValue(@Nonnull DockerContainerIndex.Entry entry) {
+            switch (this) {
+                case containerId:
+                    return entry.getContainerId();
+                case containerName:
+                    return entry.getContainerName();
+                case imageName:
+                    return entry.getImageName();
+                case hostName:
+                    return entry.getHostName();
+                case environment:
+                    return entry.getEnvironment();
+                case status:
+                    return entry.getStatus();
+                default:
+                    throw new IllegalStateException("Column " + this + " has no string value");
+            }
+        }
+    }
+    
+    private final @CheckForNull String filter;
+    private final @CheckForNull String status;
+    private final @Nonnull Column sort;
+    private final boolean descending;
+    private final int offset;
+    private final int limit;
+
+    /**
+     * Creates a query.
+     * @param filter Text, which should be a part of the container ID, name, image, host or environment.
+     *      Case-insensitive. Empty values are ignored
+     * @param status Required last status of the container. Empty values are ignored
+     * @param sort Column to be used for sorting
+     * @param descending Sort in the descending order
+     * @param offset Number of rows to be skipped
+     * @param limit Maximum number of rows in the page
+     */
+    public DockerContainerListQuery(@CheckForNull String filter, @CheckForNull String status, 
+            @Nonnull Column sort, boolean descending, int offset, int limit) {
+        this.filter = StringUtils.isBlank(filter) ? null : filter.trim().toLowerCase(Locale.ENGLISH);
+        this.status = DockerContainerIndex.Field.status.normalize(status);
+        this.sort = sort;
+        this.descending = descending;
+        this.offset = Math.max(0, offset);
+        this.limit = Math.max(0, limit);
+    }
+    
+    /**
+     * Runs the query.
+     * @param containerIDs IDs of registered containers
+     * @param index Index, which provides container summaries
+     * @return Requested page
+     */
+    public @Nonnull Result run(@Nonnull Collection<String> containerIDs, @Nonnull DockerContainerIndex index) {
+        final List<DockerContainerIndex.Entry> matches = new ArrayList<DockerContainerIndex.Entry>();
+        for (String containerId : containerIDs) {
+            DockerContainerIndex.Entry entry = index.get(containerId);
+            if (entry == null) { // Containers without records are being displayed as well
+                entry = new DockerContainerIndex.Entry(containerId);
+            }
+            if (matches(entry)) {
+                matches.add(entry);
+            }
+        }
+        
+        Comparator<DockerContainerIndex.Entry> comparator = new EntryComparator(sort);
+        if (descending) {
+            comparator = Collections.reverseOrder(comparator);
+        }
+        Collections.sort(matches, comparator);
+        
+        final int from = Math.min(offset, matches.size());
+        final int to = Math.min(from + limit, matches.size());
+        return new Result(containerIDs.size(), matches.size(), from, limit, 
+                new ArrayList<DockerContainerIndex.Entry>(matches.subList(from, to)));
+    }
+    
+    private boolean matches(@Nonnull DockerContainerIndex.Entry entry) {
+        if (status != null && !status.equals(DockerContainerIndex.Field.status.normalize(entry.getStatus()))) {
+            return false;
+        }
+        if (filter == null) {
+            return true;
+        }
+        return contains(entry.getContainerId()) || contains(entry.getContainerName()) 
+                || contains(entry.getImageName()) || contains(entry.getImageId()) 
+                || contains(entry.getHostName()) || contains(entry.getEnvironment());
+    }
+    
+    private boolean contains(@CheckForNull String value) {
+        return value != null && value.toLowerCase(Locale.ENGLISH).contains(filter);
+    }
+    
+    /**
+     * Compares entries by the column value, ties are being resolved by container IDs.
+     * Missing values go last in the ascending order.
+     */
+    private static final class EntryComparator implements Comparator<DockerContainerIndex.Entry> {
+        
+        private final @Nonnull Column column;
+
+        EntryComparator(@Nonnull Column column) {
+            this.column = column;
+        }
+
+        @Override
+        public int compare(DockerContainerIndex.Entry o1, DockerContainerIndex.Entry o2) {
+            int res;
+            if (column == Column.time) {
+                res = o1.getTime() < o2.getTime() ? -1 : (o1.getTime() == o2.getTime() ? 0 : 1);
+            } else {
+                final String v1 = column.getValue(o1);
+                final String v2 = column.getValue(o2);
+                if (v1 == null || v2 == null) {
+                    res = (v1 == null) ? (v2 == null ? 0 : 1) : -1;
+                } else {
+                    res = v1.compareToIgnoreCase(v2);
+                }
+            }
+            return (res != 0) ? res : o1.getContainerId().compareTo(o2.getContainerId());
+        }
+    }
+    
+    /**
+     * A page of the container list.
+     */
+    public static final class Result {
+        
+        private final int total;
+        private final int filtered;
+        private final int offset;
+        private final int limit;
+        private final @Nonnull List<DockerContainerIndex.Entry> rows;
+
+        Result(int total, int filtered, int offset, int limit, @Nonnull List<DockerContainerIndex.Entry> rows) {
+            this.total = total;
+            this.filtered = filtered;
+            this.offset = offset;
+            this.limit = limit;
+            this.rows = rows;
+        }
+
+        /**
+         * Gets the number of registered containers.
+         * @return Number of containers before the filtering
+         */
+        public int getTotal() {
+            return total;
+        }
+
+        /**
+         * Gets the number of containers, which match the filters.
+         * @return Number of containers in all pages
+         */
+        public int getFiltered() {
+            return filtered;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public @Nonnull List<DockerContainerIndex.Entry> getRows() {
+            return rows;
+        }
+    }
+}
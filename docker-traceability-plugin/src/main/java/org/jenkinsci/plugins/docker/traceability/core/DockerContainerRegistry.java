@@ -0,0 +1,425 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.core;
+
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.TaskListener;
+import hudson.util.AtomicFileWriter;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPlugin;
+
+/**
+ * Persistent registry of container IDs, which are being tracked by {@link DockerTraceabilityRootAction}.
+ * The registry is stored as an append-only log of additions and removals 
+ * and a snapshot, which is being periodically compacted from the log in background.
+ * On startup the registry is restored from the snapshot and the log tail.
+ * <p>
+ * Reads do not take locks. Readers get immutable snapshots of the registry, 
+ * which are being rebuilt only after modifications. Modifications are being
+ * serialized by a lock, which protects the log.
+ * <p>
+ * Files:
+ * <ul>
+ *   <li>{@code containers.txt} - snapshot, one ID per line</li>
+ *   <li>{@code containers.log} - log, {@code +ID} and {@code -ID} lines</li>
+ *   <li>{@code containers.log.old} - log, which is being compacted now</li>
+ * </ul>
+ */
+public class DockerContainerRegistry {
+    
+    private final static Logger LOGGER = Logger.getLogger(DockerTraceabilityPlugin.class.getName());
+    
+    private static final String SNAPSHOT_FILE = "containers.txt";
+    private static final String LOG_FILE = "containers.log";
+    private static final String OLD_LOG_FILE = "containers.log.old";
+    private static final String ENCODING = "UTF-8";
+    
+    /**
+     * Minimal number of log entries, which triggers the compaction.
+     */
+    private static final int COMPACTION_THRESHOLD = 
+            Integer.getInteger(DockerContainerRegistry.class.getName() + ".compactionThreshold", 10000);
+    
+    private final @Nonnull File rootDir;
+    private final Set<String> containerIDs = new ConcurrentSkipListSet<String>();
+    
+    /**
+     * Version of {@link #containerIDs}, which is being incremented after each modification.
+     */
+    private final AtomicLong version = new AtomicLong();
+    
+    /**
+     * Last built snapshot. It may be outdated, readers compare versions.
+     */
+    private volatile @CheckForNull Snapshot snapshot;
+    
+    /**
+     * Number of log entries. Modified only under {@link #writeLock}.
+     */
+    private volatile int logEntries = 0;
+    
+    /**
+     * Serializes modifications and log writes.
+     */
+    private final Object writeLock = new Object();
+    
+    /**
+     * Appender of the log. It is being opened on demand and closed before the log rotation.
+     * Guarded by {@link #writeLock}.
+     */
+    private @CheckForNull Writer logWriter;
+    
+    /**
+     * Serializes compactions.
+     */
+    private final Object compactionLock = new Object();
+    
+    /**
+     * Creates the registry and loads the data from the disk.
+     * @param rootDir Directory, which stores the registry files
+     */
+    public DockerContainerRegistry(@Nonnull File rootDir) {
+        this.rootDir = rootDir;
+        load();
+    }
+    
+    /**
+     * Get a list of registered container IDs.
+     * The method does not block writers. The snapshot is being shared between
+     * readers until the next modification of the registry.
+     * @return Sorted unmodifiable snapshot of the registry
+     */
+    public @Nonnull SortedSet<String> getContainerIDs() {
+        final Snapshot current = snapshot;
+        final long currentVersion = version.get();
+        if (current != null && current.version == currentVersion) {
+            return current.containerIDs;
+        }
+        
+        // Modifications, which happen during the copying, increment the version after
+        // changing the set. So they will be picked by the next rebuild anyway
+        final Snapshot fresh = new Snapshot(currentVersion, 
+                Collections.unmodifiableSortedSet(new TreeSet<String>(containerIDs)));
+        snapshot = fresh;
+        return fresh.containerIDs;
+    }
+    
+    public boolean contains(@Nonnull String containerID) {
+        return containerIDs.contains(containerID);
+    }
+    
+    public int size() {
+        return getContainerIDs().size();
+    }
+    
+    /**
+     * Adds a new container ID.
+     * The ID is being added only after writing the log entry, so the registry
+     * does not change if the entry cannot be written.
+     * @param containerID Container ID
+     * @return true if the registry has been modified
+     * @throws IOException Cannot write the log entry
+     */
+    public boolean add(@Nonnull String containerID) throws IOException {
+        if (containerIDs.contains(containerID)) { // Most of reports refer existing containers
+            return false;
+        }
+        synchronized (writeLock) {
+            if (containerIDs.contains(containerID)) {
+                return false;
+            }
+            append('+', containerID);
+            containerIDs.add(containerID);
+            version.incrementAndGet();
+        }
+        return true;
+    }
+    
+    /**
+     * Adds multiple container IDs.
+     * @param ids Container IDs
+     * @throws IOException Cannot write the log entry
+     */
+    public void addAll(@Nonnull Collection<String> ids) throws IOException {
+        for (String id : ids) {
+            add(id);
+        }
+    }
+    
+    /**
+     * Removes the container ID.
+     * @param containerID Container ID
+     * @return true if the registry has been modified
+     * @throws IOException Cannot write the log entry
+     */
+    public boolean remove(@Nonnull String containerID) throws IOException {
+        synchronized (writeLock) {
+            if (!containerIDs.contains(containerID)) {
+                return false;
+            }
+            append('-', containerID);
+            containerIDs.remove(containerID);
+            version.incrementAndGet();
+        }
+        return true;
+    }
+    
+    /**
+     * Appends the entry to the log.
+     * Each entry is being flushed, but the appender stays open between entries.
+     * Should be called under {@link #writeLock}.
+     */
+    private void append(char op, @Nonnull String containerID) throws IOException {
+        Writer writer = logWriter;
+        if (writer == null) {
+            if (!rootDir.exists() && !rootDir.mkdirs()) {
+                throw new IOException("Cannot create the registry directory " + rootDir);
+            }
+            writer = new OutputStreamWriter(new FileOutputStream(getLogFile(), true), ENCODING);
+            logWriter = writer;
+        }
+        try {
+            writer.write(op);
+            writer.write(containerID);
+            writer.write('\n');
+            writer.flush();
+        } catch (IOException ex) {
+            closeLog(); // The next entry will retry with a new appender
+            throw ex;
+        }
+        logEntries++;
+    }
+    
+    /**
+     * Closes the log appender if it is open.
+     * Should be called under {@link #writeLock}.
+     */
+    private void closeLog() {
+        final Writer writer = logWriter;
+        logWriter = null;
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, "Cannot close the registry log " + getLogFile(), ex);
+            }
+        }
+    }
+    
+    /**
+     * Releases the log file.
+     * The log will be reopened by the next modification if any.
+     */
+    public void close() {
+        synchronized (writeLock) {
+            closeLog();
+        }
+    }
+    
+    /**
+     * Checks if the log is big enough to be compacted.
+     * @return true if {@link #compact()} should be invoked
+     */
+    public boolean needsCompaction() {
+        return logEntries >= COMPACTION_THRESHOLD;
+    }
+    
+    /**
+     * Writes the current state to the snapshot and removes the log.
+     * The log is being rotated under the write lock, the snapshot is written
+     * without blocking modifications.
+     * Replaying of the new log over the snapshot gives the same result even
+     * if the snapshot includes some of its entries.
+     * @throws IOException Cannot write the snapshot
+     */
+    public void compact() throws IOException {
+        synchronized (compactionLock) {
+            final File oldLog = getOldLogFile();
+            synchronized (writeLock) {
+                closeLog(); // The rotated log must not get new entries
+                final File log = getLogFile();
+                if (!oldLog.exists() && log.exists() && !log.renameTo(oldLog)) {
+                    throw new IOException("Cannot rotate the registry log " + log);
+                }
+                logEntries = 0;
+            }
+            
+            final AtomicFileWriter writer = new AtomicFileWriter(getSnapshotFile());
+            try {
+                for (String containerID : getContainerIDs()) {
+                    writer.write(containerID);
+                    writer.write('\n');
+                }
+                writer.commit();
+            } finally {
+                writer.abort();
+            }
+            
+            if (oldLog.exists() && !oldLog.delete()) {
+                LOGGER.log(Level.WARNING, "Cannot delete the compacted registry log {0}", oldLog);
+            }
+        }
+    }
+    
+    /**
+     * Loads the registry from the snapshot and log files.
+     */
+    private void load() {
+        synchronized (writeLock) {
+            containerIDs.clear();
+            logEntries = 0;
+            try {
+                final File snapshotFile = getSnapshotFile();
+                if (snapshotFile.exists()) {
+                    final BufferedReader reader = open(snapshotFile);
+                    try {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            if (!line.isEmpty()) {
+                                containerIDs.add(line);
+                            }
+                        }
+                    } finally {
+                        reader.close();
+                    }
+                }
+
+                // The old log exists only if the compaction has not been completed
+                logEntries += replay(getOldLogFile());
+                logEntries += replay(getLogFile());
+            } catch (IOException ex) {
+                LOGGER.log(Level.SEVERE, "Failed to load the container registry from " + rootDir, ex);
+            }
+            version.incrementAndGet();
+        }
+    }
+    
+    private int replay(@Nonnull File log) throws IOException {
+        if (!log.exists()) {
+            return 0;
+        }
+        
+        int entries = 0;
+        final BufferedReader reader = open(log);
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.length() < 2) { // Truncated record
+                    continue;
+                }
+                final String containerID = line.substring(1);
+                switch (line.charAt(0)) {
+                    case '+':
+                        containerIDs.add(containerID);
+                        break;
+                    case '-':
+                        containerIDs.remove(containerID);
+                        break;
+                    default:
+                        LOGGER.log(Level.WARNING, "Malformed entry in the registry log {0}: {1}", 
+                                new Object[] {log, line});
+                        continue;
+                }
+                entries++;
+            }
+        } finally {
+            reader.close();
+        }
+        return entries;
+    }
+    
+    private static @Nonnull BufferedReader open(@Nonnull File file) throws IOException {
+        return new BufferedReader(new InputStreamReader(new FileInputStream(file), ENCODING));
+    }
+    
+    private @Nonnull File getSnapshotFile() {
+        return new File(rootDir, SNAPSHOT_FILE);
+    }
+    
+    private @Nonnull File getLogFile() {
+        return new File(rootDir, LOG_FILE);
+    }
+    
+    private @Nonnull File getOldLogFile() {
+        return new File(rootDir, OLD_LOG_FILE);
+    }
+    
+    /**
+     * Immutable snapshot of the registry.
+     */
+    private static final class Snapshot {
+        
+        private final long version;
+        private final @Nonnull SortedSet<String> containerIDs;
+
+        Snapshot(long version, @Nonnull SortedSet<String> containerIDs) {
+            this.version = version;
+            this.containerIDs = containerIDs;
+        }
+    }
+    
+    /**
+     * Compacts the registry of {@link DockerTraceabilityRootAction} in background.
+     */
+    @Extension
+    public static class CompactionWork extends AsyncPeriodicWork {
+
+        public CompactionWork() {
+            super("Docker Traceability registry compaction");
+        }
+
+        @Override
+        public long getRecurrencePeriod() {
+            return MIN * 5;
+        }
+
+        @Override
+        protected void execute(TaskListener listener) throws IOException, InterruptedException {
+            final DockerTraceabilityRootAction action = DockerTraceabilityRootAction.getInstance();
+            final DockerContainerRegistry registry = action != null ? action.getRegistry() : null;
+            if (registry != null && registry.needsCompaction()) {
+                registry.compact();
+            }
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.core;
+
+import hudson.search.SearchIndex;
+import hudson.search.SearchItem;
+import hudson.search.SearchItems;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import org.apache.commons.lang.StringUtils;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Incrementally updated prefix index for the Jenkins search box.
+ * Containers are being indexed by full and short IDs, fingerprint hashes, 
+ * container names and image names. Keys are case-insensitive.
+ * Suggestions take the time proportional to the prefix length and to the
+ * number of returned items, but not to the number of registered containers.
+ */
+@Restricted(NoExternalUse.class)
+public class DockerContainerSearchIndex implements SearchIndex {
+    
+    /**
+     * Length of short container IDs displayed by Docker CLI.
+     */
+    static final int SHORT_ID_LENGTH = 12;
+    
+    /**
+     * Maximum number of containers returned by {@link #suggest(String, List)}.
+     */
+    static final int MAX_SUGGESTIONS = 
+            Integer.getInteger(DockerContainerSearchIndex.class.getName() + ".maxSuggestions", 100);
+    
+    private final Node root = new Node();
+    
+    /**
+     * Indexed keys of each container. Required for removals.
+     */
+    private final Map<String, Set<String>> keysByContainer = new HashMap<String, Set<String>>();
+    
+    /**
+     * Adds the container or updates its keys.
+     * @param containerId Full container ID
+     * @param containerName Optional container name
+     * @param imageName Optional image name
+     */
+    public synchronized void put(@Nonnull String containerId, @CheckForNull String containerName, 
+            @CheckForNull String imageName) {
+        final Set<String> keys = new HashSet<String>();
+        keys.add(containerId);
+        if (containerId.length() > SHORT_ID_LENGTH) {
+            keys.add(containerId.substring(0, SHORT_ID_LENGTH));
+        }
+        if (containerId.length() == 64) {
+            keys.add(DockerTraceabilityHelper.getContainerHash(containerId));
+        }
+        final String name = DockerContainerIndex.Field.containerName.normalize(containerName);
+        if (name != null) {
+            keys.add(name);
+        }
+        final String image = DockerContainerIndex.Field.imageName.normalize(imageName);
+        if (image != null) {
+            keys.add(image);
+        }
+        
+        final Set<String> previousKeys = keysByContainer.get(containerId);
+        if (keys.equals(previousKeys)) {
+            return;
+        }
+        if (previousKeys != null) {
+            remove(containerId);
+        }
+        keysByContainer.put(containerId, keys);
+        final SearchItem containerItem = createItem(containerId, containerId);
+        for (String key : keys) {
+            Node node = root;
+            for (char c : key.toLowerCase(Locale.ENGLISH).toCharArray()) {
+                node = node.getOrCreateChild(c);
+            }
+            // Items of other keys are named by keys, because Jenkins uses names for the exact match
+            node.putItem(containerId, key.equals(containerId) ? containerItem : createItem(key, containerId));
+        }
+    }
+    
+    /**
+     * Removes the container from the index.
+     * @param containerId Full container ID
+     */
+    public synchronized void remove(@Nonnull String containerId) {
+        final Set<String> keys = keysByContainer.remove(containerId);
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            remove(root, key.toLowerCase(Locale.ENGLISH), 0, containerId);
+        }
+    }
+    
+    /**
+     * Removes the item and prunes empty nodes.
+     * @return true if the node has become empty
+     */
+    private static boolean remove(@Nonnull Node node, @Nonnull String key, int position, @Nonnull String containerId) {
+        if (position == key.length()) {
+            node.removeItem(containerId);
+        } else {
+            final char c = key.charAt(position);
+            final Node child = node.getChild(c);
+            if (child != null && remove(child, key, position + 1, containerId)) {
+                node.children.remove(c);
+            }
+        }
+        return node.isEmpty();
+    }
+    
+    /**
+     * Removes all containers from the index.
+     */
+    public synchronized void clear() {
+        root.children = null;
+        root.items = null;
+        keysByContainer.clear();
+    }
+    
+    public synchronized int size() {
+        return keysByContainer.size();
+    }
+    
+    @Override
+    public synchronized void find(String token, List<SearchItem> result) {
+        final Node node = lookup(token);
+        if (node != null && node.items != null) {
+            result.addAll(node.items.values());
+        }
+    }
+
+    @Override
+    public synchronized void suggest(String token, List<SearchItem> result) {
+        final Node start = lookup(token);
+        if (start == null) {
+            return;
+        }
+        
+        // Depth-first, so the walk reaches first items without visiting the whole subtree.
+        // Each container is being suggested once
+        final Set<String> suggested = new HashSet<String>();
+        final Deque<Node> stack = new ArrayDeque<Node>();
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            final Node node = stack.pop();
+            if (node.items != null) {
+                for (Map.Entry<String, SearchItem> item : node.items.entrySet()) {
+                    if (suggested.add(item.getKey())) {
+                        result.add(item.getValue());
+                        if (suggested.size() >= MAX_SUGGESTIONS) {
+                            return;
+                        }
+                    }
+                }
+            }
+            if (node.children != null) {
+                for (Node child : node.children.values()) {
+                    stack.push(child);
+                }
+            }
+        }
+    }
+    
+    private @CheckForNull Node lookup(@CheckForNull String token) {
+        if (StringUtils.isBlank(token)) {
+            return null;
+        }
+        Node node = root;
+        for (char c : token.trim().toLowerCase(Locale.ENGLISH).toCharArray()) {
+            node = node.getChild(c);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+    
+    private static @Nonnull SearchItem createItem(@Nonnull String name, @Nonnull String containerId) {
+        return SearchItems.create(name, "container?id=" + containerId);
+    }
+    
+    /**
+     * Trie node. Collections are being created on demand in order to save memory.
+     */
+    private static final class Node {
+        
+        private @CheckForNull Map<Character, Node> children;
+        
+        /**
+         * Items of keys ending at this node, container IDs are used as keys.
+         */
+        private @CheckForNull Map<String, SearchItem> items;
+        
+        @CheckForNull Node getChild(char c) {
+            return (children != null) ? children.get(c) : null;
+        }
+        
+        @Nonnull Node getOrCreateChild(char c) {
+            if (children == null) {
+                children = new HashMap<Character, Node>(4);
+            }
+            Node child = children.get(c);
+            if (child == null) {
+                child = new Node();
+                children.put(c, child);
+            }
+            return child;
+        }
+        
+        void putItem(@Nonnull String containerId, @Nonnull SearchItem item) {
+            if (items == null) {
+                items = new LinkedHashMap<String, SearchItem>(2);
+            }
+            items.put(containerId, item);
+        }
+        
+        void removeItem(@Nonnull String containerId) {
+            if (items != null) {
+                items.remove(containerId);
+                if (items.isEmpty()) {
+                    items = null;
+                }
+            }
+        }
+        
+        boolean isEmpty() {
+            return (children == null || children.isEmpty()) && items == null;
+        }
+    }
+}
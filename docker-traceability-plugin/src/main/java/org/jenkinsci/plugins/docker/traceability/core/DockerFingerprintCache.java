@@ -0,0 +1,303 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.core;
+
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Fingerprint;
+import hudson.model.TaskListener;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.docker.traceability.util.FingerprintSaveQueue;
+import org.jenkinsci.plugins.docker.traceability.util.FingerprintsHelper;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Size-bounded cache of container and image {@link Fingerprint}s.
+ * {@link jenkins.model.FingerprintMap} holds fingerprints only weakly, so 
+ * fingerprints of hot containers are being reloaded from XML again and again. 
+ * This cache keeps strong references to recently used fingerprints.
+ * Cached instances are the same as ones in {@link jenkins.model.FingerprintMap},
+ * so modifications of facets are being seen by all readers without any explicit invalidation.
+ * Containers, which are being removed by the plugin, are invalidated immediately.
+ * Fingerprints, which have been deleted by the fingerprint cleanup, are being 
+ * dropped by {@link ValidationWork}, so lookups do not touch the disk.
+ * <p>
+ * The cache is segmented. Fingerprints, which have been loaded by readers, get into
+ * the probationary segment. Fingerprints, which have been written by the plugin,
+ * get into the protected segment, which is evicted only when it overflows.
+ * Hence UI renders and scans over all containers cannot evict the working set of 
+ * recently active containers.
+ */
+@Restricted(NoExternalUse.class)
+public class DockerFingerprintCache {
+    
+    private static final String PROPERTY_PREFIX = DockerFingerprintCache.class.getName() + ".";
+    
+    /**
+     * Cache of container fingerprints.
+     * Use {@code org.jenkinsci.plugins.docker.traceability.core.DockerFingerprintCache.containers}
+     * to configure the size. Zero disables the cache.
+     */
+    public static final DockerFingerprintCache CONTAINERS = new DockerFingerprintCache("containers",
+            Integer.getInteger(PROPERTY_PREFIX + "containers", 2000));
+    
+    /**
+     * Cache of image fingerprints.
+     * Use {@code org.jenkinsci.plugins.docker.traceability.core.DockerFingerprintCache.images}
+     * to configure the size. Zero disables the cache.
+     */
+    public static final DockerFingerprintCache IMAGES = new DockerFingerprintCache("images",
+            Integer.getInteger(PROPERTY_PREFIX + "images", 500));
+    
+    /**
+     * Percentage of the capacity, which is reserved for the protected segment.
+     */
+    private static final int PROTECTED_PERCENTAGE = 80;
+    
+    private final @Nonnull String name;
+    private final int capacity;
+    private final int protectedCapacity;
+    private final LinkedHashMap<String, Fingerprint> probation = new LinkedHashMap<String, Fingerprint>(16, 0.75f, true);
+    private final LinkedHashMap<String, Fingerprint> protectedSegment = new LinkedHashMap<String, Fingerprint>(16, 0.75f, true);
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    DockerFingerprintCache(@Nonnull String name, int capacity) {
+        this.name = name;
+        this.capacity = Math.max(0, capacity);
+        this.protectedCapacity = this.capacity * PROTECTED_PERCENTAGE / 100;
+    }
+
+    public @Nonnull String getName() {
+        return name;
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    /**
+     * Gets a cached fingerprint.
+     * @param id Full 64-char ID of the container or image
+     * @return Fingerprint or null if it is not cached
+     */
+    public synchronized @CheckForNull Fingerprint get(@Nonnull String id) {
+        Fingerprint fp = protectedSegment.get(id);
+        if (fp == null) {
+            fp = probation.get(id);
+        }
+        if (fp != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return fp;
+    }
+    
+    /**
+     * Removes fingerprints, which have been deleted from the disk.
+     * File checks are being performed outside the lock, so lookups are not blocked.
+     * @return Number of removed entries
+     */
+    public int removeDeleted() {
+        final List<Map.Entry<String, Fingerprint>> entries;
+        synchronized (this) {
+            entries = new ArrayList<Map.Entry<String, Fingerprint>>(probation.size() + protectedSegment.size());
+            entries.addAll(new LinkedHashMap<String, Fingerprint>(protectedSegment).entrySet());
+            entries.addAll(new LinkedHashMap<String, Fingerprint>(probation).entrySet());
+        }
+        
+        int removed = 0;
+        for (Map.Entry<String, Fingerprint> entry : entries) {
+            final String id = entry.getKey();
+            final Fingerprint fp = entry.getValue();
+            if (!isDeleted(fp)) {
+                continue;
+            }
+            synchronized (this) { // The entry may have been replaced in the meantime
+                if (protectedSegment.get(id) == fp) {
+                    protectedSegment.remove(id);
+                    removed++;
+                } else if (probation.get(id) == fp) {
+                    probation.remove(id);
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+    
+    /**
+     * Checks if the fingerprint has been deleted from the disk.
+     * New fingerprints may wait for the save in {@link FingerprintSaveQueue}.
+     */
+    private static boolean isDeleted(@Nonnull Fingerprint fp) {
+        final Jenkins j = Jenkins.getInstance();
+        return j != null && !FingerprintsHelper.getFingerprintFile(j, fp.getHashString()).exists() 
+                && !FingerprintSaveQueue.isPending(fp);
+    }
+    
+    /**
+     * Puts a fingerprint, which has been loaded by a reader.
+     * Entries of the protected segment stay there.
+     * @param id Full 64-char ID of the container or image
+     * @param fingerprint Loaded fingerprint
+     */
+    public synchronized void putLoaded(@Nonnull String id, @Nonnull Fingerprint fingerprint) {
+        if (capacity == 0) {
+            return;
+        }
+        if (protectedSegment.containsKey(id)) {
+            protectedSegment.put(id, fingerprint);
+            return;
+        }
+        probation.put(id, fingerprint);
+        evictProbation();
+    }
+    
+    /**
+     * Puts a fingerprint, which has been written by the plugin.
+     * The entry gets into the protected segment.
+     * @param id Full 64-char ID of the container or image
+     * @param fingerprint Written fingerprint
+     */
+    public synchronized void putWritten(@Nonnull String id, @Nonnull Fingerprint fingerprint) {
+        if (capacity == 0) {
+            return;
+        }
+        probation.remove(id);
+        protectedSegment.put(id, fingerprint);
+        
+        // Demote least recently written entries to the probationary segment
+        final Iterator<Map.Entry<String, Fingerprint>> it = protectedSegment.entrySet().iterator();
+        while (protectedSegment.size() > protectedCapacity && it.hasNext()) {
+            final Map.Entry<String, Fingerprint> eldest = it.next();
+            it.remove();
+            probation.put(eldest.getKey(), eldest.getValue());
+        }
+        evictProbation();
+    }
+    
+    private void evictProbation() {
+        final Iterator<String> it = probation.keySet().iterator();
+        while (probation.size() + protectedSegment.size() > capacity && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions++;
+        }
+    }
+    
+    /**
+     * Removes the entry from the cache.
+     * @param id Full 64-char ID of the container or image
+     */
+    public synchronized void invalidate(@Nonnull String id) {
+        protectedSegment.remove(id);
+        probation.remove(id);
+    }
+    
+    /**
+     * Removes all entries from the cache.
+     */
+    public synchronized void invalidateAll() {
+        protectedSegment.clear();
+        probation.clear();
+    }
+    
+    /**
+     * Removes entries from all caches.
+     * Cached fingerprints belong to the current {@link jenkins.model.Jenkins} instance,
+     * so the caches should be cleaned on the plugin stop.
+     */
+    public static void invalidateAllCaches() {
+        CONTAINERS.invalidateAll();
+        IMAGES.invalidateAll();
+    }
+    
+    public synchronized int getSize() {
+        return probation.size() + protectedSegment.size();
+    }
+    
+    public synchronized int getProtectedSize() {
+        return protectedSegment.size();
+    }
+    
+    public synchronized long getHits() {
+        return hits;
+    }
+    
+    public synchronized long getMisses() {
+        return misses;
+    }
+    
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+    
+    /**
+     * Gets the ratio of successful lookups.
+     * @return Hit rate from 0 to 1. 0 if there has been no lookups
+     */
+    public synchronized double getHitRate() {
+        final long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+    
+    /**
+     * Drops deleted fingerprints from all caches in background.
+     * The fingerprint cleanup runs rarely, so the hourly check is enough.
+     */
+    @Extension
+    public static class ValidationWork extends AsyncPeriodicWork {
+
+        public ValidationWork() {
+            super("Docker Traceability fingerprint cache validation");
+        }
+
+        @Override
+        public long getRecurrencePeriod() {
+            return HOUR;
+        }
+
+        @Override
+        protected void execute(TaskListener listener) {
+            for (DockerFingerprintCache cache : new DockerFingerprintCache[] {CONTAINERS, IMAGES}) {
+                final int removed = cache.removeDeleted();
+                if (removed > 0) {
+                    listener.getLogger().println("Removed " + removed + " deleted fingerprints from the " 
+                            + cache.getName() + " cache");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,298 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.core;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPlugin;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityExecutors;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Asynchronous writer of the report audit log.
+ * Records are being accepted to a bounded in-memory buffer and written by a
+ * single background thread, which appends them to {@code audit.log} in batches.
+ * If the buffer is full, new records are being dropped, so callers are never blocked.
+ * The log file is being rotated when it exceeds the size limit, 
+ * rotated files get {@code .1}, {@code .2}, ... suffixes.
+ * <p>
+ * The buffer size and the rotation can be adjusted by the following system properties:
+ * {@code org.jenkinsci.plugins.docker.traceability.core.DockerTraceabilityAuditLog.bufferSize},
+ * {@code org.jenkinsci.plugins.docker.traceability.core.DockerTraceabilityAuditLog.maxFileSize} 
+ * (bytes) and {@code org.jenkinsci.plugins.docker.traceability.core.DockerTraceabilityAuditLog.maxFiles}.
+ * @see DockerTraceabilityReportLogger
+ */
+@Restricted(NoExternalUse.class)
+public class DockerTraceabilityAuditLog {
+    
+    private final static Logger LOGGER = Logger.getLogger(DockerTraceabilityPlugin.class.getName());
+    
+    private static final String PROPERTY_PREFIX = DockerTraceabilityAuditLog.class.getName();
+    
+    private static final int BUFFER_SIZE = 
+            Math.max(1, Integer.getInteger(PROPERTY_PREFIX + ".bufferSize", 8192));
+    
+    private static final long MAX_FILE_SIZE = 
+            Math.max(1024, Long.getLong(PROPERTY_PREFIX + ".maxFileSize", 10 * 1024 * 1024));
+    
+    private static final int MAX_FILES = 
+            Math.max(1, Integer.getInteger(PROPERTY_PREFIX + ".maxFiles", 5));
+    
+    private static final long SHUTDOWN_TIMEOUT_SEC = 10;
+    
+    static final String LOG_FILE = "audit.log";
+    
+    private static final Charset ENCODING = Charset.forName("UTF-8");
+    
+    private static final DockerTraceabilityExecutors.LazyInstance<DockerTraceabilityAuditLog> INSTANCE =
+            new DockerTraceabilityExecutors.LazyInstance<DockerTraceabilityAuditLog>() {
+        @Override
+        protected DockerTraceabilityAuditLog create() {
+            final Jenkins j = Jenkins.getInstance();
+            if (j == null) {
+                throw new IllegalStateException("Jenkins instance is not ready");
+            }
+            return new DockerTraceabilityAuditLog(new File(j.getRootDir(), "docker-traceability"), 
+                    BUFFER_SIZE, MAX_FILE_SIZE, MAX_FILES);
+        }
+
+        @Override
+        protected void stop(DockerTraceabilityAuditLog log) {
+            log.shutdown();
+        }
+    };
+    
+    private final @Nonnull File rootDir;
+    private final @Nonnull BlockingQueue<String> buffer;
+    private final long maxFileSize;
+    private final int maxFiles;
+    private final @Nonnull ExecutorService executor;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean stopped;
+    
+    // Accessed by the writer thread only
+    private @CheckForNull Writer writer;
+    private long fileSize;
+
+    DockerTraceabilityAuditLog(@Nonnull File rootDir, int bufferSize, long maxFileSize, int maxFiles) {
+        this.rootDir = rootDir;
+        this.buffer = new ArrayBlockingQueue<String>(bufferSize);
+        this.maxFileSize = maxFileSize;
+        this.maxFiles = maxFiles;
+        this.executor = Executors.newSingleThreadExecutor(
+                DockerTraceabilityExecutors.threadFactory("Docker Traceability audit log writer"));
+        this.executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        });
+    }
+    
+    /**
+     * Adds a record to the log.
+     * The method never blocks.
+     * @param record Single-line record without the line terminator
+     * @return false if the record has been dropped, because the buffer is full
+     *      or the log has been stopped
+     */
+    public boolean offer(@Nonnull String record) {
+        if (!stopped && buffer.offer(record)) {
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+    
+    /**
+     * Gets the number of records waiting for the write.
+     * @return Number of buffered records
+     */
+    public int getQueueDepth() {
+        return buffer.size();
+    }
+
+    /**
+     * Gets the number of records, which have been written since the startup.
+     * @return Number of records
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+    
+    /**
+     * Gets the number of records, which have been dropped since the startup.
+     * @return Number of records
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+    
+    private void writeLoop() {
+        final List<String> batch = new ArrayList<String>();
+        try {
+            while (!stopped || !buffer.isEmpty()) {
+                final String first = buffer.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch);
+                write(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            close();
+        }
+    }
+    
+    private void write(@Nonnull List<String> records) {
+        try {
+            for (String record : records) {
+                final Writer w = getWriter();
+                w.write(record);
+                w.write('\n');
+                // Estimation, records are ASCII in most cases
+                fileSize += record.length() + 1;
+                if (fileSize >= maxFileSize) {
+                    rotate();
+                }
+            }
+            if (writer != null) {
+                writer.flush();
+            }
+            written.addAndGet(records.size());
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Cannot write the Docker Traceability audit log. " 
+                    + records.size() + " records will be dropped", ex);
+            dropped.addAndGet(records.size());
+            close();
+        }
+    }
+    
+    private @Nonnull Writer getWriter() throws IOException {
+        if (writer == null) {
+            final File file = getLogFile();
+            if (!rootDir.exists() && !rootDir.mkdirs()) {
+                throw new IOException("Cannot create the directory " + rootDir);
+            }
+            fileSize = file.length();
+            writer = new OutputStreamWriter(new FileOutputStream(file, true), ENCODING);
+        }
+        return writer;
+    }
+    
+    private void rotate() throws IOException {
+        close();
+        final File oldest = new File(rootDir, LOG_FILE + "." + maxFiles);
+        if (oldest.exists() && !oldest.delete()) {
+            throw new IOException("Cannot delete " + oldest);
+        }
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            final File file = new File(rootDir, LOG_FILE + "." + i);
+            if (file.exists() && !file.renameTo(new File(rootDir, LOG_FILE + "." + (i + 1)))) {
+                throw new IOException("Cannot rotate " + file);
+            }
+        }
+        final File file = getLogFile();
+        if (!file.renameTo(new File(rootDir, LOG_FILE + ".1"))) {
+            throw new IOException("Cannot rotate " + file);
+        }
+    }
+    
+    private void close() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Cannot close the Docker Traceability audit log", ex);
+        }
+        writer = null;
+        fileSize = 0;
+    }
+    
+    @Nonnull File getLogFile() {
+        return new File(rootDir, LOG_FILE);
+    }
+    
+    /**
+     * Stops the writer.
+     * Buffered records are being written before the exit.
+     */
+    void shutdown() {
+        stopped = true;
+        if (!DockerTraceabilityExecutors.shutdown(executor, "Docker Traceability audit log writer", SHUTDOWN_TIMEOUT_SEC)) {
+            LOGGER.log(Level.WARNING, "{0} audit records have not been written", getQueueDepth());
+        }
+    }
+    
+    /**
+     * Gets the audit log instance.
+     * The writer will be started on the first call.
+     * @return Audit log instance
+     * @throws IllegalStateException Jenkins instance is not ready
+     */
+    public static @Nonnull DockerTraceabilityAuditLog getInstance() throws IllegalStateException {
+        return INSTANCE.get();
+    }
+    
+    /**
+     * Gets the audit log instance if it has been started.
+     * @return Audit log instance or null
+     */
+    public static @CheckForNull DockerTraceabilityAuditLog getInstanceOrNull() {
+        return INSTANCE.getIfStarted();
+    }
+    
+    /**
+     * Stops the audit log if it has been started.
+     * Buffered records will be written before the exit.
+     */
+    public static void shutdownInstance() {
+        INSTANCE.shutdown();
+    }
+}
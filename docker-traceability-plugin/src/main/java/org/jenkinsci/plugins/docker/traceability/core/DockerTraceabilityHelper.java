@@ -42,6 +42,7 @@ import org.jenkinsci.plugins.docker.traceability.fingerprint.DockerContainerReco
 import org.jenkinsci.plugins.docker.traceability.fingerprint.DockerDeploymentFacet;
 import org.jenkinsci.plugins.docker.traceability.fingerprint.DockerInspectImageFacet;
 import org.jenkinsci.plugins.docker.traceability.api.DockerTraceabilityReport;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityMetrics;
 import org.jenkinsci.plugins.docker.traceability.util.FingerprintsHelper;
 
 /**
@@ -71,6 +72,7 @@ public class DockerTraceabilityHelper {
      * Get a fingerprint by the specified container ID.
      * This method allows to handle exception in the logic.
      * Use {@link #of(java.lang.String)} to get a default behavior.
+     * Fingerprints are being taken from {@link DockerFingerprintCache#CONTAINERS} if possible.
      * @param containerId Full 64-symbol container id. Short forms are not supported.
      * @return Fingerprint. null if it does not exist (or if Jenkins has not been initialized yet)
      * @throws IOException Fingerprint loading error
@@ -80,7 +82,42 @@ public class DockerTraceabilityHelper {
         if (jenkins == null) {
             return null;
         }
-        return jenkins.getFingerprintMap().get(getContainerHash(containerId));
+        final long start = DockerTraceabilityMetrics.FINGERPRINT_LOOKUP.start();
+        try {
+            Fingerprint fp = DockerFingerprintCache.CONTAINERS.get(containerId);
+            if (fp == null) {
+                fp = jenkins.getFingerprintMap().get(getContainerHash(containerId));
+                if (fp != null) {
+                    DockerFingerprintCache.CONTAINERS.putLoaded(containerId, fp);
+                }
+            }
+            return fp;
+        } finally {
+            DockerTraceabilityMetrics.FINGERPRINT_LOOKUP.stop(start);
+        }
+    }
+    
+    /**
+     * Get a fingerprint by the specified image ID.
+     * Fingerprints are being taken from {@link DockerFingerprintCache#IMAGES} if possible.
+     * @param imageId Full 64-symbol image id. Short forms are not supported.
+     * @return Fingerprint. null if it does not exist (or if Jenkins has not been initialized yet)
+     * @throws IOException Fingerprint loading error
+     */
+    public static @CheckForNull Fingerprint ofImage(@Nonnull String imageId) throws IOException {
+        final long start = DockerTraceabilityMetrics.FINGERPRINT_LOOKUP.start();
+        try {
+            Fingerprint fp = DockerFingerprintCache.IMAGES.get(imageId);
+            if (fp == null) {
+                fp = DockerFingerprints.of(imageId);
+                if (fp != null) {
+                    DockerFingerprintCache.IMAGES.putLoaded(imageId, fp);
+                }
+            }
+            return fp;
+        } finally {
+            DockerTraceabilityMetrics.FINGERPRINT_LOOKUP.stop(start);
+        }
     }
     
     /**
@@ -113,9 +150,11 @@ public class DockerTraceabilityHelper {
             return null;
         }
         
-        return jenkins.getFingerprintMap().getOrCreate(null, 
+        final Fingerprint fp = jenkins.getFingerprintMap().getOrCreate(null, 
                 "Container "+(name != null ? name : containerId), 
                 getContainerHash(containerId));
+        DockerFingerprintCache.CONTAINERS.putWritten(containerId, fp);
+        return fp;
     }
     
     /**
@@ -136,6 +175,7 @@ public class DockerTraceabilityHelper {
         // TODO: this image is not protected from the fingerprint cleanup thread
         final Fingerprint fp = jenkins.getFingerprintMap().getOrCreate(
                 null, "Image "+(name != null ? name : imageId), getImageHash(imageId));
+        DockerFingerprintCache.IMAGES.putWritten(imageId, fp);
         return fp;
     }
     
@@ -156,6 +196,25 @@ public class DockerTraceabilityHelper {
         return null;
     }    
     
+    /**
+     * Retrieves the deployment record, which has been in effect at the specified time.
+     * @param containerId Container Id
+     * @param time Time in seconds
+     * @return The latest record before or at the specified time. 
+     *         Null if there is no data available (or if an internal exception happens)
+     * @since 1.3
+     */
+    public static @CheckForNull DockerContainerRecord getContainerRecordAt(@Nonnull String containerId, long time) {
+        final Fingerprint fp = of(containerId);
+        if (fp != null) {
+            final DockerDeploymentFacet facet = FingerprintsHelper.getFacet(fp, DockerDeploymentFacet.class);
+            if (facet != null) {
+                return facet.getRecordAt(time);
+            }
+        }
+        return null;
+    }
+    
     /**
      * Retrieves the last trace report for the specified container.
      * @param containerId Container Id
@@ -175,7 +234,7 @@ public class DockerTraceabilityHelper {
      */
     public static @CheckForNull InspectImageResponse getLastInspectImageResponse(@Nonnull String imageId) {
         try {
-            final Fingerprint fp = DockerFingerprints.of(imageId);
+            final Fingerprint fp = ofImage(imageId);
             if (fp != null) {
                 final DockerInspectImageFacet facet = FingerprintsHelper.getFacet(fp, DockerInspectImageFacet.class);
                 if (facet != null) {
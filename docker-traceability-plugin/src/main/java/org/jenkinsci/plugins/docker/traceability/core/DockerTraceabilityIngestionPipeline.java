@@ -0,0 +1,446 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.core;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPlugin;
+import org.jenkinsci.plugins.docker.traceability.api.DockerTraceabilityReport;
+import org.jenkinsci.plugins.docker.traceability.core.DockerTraceabilityReportListenerImpl.ResolvedReport;
+import org.jenkinsci.plugins.docker.traceability.model.DockerTraceabilityReportListener;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityExecutors;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityExecutors.BoundedExecutor;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityMetrics;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Asynchronous ingestion pipeline for {@link DockerTraceabilityReport}s.
+ * Submissions are accepted into a bounded in-memory queue, and then they are
+ * processed by four stages: parse, resolve, persist and notify.
+ * Each stage has its own worker pool and a bounded number of pending tasks.
+ * Only the entry stage rejects submissions, other stages block the upstream
+ * workers when they are full.
+ * <p>
+ * Pool sizes and queue depths can be adjusted by the following system properties:
+ * {@code org.jenkinsci.plugins.docker.traceability.core.DockerTraceabilityIngestionPipeline.<stage>.threads}
+ * and {@code org.jenkinsci.plugins.docker.traceability.core.DockerTraceabilityIngestionPipeline.<stage>.queueDepth}.
+ * The persist stage uses a single worker by default in order to serialize
+ * fingerprint modifications. Resolve, persist and notify stages are partitioned
+ * by the container ID, so reports of the same container are being processed in 
+ * the order of their submission. Reports from concurrent submissions may 
+ * still be reordered by the parse stage, but records are being ordered
+ * by the event time within {@link org.jenkinsci.plugins.docker.traceability.fingerprint.DockerDeploymentFacet}
+ * anyway.
+ * <p>
+ * Tasks are never executed outside the stage workers. If a downstream stage
+ * has been stopped, the report is being dropped with a warning.
+ * @see org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPluginConfiguration.IngestionSettings#isAsyncIngestion()
+ */
+@Restricted(NoExternalUse.class)
+public class DockerTraceabilityIngestionPipeline {
+
+    private final static Logger LOGGER = Logger.getLogger(DockerTraceabilityPlugin.class.getName());
+
+    private static final String PROPERTY_PREFIX = DockerTraceabilityIngestionPipeline.class.getName();
+
+    /**
+     * Timeout for the termination of each stage on shutdown.
+     */
+    private static final long SHUTDOWN_TIMEOUT_SEC =
+            Long.getLong(PROPERTY_PREFIX + ".shutdownTimeoutSec", 30);
+
+    private static final DockerTraceabilityExecutors.LazyInstance<DockerTraceabilityIngestionPipeline> INSTANCE =
+            new DockerTraceabilityExecutors.LazyInstance<DockerTraceabilityIngestionPipeline>() {
+        @Override
+        protected DockerTraceabilityIngestionPipeline create() {
+            return new DockerTraceabilityIngestionPipeline();
+        }
+
+        @Override
+        protected void stop(DockerTraceabilityIngestionPipeline pipeline) {
+            pipeline.shutdown();
+        }
+    };
+
+    private final Stage parseStage = new Stage("parse", 2, 1024, false);
+    private final Stage resolveStage = new Stage("resolve", 2, 4096, true);
+    private final Stage persistStage = new Stage("persist", 1, 4096, true);
+    private final Stage notifyStage = new Stage("notify", 1, 4096, true);
+
+    DockerTraceabilityIngestionPipeline() {
+    }
+
+    /**
+     * Accepts a new submission to the pipeline.
+     * The method does not wait for the submission processing.
+     * @param submission Submission to be processed
+     * @throws RejectedExecutionException The pipeline is full or has been stopped
+     */
+    public void submit(final @Nonnull Submission submission) throws RejectedExecutionException {
+        parseStage.offer(new Runnable() {
+            @Override
+            public void run() {
+                final List<DockerTraceabilityReport> reports;
+                final long start = DockerTraceabilityMetrics.SUBMIT_PARSE.start();
+                try {
+                    reports = submission.parse();
+                } catch (IOException ex) {
+                    LOGGER.log(Level.WARNING, "Cannot parse the submission " + submission, ex);
+                    return;
+                } finally {
+                    DockerTraceabilityMetrics.SUBMIT_PARSE.stop(start);
+                }
+                try {
+                    for (DockerTraceabilityReport report : reports) {
+                        resolveStage.put(report.getContainerId(), new ResolveTask(report));
+                    }
+                } catch (RejectedExecutionException ex) {
+                    LOGGER.log(Level.WARNING, "Docker Traceability resolve stage has rejected reports of the submission " 
+                            + submission + ", the remaining reports have been dropped", ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Checks if the pipeline cannot accept new submissions at the moment.
+     * It allows to skip the submission preparation, but {@link #submit(Submission)}
+     * may still reject the submission.
+     * @return true if the entry stage is full
+     */
+    public boolean isFull() {
+        return parseStage.isFull();
+    }
+
+    /**
+     * Gets the number of items waiting in the stage queues.
+     * @return Map of queue depths with stage names as keys
+     */
+    public @Nonnull Map<String, Integer> getQueueDepths() {
+        final Map<String, Integer> res = new LinkedHashMap<String, Integer>(4);
+        for (Stage stage : stages()) {
+            res.put(stage.getName(), stage.getQueueDepth());
+        }
+        return res;
+    }
+
+    /**
+     * Gets the number of tasks, which have been rejected by the stages.
+     * @return Map of rejection counts with stage names as keys
+     */
+    public @Nonnull Map<String, Long> getRejectedCounts() {
+        final Map<String, Long> res = new LinkedHashMap<String, Long>(4);
+        for (Stage stage : stages()) {
+            res.put(stage.getName(), stage.getRejectedCount());
+        }
+        return res;
+    }
+
+    private Stage[] stages() {
+        return new Stage[] {parseStage, resolveStage, persistStage, notifyStage};
+    }
+
+    /**
+     * Stops the pipeline.
+     * The method waits for the completion of all accepted submissions.
+     * Stages are being terminated one-by-one in order to let them drain
+     * items, which have been passed from the upstream stages.
+     */
+    void shutdown() {
+        for (Stage stage : stages()) {
+            stage.shutdown();
+        }
+    }
+
+    /**
+     * Gets the pipeline instance.
+     * The pipeline will be started on the first call.
+     * @return Pipeline instance
+     */
+    public static @Nonnull DockerTraceabilityIngestionPipeline getInstance() {
+        return INSTANCE.get();
+    }
+
+    /**
+     * Gets the pipeline instance if it has been started.
+     * @return Pipeline instance or null
+     */
+    public static @CheckForNull DockerTraceabilityIngestionPipeline getInstanceOrNull() {
+        return INSTANCE.getIfStarted();
+    }
+    
+    /**
+     * Stops the pipeline if it has been started.
+     * Accepted submissions will be processed before the exit.
+     */
+    public static void shutdownInstance() {
+        INSTANCE.shutdown();
+    }
+
+    /**
+     * Passes the report task to the downstream stage.
+     * The calling worker waits while the stage is full.
+     * @param stage Downstream stage
+     * @param report Report, which is being processed by the task
+     * @param task Task to be executed
+     * @return false if the stage has rejected the task. The report is dropped then
+     */
+    private static boolean pass(@Nonnull Stage stage, @Nonnull DockerTraceabilityReport report, 
+            @Nonnull Runnable task) {
+        try {
+            stage.put(report.getContainerId(), task);
+            return true;
+        } catch (RejectedExecutionException ex) {
+            LOGGER.log(Level.WARNING, "Docker Traceability " + stage.getName() + " stage has rejected the report " 
+                    + report + ", the report has been dropped", ex);
+            return false;
+        }
+    }
+
+    /**
+     * Notifies all listeners except {@link DockerTraceabilityReportListenerImpl},
+     * which is being invoked by the persist stage.
+     * @param report Report
+     */
+    private static void fireExternal(@Nonnull DockerTraceabilityReport report) {
+        final DockerTraceabilityListenerDispatcher dispatcher = DockerTraceabilityListenerDispatcher.getInstance();
+        final long start = DockerTraceabilityMetrics.LISTENER_FANOUT.start();
+        try {
+            for (DockerTraceabilityReportListener listener : DockerTraceabilityReportListener.all()) {
+                if (listener instanceof DockerTraceabilityReportListenerImpl) {
+                    continue;
+                }
+                dispatcher.onReport(listener, report);
+            }
+        } finally {
+            DockerTraceabilityMetrics.LISTENER_FANOUT.stop(start);
+        }
+    }
+
+    /**
+     * Raw submission, which has not been parsed yet.
+     * Implementations should provide a short {@link Object#toString()} for logging.
+     */
+    public interface Submission {
+
+        /**
+         * Parses the submission.
+         * @return List of reports to be processed
+         * @throws IOException Parsing error
+         */
+        @Nonnull List<DockerTraceabilityReport> parse() throws IOException;
+    }
+
+    private final class ResolveTask implements Runnable {
+
+        private final @Nonnull DockerTraceabilityReport report;
+
+        ResolveTask(@Nonnull DockerTraceabilityReport report) {
+            this.report = report;
+        }
+
+        @Override
+        public void run() {
+            // The processing is being measured from the resolution till the end of the persist task
+            final long processStart = DockerTraceabilityMetrics.REPORT_PROCESS.start();
+            final ResolvedReport resolved;
+            try {
+                resolved = DockerTraceabilityReportListenerImpl.resolve(report);
+            } catch (Throwable ex) { // Catch everything
+                DockerTraceabilityMetrics.REPORT_PROCESS.stop(processStart);
+                LOGGER.log(Level.WARNING, "Cannot resolve the report " + report, ex);
+                pass(notifyStage, report, new NotifyTask(report));
+                return;
+            }
+
+            if (resolved != null) {
+                if (!pass(persistStage, report, new PersistTask(resolved, processStart))) {
+                    DockerTraceabilityMetrics.REPORT_PROCESS.stop(processStart);
+                }
+            } else { // The report is ignored by the storage, but other listeners may be interested
+                DockerTraceabilityMetrics.REPORT_PROCESS.stop(processStart);
+                pass(notifyStage, report, new NotifyTask(report));
+            }
+        }
+    }
+
+    private final class PersistTask implements Runnable {
+
+        private final @Nonnull ResolvedReport resolved;
+        private final long processStart;
+
+        PersistTask(@Nonnull ResolvedReport resolved, long processStart) {
+            this.resolved = resolved;
+            this.processStart = processStart;
+        }
+
+        @Override
+        public void run() {
+            try {
+                DockerTraceabilityReportListenerImpl.persist(resolved);
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, "Cannot process the report " + resolved.getReport(), ex);
+            } catch (Throwable ex) { // Catch everything
+                LOGGER.log(Level.SEVERE, "Cannot process the report " + resolved.getReport() + ". Unexpected error", ex);
+            } finally {
+                DockerTraceabilityMetrics.REPORT_PROCESS.stop(processStart);
+            }
+            pass(notifyStage, resolved.getReport(), new NotifyTask(resolved.getReport()));
+        }
+    }
+
+    private static final class NotifyTask implements Runnable {
+
+        private final @Nonnull DockerTraceabilityReport report;
+
+        NotifyTask(@Nonnull DockerTraceabilityReport report) {
+            this.report = report;
+        }
+
+        @Override
+        public void run() {
+            fireExternal(report);
+        }
+    }
+
+    /**
+     * A single pipeline stage with a bounded number of pending tasks.
+     * A regular stage has a single worker pool. A partitioned stage has a single-thread
+     * executor per worker, and tasks with the same key are always being passed
+     * to the same executor, so they are executed in the submission order.
+     */
+    private static final class Stage {
+
+        private final @Nonnull String name;
+        private final @Nonnull BoundedExecutor[] executors;
+        private final AtomicLong rejected = new AtomicLong();
+
+        Stage(@Nonnull String name, int defaultThreads, int defaultQueueDepth, boolean partitioned) {
+            this.name = name;
+            final int threads = Math.max(1,
+                    Integer.getInteger(PROPERTY_PREFIX + "." + name + ".threads", defaultThreads));
+            final int queueDepth = Math.max(1,
+                    Integer.getInteger(PROPERTY_PREFIX + "." + name + ".queueDepth", defaultQueueDepth));
+            if (partitioned) {
+                this.executors = new BoundedExecutor[threads];
+                for (int i = 0; i < threads; i++) {
+                    executors[i] = new BoundedExecutor("Docker Traceability " + name + " stage #" + i, 
+                            1, Math.max(1, queueDepth / threads));
+                }
+            } else {
+                this.executors = new BoundedExecutor[] {
+                    new BoundedExecutor("Docker Traceability " + name + " stage", threads, queueDepth)
+                };
+            }
+        }
+
+        public @Nonnull String getName() {
+            return name;
+        }
+
+        public int getQueueDepth() {
+            int depth = 0;
+            for (BoundedExecutor executor : executors) {
+                depth += executor.getQueueDepth();
+            }
+            return depth;
+        }
+
+        public boolean isFull() {
+            for (BoundedExecutor executor : executors) {
+                if (!executor.isFull()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public long getRejectedCount() {
+            return rejected.get();
+        }
+
+        private @Nonnull BoundedExecutor getExecutor(@CheckForNull String key) {
+            if (key == null || executors.length == 1) {
+                return executors[0];
+            }
+            return executors[(key.hashCode() & Integer.MAX_VALUE) % executors.length];
+        }
+
+        /**
+         * Submits the task without waiting.
+         * @param task Task to be executed
+         * @throws RejectedExecutionException The queue is full or the stage has been stopped
+         */
+        void offer(@Nonnull Runnable task) throws RejectedExecutionException {
+            final boolean accepted;
+            try {
+                accepted = getExecutor(null).tryExecute(task);
+            } catch (RejectedExecutionException ex) { // The stage has been stopped
+                rejected.incrementAndGet();
+                throw ex;
+            }
+            if (!accepted) {
+                rejected.incrementAndGet();
+                throw new RejectedExecutionException("Docker Traceability " + name + " stage queue is full");
+            }
+        }
+
+        /**
+         * Submits the task, waits for the queue space if required.
+         * It is being used to pass tasks between stages.
+         * @param key Partition key. Tasks with the same key are being executed in order.
+         *      Null keys go to the first partition
+         * @param task Task to be executed
+         * @throws RejectedExecutionException The stage has been stopped or the wait has been interrupted
+         */
+        void put(@CheckForNull String key, @Nonnull Runnable task) throws RejectedExecutionException {
+            try {
+                getExecutor(key).execute(task);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                rejected.incrementAndGet();
+                throw new RejectedExecutionException("Interrupted while waiting for the Docker Traceability " 
+                        + name + " stage queue", ex);
+            } catch (RejectedExecutionException ex) { // The stage has been stopped
+                rejected.incrementAndGet();
+                throw ex;
+            }
+        }
+
+        void shutdown() {
+            for (BoundedExecutor executor : executors) {
+                executor.shutdown(SHUTDOWN_TIMEOUT_SEC);
+            }
+        }
+    }
+}
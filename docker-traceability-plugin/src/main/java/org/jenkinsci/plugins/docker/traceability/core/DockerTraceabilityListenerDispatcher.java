@@ -0,0 +1,271 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.core;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPlugin;
+import org.jenkinsci.plugins.docker.traceability.api.DockerTraceabilityReport;
+import org.jenkinsci.plugins.docker.traceability.model.DockerTraceabilityReportListener;
+import org.jenkinsci.plugins.docker.traceability.model.DockerTraceabilityReportListener.DispatchMode;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityExecutors;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityExecutors.BoundedExecutor;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Delivers notifications to {@link DockerTraceabilityReportListener}s.
+ * {@link DispatchMode#SYNCHRONOUS} listeners are being invoked directly.
+ * Each {@link DispatchMode#ASYNCHRONOUS} listener gets a single-threaded executor
+ * with a bounded queue, hence notifications of the listener are being delivered
+ * in the submission order, and the order of reports for every container is being preserved.
+ * Runtime exceptions in listeners are being logged and ignored.
+ */
+@Restricted(NoExternalUse.class)
+public class DockerTraceabilityListenerDispatcher {
+    
+    private final static Logger LOGGER = Logger.getLogger(DockerTraceabilityPlugin.class.getName());
+    
+    /**
+     * Timeout for the termination of each listener queue on shutdown.
+     */
+    private static final long SHUTDOWN_TIMEOUT_SEC = Long.getLong(
+            DockerTraceabilityListenerDispatcher.class.getName() + ".shutdownTimeoutSec", 30);
+    
+    private static final DockerTraceabilityExecutors.LazyInstance<DockerTraceabilityListenerDispatcher> INSTANCE =
+            new DockerTraceabilityExecutors.LazyInstance<DockerTraceabilityListenerDispatcher>() {
+        @Override
+        protected DockerTraceabilityListenerDispatcher create() {
+            return new DockerTraceabilityListenerDispatcher();
+        }
+
+        @Override
+        protected void stop(DockerTraceabilityListenerDispatcher dispatcher) {
+            dispatcher.shutdown();
+        }
+    };
+    
+    private final Map<DockerTraceabilityReportListener, ListenerQueue> queues = 
+            new IdentityHashMap<DockerTraceabilityReportListener, ListenerQueue>();
+    private boolean stopped;
+
+    DockerTraceabilityListenerDispatcher() {
+    }
+    
+    /**
+     * Notifies the listener about the report.
+     * @param listener Listener
+     * @param report Report
+     */
+    public void onReport(final @Nonnull DockerTraceabilityReportListener listener, 
+            final @Nonnull DockerTraceabilityReport report) {
+        dispatch(listener, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    listener.onReport(report);
+                } catch (Throwable t) { // Prevent failures on runtime exceptions
+                    LOGGER.log(Level.SEVERE, "Runtime exception during the event processing in "+ listener, t);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Notifies the listener about the container deployment.
+     * @param listener Listener
+     * @param containerId Container ID (full 64-char representation)
+     */
+    public void onNewDeployment(final @Nonnull DockerTraceabilityReportListener listener, 
+            final @Nonnull String containerId) {
+        dispatch(listener, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    listener.onNewDeployment(containerId);
+                } catch (Throwable t) { // Prevent failures on runtime exceptions
+                    LOGGER.log(Level.SEVERE, "Runtime exception during the new deployment processing in "+ listener, t);
+                }
+            }
+        });
+    }
+    
+    private void dispatch(@Nonnull DockerTraceabilityReportListener listener, @Nonnull Runnable notification) {
+        if (listener.getDispatchMode() == DispatchMode.SYNCHRONOUS) {
+            notification.run();
+            return;
+        }
+        
+        final ListenerQueue queue = getQueue(listener);
+        if (queue == null) { // Jenkins is being stopped
+            notification.run();
+            return;
+        }
+        queue.offer(notification);
+    }
+    
+    private synchronized @CheckForNull ListenerQueue getQueue(@Nonnull DockerTraceabilityReportListener listener) {
+        if (stopped) {
+            return null;
+        }
+        ListenerQueue queue = queues.get(listener);
+        if (queue == null) {
+            queue = new ListenerQueue(listener);
+            queues.put(listener, queue);
+        }
+        return queue;
+    }
+    
+    /**
+     * Gets the number of pending notifications of asynchronous listeners.
+     * @return Map of queue depths with listener class names as keys
+     */
+    public synchronized @Nonnull Map<String, Integer> getQueueDepths() {
+        final Map<String, Integer> res = new LinkedHashMap<String, Integer>(queues.size());
+        for (ListenerQueue queue : queues.values()) {
+            res.put(queue.getName(), queue.getDepth());
+        }
+        return res;
+    }
+    
+    /**
+     * Gets the number of notifications dropped due to queue overflows.
+     * @return Map of counters with listener class names as keys
+     */
+    public synchronized @Nonnull Map<String, Long> getDroppedCounts() {
+        final Map<String, Long> res = new LinkedHashMap<String, Long>(queues.size());
+        for (ListenerQueue queue : queues.values()) {
+            res.put(queue.getName(), queue.dropped.get());
+        }
+        return res;
+    }
+    
+    /**
+     * Stops the dispatcher and waits for the delivery of pending notifications.
+     * Notifications, which are submitted after the call, are being delivered synchronously.
+     */
+    void shutdown() {
+        final List<ListenerQueue> toStop;
+        synchronized (this) {
+            stopped = true;
+            toStop = new ArrayList<ListenerQueue>(queues.values());
+        }
+        for (ListenerQueue queue : toStop) {
+            queue.shutdown();
+        }
+    }
+    
+    /**
+     * Gets the dispatcher instance.
+     * @return Dispatcher instance
+     */
+    public static @Nonnull DockerTraceabilityListenerDispatcher getInstance() {
+        return INSTANCE.get();
+    }
+    
+    /**
+     * Gets the dispatcher instance if it has been started.
+     * @return Dispatcher instance or null
+     */
+    public static @CheckForNull DockerTraceabilityListenerDispatcher getInstanceOrNull() {
+        return INSTANCE.getIfStarted();
+    }
+    
+    /**
+     * Stops the dispatcher if it has been started.
+     * Pending notifications will be delivered before the exit.
+     */
+    public static void shutdownInstance() {
+        INSTANCE.shutdown();
+    }
+    
+    /**
+     * Notification queue of a single asynchronous listener.
+     */
+    private static final class ListenerQueue {
+        
+        private final @Nonnull DockerTraceabilityReportListener listener;
+        private final @Nonnull BoundedExecutor executor;
+        private final AtomicLong dropped = new AtomicLong();
+
+        ListenerQueue(@Nonnull DockerTraceabilityReportListener listener) {
+            this.listener = listener;
+            this.executor = new BoundedExecutor("Docker Traceability listener " + getName(), 1, 
+                    Math.max(1, listener.getQueueCapacity()));
+        }
+        
+        @Nonnull String getName() {
+            return listener.getClass().getName();
+        }
+        
+        int getDepth() {
+            return executor.getQueueDepth();
+        }
+        
+        void offer(@Nonnull Runnable notification) {
+            try {
+                if (executor.tryExecute(notification)) {
+                    return;
+                }
+            } catch (RejectedExecutionException ex) { // Should not happen, the queue is being stopped after the dispatcher
+                notification.run();
+                return;
+            }
+            
+            switch (listener.getOverflowPolicy()) {
+                case BLOCK:
+                    try {
+                        executor.execute(notification);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        LOGGER.log(Level.WARNING, "Interrupted while waiting for the queue of {0}, "
+                                + "delivering the notification directly", getName());
+                        notification.run();
+                    } catch (RejectedExecutionException ex) {
+                        notification.run();
+                    }
+                    break;
+                case LOG:
+                    LOGGER.log(Level.WARNING, "Notification queue of {0} is full, the notification has been dropped. "
+                            + "Dropped notifications: {1}", new Object[] {getName(), dropped.incrementAndGet()});
+                    break;
+                default:
+                    dropped.incrementAndGet();
+            }
+        }
+        
+        void shutdown() {
+            executor.shutdown(SHUTDOWN_TIMEOUT_SEC);
+        }
+    }
+}
@@ -29,6 +29,7 @@ import hudson.model.Fingerprint;
 import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import org.jenkinsci.plugins.docker.commons.fingerprint.DockerFingerprints;
 import org.jenkinsci.plugins.docker.traceability.model.DockerTraceabilityReportListener;
@@ -38,6 +39,7 @@ import org.jenkinsci.plugins.docker.traceability.dockerjava.api.command.InspectC
 import org.jenkinsci.plugins.docker.traceability.dockerjava.api.command.InspectImageResponse;
 import org.jenkinsci.plugins.docker.traceability.fingerprint.DockerDeploymentRefFacet;
 import org.jenkinsci.plugins.docker.traceability.fingerprint.DockerInspectImageFacet;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityMetrics;
 
 /**
  * Listens for {@link DockerTraceabilityReport}s and pushes them to fingerprints.
@@ -62,14 +64,54 @@ public class DockerTraceabilityReportListenerImpl extends DockerTraceabilityRepo
         } 
     }   
     
+    /**
+     * Reports are always being stored synchronously, so the data is available
+     * once the submission has been processed.
+     * The asynchronous ingestion is provided by {@link DockerTraceabilityIngestionPipeline}.
+     * @return {@link DispatchMode#SYNCHRONOUS}
+     */
+    @Override
+    public DispatchMode getDispatchMode() {
+        return DispatchMode.SYNCHRONOUS;
+    }
+    
     private void processReport(@Nonnull DockerTraceabilityReport report) throws IOException {
+        final long start = DockerTraceabilityMetrics.REPORT_PROCESS.start();
+        try {
+            final ResolvedReport resolved = resolve(report);
+            if (resolved != null) {
+                persist(resolved);
+            }
+        } finally {
+            DockerTraceabilityMetrics.REPORT_PROCESS.stop(start);
+        }
+    }
+    
+    /**
+     * Resolves the image fingerprint for the report.
+     * This is the first half of the report processing, it may create a new 
+     * image fingerprint if it is allowed by the plugin configuration.
+     * @param report Report to be resolved
+     * @return Resolved report. Null if the report should be ignored
+     * @throws IOException Fingerprint loading error
+     */
+    static @CheckForNull ResolvedReport resolve(@Nonnull DockerTraceabilityReport report) throws IOException {
+        final long start = DockerTraceabilityMetrics.REPORT_RESOLVE.start();
+        try {
+            return doResolve(report);
+        } finally {
+            DockerTraceabilityMetrics.REPORT_RESOLVE.stop(start);
+        }
+    }
+    
+    private static @CheckForNull ResolvedReport doResolve(@Nonnull DockerTraceabilityReport report) throws IOException {
         DockerTraceabilityPlugin plugin = DockerTraceabilityPlugin.getInstance();
 
         String imageId = report.getImageId();
         if (imageId == null) { // Try to restore imageId by container id
             String containerId = report.getContainerId();
             if (containerId != null) {
-                final Fingerprint containerFP = DockerFingerprints.of(containerId);
+                final Fingerprint containerFP = DockerTraceabilityHelper.ofValidated(containerId);
                 final DockerDeploymentFacet facet = containerFP != null
                         ? DockerFingerprints.getFacet(containerFP, DockerDeploymentFacet.class)
                         : null;
@@ -80,7 +122,7 @@ public class DockerTraceabilityReportListenerImpl extends DockerTraceabilityRepo
         // Get fingerprints for the image
         Fingerprint imageFP = null;
         if (imageId != null) {
-            imageFP = DockerFingerprints.of(imageId);
+            imageFP = DockerTraceabilityHelper.ofImage(imageId);
             if (imageFP == null && plugin.getConfiguration().isCreateImageFingerprints()) {
                 LOGGER.log(Level.FINE, "Creating a new fingerprint for image {0}", report.getImageId());
                 imageFP = DockerTraceabilityHelper.makeImage(imageId, 
@@ -91,7 +133,7 @@ public class DockerTraceabilityReportListenerImpl extends DockerTraceabilityRepo
                 LOGGER.log(Level.FINE, "Cannot get or create a fingerprint for image {0}. "
                     + "Most probably, the image has not been created in Jenkins. Report will be ignored", 
                         report.getImageId());
-                return;
+                return null;
             }
         }
         
@@ -99,7 +141,27 @@ public class DockerTraceabilityReportListenerImpl extends DockerTraceabilityRepo
             LOGGER.log(Level.FINE, "Cannot retrieve the imageId for container {0}. "
                     + "Image fingerprints won't be created", report.getContainerId());
         }
-               
+        return new ResolvedReport(report, imageFP);
+    }
+    
+    /**
+     * Persists the resolved report to container and image fingerprints.
+     * @param resolved Report, which has been produced by {@link #resolve(DockerTraceabilityReport)}
+     * @throws IOException Fingerprint save error
+     */
+    static void persist(@Nonnull ResolvedReport resolved) throws IOException {
+        final long start = DockerTraceabilityMetrics.REPORT_PERSIST.start();
+        try {
+            doPersist(resolved);
+        } finally {
+            DockerTraceabilityMetrics.REPORT_PERSIST.stop(start);
+        }
+    }
+    
+    private static void doPersist(@Nonnull ResolvedReport resolved) throws IOException {
+        final DockerTraceabilityReport report = resolved.getReport();
+        final Fingerprint imageFP = resolved.getImageFingerprint();
+        
         // Update containerInfo if available
         final InspectContainerResponse containerInfo = report.getContainer();
         if (containerInfo != null) {
@@ -107,7 +169,11 @@ public class DockerTraceabilityReportListenerImpl extends DockerTraceabilityRepo
             final String containerName = hudson.Util.fixEmptyAndTrim(containerInfo.getName());
             final Fingerprint containerFP = DockerTraceabilityHelper.make(containerId, containerName);
             if (containerFP != null) {
-                DockerDeploymentFacet.addEvent(containerFP, report);
+                final DockerDeploymentFacet facet = DockerDeploymentFacet.addEvent(containerFP, report);
+                final DockerTraceabilityRootAction action = DockerTraceabilityRootAction.getInstance();
+                if (action != null) {
+                    action.containerIndex().update(containerId, facet);
+                }
                 if (imageFP != null) {
                     DockerDeploymentRefFacet.addRef(imageFP, containerInfo.getId());
                 }
@@ -127,6 +193,28 @@ public class DockerTraceabilityReportListenerImpl extends DockerTraceabilityRepo
         
         // Process other commands when it is required
     }
+    
+    /**
+     * Stores a {@link DockerTraceabilityReport} with the resolved image fingerprint.
+     */
+    static final class ResolvedReport {
+        
+        private final @Nonnull DockerTraceabilityReport report;
+        private final @CheckForNull Fingerprint imageFingerprint;
+
+        ResolvedReport(@Nonnull DockerTraceabilityReport report, @CheckForNull Fingerprint imageFingerprint) {
+            this.report = report;
+            this.imageFingerprint = imageFingerprint;
+        }
+
+        public @Nonnull DockerTraceabilityReport getReport() {
+            return report;
+        }
+
+        public @CheckForNull Fingerprint getImageFingerprint() {
+            return imageFingerprint;
+        }
+    }
 
     @Override
     public void onNewDeployment(String containerId) {
@@ -23,27 +23,121 @@
  */
 package org.jenkinsci.plugins.docker.traceability.core;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import hudson.Extension;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPlugin;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPluginConfiguration.AuditLevel;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPluginConfiguration.AuditSettings;
 import org.jenkinsci.plugins.docker.traceability.model.DockerTraceabilityReportListener;
 import org.jenkinsci.plugins.docker.traceability.api.DockerTraceabilityReport;
+import org.jenkinsci.plugins.docker.traceability.dockerjava.api.command.InspectContainerResponse;
+import org.jenkinsci.plugins.docker.traceability.dockerjava.api.model.Event;
+import org.jenkinsci.plugins.docker.traceability.dockerjava.api.model.Info;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityCodecs;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
 
 /**
- * Logs {@link DockerTraceabilityReport}s to the system log.
+ * Writes {@link DockerTraceabilityReport}s to the audit log.
+ * Each report is being converted to a compact single-line JSON record, which
+ * is passed to {@link DockerTraceabilityAuditLog}.
+ * The level of logging is defined by {@link AuditSettings#getAuditLevel()}.
  * @author Oleg Nenashev
  */
 @Extension
 @Restricted(NoExternalUse.class)
 public class DockerTraceabilityReportLogger extends DockerTraceabilityReportListener {
     
-    private static final Level LOG_LEVEL = Level.INFO;
     private static final Logger LOGGER = Logger.getLogger(DockerTraceabilityReportLogger.class.getName());
 
+    private final AtomicLong sampleCounter = new AtomicLong();
+    
     @Override
     public void onReport(DockerTraceabilityReport report) {
-        LOGGER.log(LOG_LEVEL, report.toString());
+        final AuditSettings audit = DockerTraceabilityPlugin.getInstance().getConfiguration().getAudit();
+        if (!isSampled(audit.getAuditLevel(), audit.getAuditSampleRate())) {
+            return;
+        }
+        
+        final String record;
+        try {
+            record = toRecord(report, System.currentTimeMillis());
+        } catch (IOException ex) { // Should not happen for StringWriter
+            LOGGER.log(Level.WARNING, "Cannot create the audit record for " + report.getContainerId(), ex);
+            return;
+        }
+        DockerTraceabilityAuditLog.getInstance().offer(record);
+    }
+    
+    /**
+     * Writing to the audit log does not block, so the dispatch via an 
+     * additional queue is not required.
+     * @return {@link DispatchMode#SYNCHRONOUS}
+     */
+    @Override
+    public DispatchMode getDispatchMode() {
+        return DispatchMode.SYNCHRONOUS;
+    }
+    
+    /**
+     * Checks if the next report should be logged.
+     * @param level Audit level
+     * @param sampleRate Sampling rate of {@link AuditLevel#SAMPLED} level
+     * @return true if the report should be logged
+     */
+    boolean isSampled(@Nonnull AuditLevel level, int sampleRate) {
+        switch (level) {
+            case FULL:
+                return true;
+            case SAMPLED:
+                return sampleCounter.getAndIncrement() % Math.max(1, sampleRate) == 0;
+            default:
+                return false;
+        }
+    }
+    
+    /**
+     * Converts the report to the audit record.
+     * @param report Report
+     * @param timestamp Time of the report receipt
+     * @return Single-line JSON object
+     * @throws IOException Serialization error
+     */
+    static @Nonnull String toRecord(@Nonnull DockerTraceabilityReport report, long timestamp) 
+            throws IOException {
+        final Event event = report.getEvent();
+        final Info hostInfo = report.getHostInfo();
+        final InspectContainerResponse container = report.getContainer();
+        
+        final StringWriter out = new StringWriter(256);
+        final JsonGenerator gen = DockerTraceabilityCodecs.getFactory().createGenerator(out);
+        gen.writeStartObject();
+        gen.writeNumberField("timestamp", timestamp);
+        gen.writeNumberField("time", event.getTime());
+        writeField(gen, "status", event.getStatus());
+        writeField(gen, "containerId", report.getContainerId());
+        writeField(gen, "containerName", container != null ? container.getName() : null);
+        writeField(gen, "imageId", report.getImageId());
+        writeField(gen, "imageName", report.getImageName());
+        writeField(gen, "hostId", hostInfo != null ? hostInfo.getID() : null);
+        writeField(gen, "hostName", hostInfo != null ? hostInfo.getName() : null);
+        writeField(gen, "environment", report.getEnvironment());
+        gen.writeEndObject();
+        gen.close();
+        return out.toString();
+    }
+    
+    private static void writeField(@Nonnull JsonGenerator gen, @Nonnull String name, 
+            @CheckForNull String value) throws IOException {
+        if (value != null) {
+            gen.writeStringField(name, value);
+        }
     }
 }
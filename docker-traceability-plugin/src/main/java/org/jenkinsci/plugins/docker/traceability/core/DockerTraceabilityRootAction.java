@@ -23,10 +23,14 @@
  */
 package org.jenkinsci.plugins.docker.traceability.core;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
 import hudson.BulkChange;
 import hudson.Extension;
 import hudson.XmlFile;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
 import hudson.model.Action;
 import hudson.model.Api;
 import hudson.model.Fingerprint;
@@ -35,32 +39,45 @@ import hudson.model.Saveable;
 import hudson.model.listeners.SaveableListener;
 import hudson.search.Search;
 import hudson.search.SearchIndex;
-import hudson.search.SearchIndexBuilder;
 import hudson.search.SearchableModelObject;
 import hudson.security.Permission;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
+import java.util.zip.GZIPInputStream;
 import java.util.logging.Logger;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import javax.servlet.ServletException;
 import jenkins.model.Jenkins;
+import jenkins.util.Timer;
 import static jenkins.model.Jenkins.XSTREAM;
 import org.acegisecurity.AccessDeniedException;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.jenkinsci.plugins.docker.traceability.api.DockerTraceabilityReport;
 import org.jenkinsci.plugins.docker.traceability.model.DockerTraceabilityReportListener;
 import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPlugin;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPluginConfiguration;
 import org.jenkinsci.plugins.docker.traceability.dockerjava.api.command.InspectContainerResponse;
 import org.jenkinsci.plugins.docker.traceability.dockerjava.api.command.InspectImageResponse;
 import org.jenkinsci.plugins.docker.traceability.dockerjava.api.model.Event;
@@ -71,12 +88,15 @@ import org.jenkinsci.plugins.docker.traceability.model.DockerAPIReport;
 import org.jenkinsci.plugins.docker.traceability.model.DockerEvent;
 import org.jenkinsci.plugins.docker.traceability.model.DockerEventType;
 import org.jenkinsci.plugins.docker.traceability.model.DockerInfo;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityCodecs;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityMetrics;
 import org.jenkinsci.plugins.docker.traceability.util.FingerprintsHelper;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
 import org.kohsuke.stapler.HttpResponse;
 import org.kohsuke.stapler.HttpResponses;
 import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.Stapler;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.StaplerResponse;
 import org.kohsuke.stapler.export.Exported;
@@ -92,8 +112,41 @@ import org.kohsuke.stapler.interceptor.RequirePOST;
 public class DockerTraceabilityRootAction implements RootAction, SearchableModelObject, Saveable {
 
     private final static Logger LOGGER = Logger.getLogger(DockerTraceabilityPlugin.class.getName());
+
+    /**
+     * Default page size for {@link #doRecords}.
+     */
+    private static final int RECORDS_PAGE_SIZE_DEFAULT = 100;
+
+    /**
+     * Maximum page size for {@link #doRecords}.
+     */
+    @Restricted(NoExternalUse.class)
+    public static final int RECORDS_PAGE_SIZE_MAX =
+            Integer.getInteger(DockerTraceabilityRootAction.class.getName() + ".recordsPageSizeMax", 1000);
+
+    /**
+     * Maximum size of the report submitted in the request body, after the decompression.
+     */
+    private static final long MAX_BODY_SIZE =
+            Long.getLong(DockerTraceabilityRootAction.class.getName() + ".maxBodySize", 16 * 1024 * 1024);
     
+    /**
+     * Maximum length of a single report in the {@link #doSubmitReports} body.
+     */
+    private static final int MAX_LINE_LENGTH = (int) Math.min(Integer.MAX_VALUE, MAX_BODY_SIZE);
+
+    /**
+     * Legacy storage of container IDs.
+     * The value is being migrated to {@link DockerContainerRegistry} on startup.
+     */
+    @Deprecated
     private @CheckForNull Set<String> containerIDs;
+    
+    private transient volatile @CheckForNull DockerContainerRegistry registry;
+    
+    private transient final DockerContainerIndex index = new DockerContainerIndex();
+    private transient final AtomicBoolean indexBuildScheduled = new AtomicBoolean();
 
     public DockerTraceabilityRootAction() {
         load();
@@ -105,21 +158,22 @@ public class DockerTraceabilityRootAction implements RootAction, SearchableModel
 
     /**
      * Get a list of all Docker container IDs.
-     * @return Docker container IDs.
+     * The method returns a snapshot of the registry and does not block
+     * modifications of the action.
+     * @return Docker container IDs. The set is unmodifiable
      */
-    public synchronized @Nonnull Set<String> getContainerIDs() {
-        return (containerIDs == null) ?  Collections.<String>emptySet() : new TreeSet<String>(containerIDs);
+    public @Nonnull Set<String> getContainerIDs() {
+        final DockerContainerRegistry current = registry;
+        return (current == null) ?  Collections.<String>emptySet() : current.getContainerIDs();
     }
     
     @Exported
-    public synchronized @Nonnull List<DockerAPIReport> records() {
-        if (containerIDs == null) {
-            return Collections.emptyList();
-        }
-        
+    public @Nonnull List<DockerAPIReport> records() {
+        final Set<String> containerIDs = getContainerIDs();
+        final DockerContainerIndex summaries = containerIndex();
         final List<DockerAPIReport> res = new ArrayList<DockerAPIReport>(containerIDs.size());
         for (String containerId : containerIDs) {
-            DockerAPIReport apiReport = DockerAPIReport.forContainer(containerId);
+            final DockerAPIReport apiReport = getAPIReport(summaries, containerId);
             if (apiReport != null) {
                 res.add(apiReport);
             }
@@ -127,34 +181,187 @@ public class DockerTraceabilityRootAction implements RootAction, SearchableModel
         return res;
     }
     
+    /**
+     * Gets the API report of the container.
+     * While the index is being built after the startup, containers without 
+     * summaries are being resolved from fingerprints, so the output is always complete.
+     * @param summaries Container index
+     * @param containerId Container ID
+     * @return API report or null if there is no records for the container
+     */
+    private static @CheckForNull DockerAPIReport getAPIReport(@Nonnull DockerContainerIndex summaries, 
+            @Nonnull String containerId) {
+        final DockerContainerIndex.Entry summary = summaries.get(containerId);
+        if (summary != null) {
+            return DockerAPIReport.forSummary(summary);
+        }
+        return summaries.isBuilt() ? null : DockerAPIReport.forContainer(containerId);
+    }
+    
+    /**
+     * Gets the in-memory summary of the container.
+     * The summary is being used to render container lists without loading fingerprints.
+     * @param containerId Container ID
+     * @return Summary or null if there is no records for the container
+     */
+    @Restricted(NoExternalUse.class)
+    public @CheckForNull DockerContainerIndex.Entry getContainerSummary(@Nonnull String containerId) {
+        return containerIndex().get(containerId);
+    }
+
+    /**
+     * Streams records of registered containers page-by-page.
+     * The page is being built from a snapshot of the registry, so concurrent
+     * submissions do not wait for the export. Records are being written
+     * to the response as soon as they are resolved.
+     * <p>
+     * The response has the following format:
+     * {@code {"total":N,"offset":O,"limit":L,"records":[...],"nextCursor":"ID"}}.
+     * {@code nextCursor} is {@code null} if there are no more containers.
+     * Containers, which have no records, are being skipped, but they still
+     * count in {@code total} and {@code offset}.
+     * @param req Current request
+     * @param rsp Response
+     * @param limit Maximum number of records in the page.
+     *      If the value equals to 0, the default page size will be used.
+     *      The value is limited by {@link #RECORDS_PAGE_SIZE_MAX}.
+     * @param offset Number of containers to skip in the sorted list of container IDs.
+     *      The parameter is ignored if {@code after} is specified.
+     * @param after Cursor from the previous page.
+     *      The page starts from the first container ID after the specified one.
+     * @throws IOException Processing error
+     * @throws ServletException Servlet error
+     * @since 1.3
+     */
+    public void doRecords(StaplerRequest req, StaplerResponse rsp,
+            @QueryParameter(required = false) int limit,
+            @QueryParameter(required = false) int offset,
+            @QueryParameter(required = false) String after)
+            throws IOException, ServletException {
+        checkPermission(DockerTraceabilityPlugin.READ_DETAILS);
+        if (limit < 0 || offset < 0) {
+            rsp.sendError(400, "limit and offset must be non-negative");
+            return;
+        }
+
+        final int pageSize = (limit == 0) ? RECORDS_PAGE_SIZE_DEFAULT : Math.min(limit, RECORDS_PAGE_SIZE_MAX);
+        final List<String> snapshot = new ArrayList<String>(getContainerIDs());
+        final int start = StringUtils.isNotBlank(after) ? cursorPosition(snapshot, after) : offset;
+
+        rsp.setContentType("application/json;charset=UTF-8");
+        final JsonGenerator generator = DockerTraceabilityCodecs.getFactory().createGenerator(rsp.getWriter());
+        try {
+            generator.writeStartObject();
+            generator.writeNumberField("total", snapshot.size());
+            generator.writeNumberField("offset", start);
+            generator.writeNumberField("limit", pageSize);
+            generator.writeArrayFieldStart("records");
+            final DockerContainerIndex summaries = containerIndex();
+            int position = start;
+            int written = 0;
+            while (written < pageSize && position < snapshot.size()) {
+                final DockerAPIReport apiReport = getAPIReport(summaries, snapshot.get(position++));
+                if (apiReport != null) {
+                    generator.writeObject(apiReport);
+                    written++;
+                }
+            }
+            generator.writeEndArray();
+            if (position < snapshot.size()) {
+                generator.writeStringField("nextCursor", snapshot.get(position - 1));
+            } else {
+                generator.writeNullField("nextCursor");
+            }
+            generator.writeEndObject();
+        } finally {
+            generator.close();
+        }
+    }
+
+    /**
+     * Gets the position of the first container ID after the cursor.
+     * @param sortedIDs Sorted container IDs
+     * @param cursor Container ID, which does not need to be in the list
+     * @return Index of the first ID, which is greater than the cursor
+     */
+    private static int cursorPosition(@Nonnull List<String> sortedIDs, @Nonnull String cursor) {
+        final int pos = Collections.binarySearch(sortedIDs, cursor);
+        return (pos >= 0) ? pos + 1 : -pos - 1;
+    }
+
     /**
      * Adds new container ID to the registry.
      * If the value already exists, it will be ignored.
      * @param containerID Container ID.
      * @throws IOException Cannot save the list to the disk
      */
-    public synchronized @Nonnull void addContainerID(@Nonnull String containerID) 
+    public @Nonnull void addContainerID(@Nonnull String containerID) 
             throws IOException {
-        if (containerIDs == null) {
-            containerIDs = new HashSet<String>();
-        }
-        if (!containerIDs.contains(containerID)) {
-            containerIDs.add(containerID);
-            save();
-        }
+        getRegistryOrFail().add(containerID);
+        index.register(containerID);
     }
     
     /**
      * Removes the container ID from the registry.
+     * The deployment journal of the container will be deleted as well.
      * @param containerID Container ID.
      * @throws IOException Cannot save the list to the disk
      */
-    public synchronized @Nonnull void removeContainerID(@Nonnull String containerID) 
+    public @Nonnull void removeContainerID(@Nonnull String containerID) 
             throws IOException {
-        if (containerIDs != null && containerIDs.contains(containerID)) {
-            containerIDs.remove(containerID);
-            save();
+        getRegistryOrFail().remove(containerID);
+        index.remove(containerID);
+        final DockerDeploymentFacet facet = DockerDeploymentFacet.getDeploymentFacet(containerID);
+        if (facet != null) { // The history is not required anymore
+            facet.deleteJournal();
+        }
+        DockerFingerprintCache.CONTAINERS.invalidate(containerID);
+    }
+    
+    /**
+     * Gets secondary indexes of registered containers.
+     * If the index has not been built yet, the build will be scheduled in background, 
+     * and the partial index will be returned.
+     * @return Container index
+     */
+    /*package*/ @Nonnull DockerContainerIndex containerIndex() {
+        if (!index.isBuilt() && indexBuildScheduled.compareAndSet(false, true)) {
+            Timer.get().submit(new Runnable() {
+                @Override
+                public void run() {
+                    buildContainerIndex();
+                }
+            });
+        }
+        return index;
+    }
+    
+    /**
+     * Builds the index of registered containers in the current thread.
+     * The method does nothing if the index has been already built or if it is being built.
+     */
+    /*package*/ void buildContainerIndex() {
+        try {
+            index.build(getContainerIDs());
+        } finally {
+            indexBuildScheduled.set(index.isBuilt());
+        }
+    }
+    
+    /**
+     * Gets the persistent registry of container IDs.
+     * @return Registry or null if Jenkins has not been initialized
+     */
+    /*package*/ @CheckForNull DockerContainerRegistry getRegistry() {
+        return registry;
+    }
+    
+    private @Nonnull DockerContainerRegistry getRegistryOrFail() throws IOException {
+        final DockerContainerRegistry current = registry;
+        if (current == null) {
+            throw new IOException("The container registry has not been loaded");
         }
+        return current;
     }
 
     @Restricted(NoExternalUse.class)
@@ -176,11 +383,8 @@ public class DockerTraceabilityRootAction implements RootAction, SearchableModel
      * Gets a last container record for every registered container.
      * @return List of container records for all entries.
      */
-    public synchronized @Nonnull List<DockerContainerRecord> getContainerRecords() {
-        if (containerIDs == null) {
-            return Collections.emptyList();
-        }
-        
+    public @Nonnull List<DockerContainerRecord> getContainerRecords() {
+        final Set<String> containerIDs = getContainerIDs();
         final List<DockerContainerRecord> res = new ArrayList<DockerContainerRecord>(containerIDs.size());
         for (String containerId : containerIDs) {
             DockerContainerRecord rec = DockerTraceabilityHelper.getLastContainerRecord(containerId);
@@ -210,7 +414,11 @@ public class DockerTraceabilityRootAction implements RootAction, SearchableModel
        
     /**
      * Submits a new event through Jenkins API.
-     * @param inspectData JSON output of docker inspect container (array of container infos)
+     * Instead of the {@code inspectData} parameter, the data may be submitted in 
+     * the request body with the {@code application/json} content type.
+     * Such body may be compressed ({@code Content-Encoding: gzip}).
+     * @param inspectData JSON output of docker inspect container (array of container infos).
+     *      Optional if the data is submitted in the request body.
      * @param hostName Optional name of the host, which submitted the event
      *      &quot;unknown&quot; by default
      * @param hostId Optional host ID. 
@@ -222,14 +430,14 @@ public class DockerTraceabilityRootAction implements RootAction, SearchableModel
      *      Default value - current time
      * @param environment Optional field, which describes the environment
      * @param imageName Optional field, which provides the name of the image
-     * @return {@link HttpResponse}
+     * @return {@link HttpResponse}. 202 (Accepted) in the asynchronous ingestion mode
      * @throws IOException Request processing error
      * @throws ServletException Servlet error
      */
     //TODO: parameters check
     @RequirePOST
     public HttpResponse doSubmitContainerStatus(
-            @QueryParameter(required = true) String inspectData,
+            @QueryParameter(required = false) @CheckForNull String inspectData,
             @QueryParameter(required = false) String hostId,
             @QueryParameter(required = false) String hostName,
             @QueryParameter(required = false) String status,
@@ -238,46 +446,251 @@ public class DockerTraceabilityRootAction implements RootAction, SearchableModel
             @QueryParameter(required = false) @CheckForNull String imageName
     ) throws IOException, ServletException { 
         checkPermission(DockerTraceabilityPlugin.SUBMIT);
-        final ObjectMapper mapper = new ObjectMapper();
-        final InspectContainerResponse[] inspectContainerResponses = mapper.readValue(inspectData, InspectContainerResponse[].class);
-        final long eventTime = time != 0 ? time : System.currentTimeMillis()/1000;
-        final String effectiveHostName = StringUtils.isNotBlank(hostName) ? hostName : "unknown";
-        final String effectiveHostId = StringUtils.isNotBlank(hostId) ? hostId : "unknown";
-        final String effectiveStatus = StringUtils.isNotBlank(status) 
-                ? status.toUpperCase(Locale.ENGLISH) : DockerEventType.NONE.toString();
-        final String effectiveImageName = hudson.Util.fixEmpty(imageName);
-        final String effectiveEnvironment = hudson.Util.fixEmpty(environment);
-        
-        
-        for (InspectContainerResponse inspectContainerResponse : inspectContainerResponses) {
-            final Event event = new DockerEvent(effectiveStatus, inspectContainerResponse.getImageId(), 
-                    effectiveHostId, eventTime).toDockerEvent();
-            final Info hostInfo = new DockerInfo(effectiveHostId, effectiveHostName).toInfo();
-
-            DockerTraceabilityReport res = new DockerTraceabilityReport(event, hostInfo,
-                    inspectContainerResponse, 
-                    inspectContainerResponse.getImageId(), effectiveImageName,
-                    /* InspectImageResponse */ null, new LinkedList<String>(), effectiveEnvironment);
-            DockerTraceabilityReportListener.fire(res);
+        final boolean async = DockerTraceabilityPlugin.getInstance().getConfiguration().getIngestion().isAsyncIngestion();
+        if (inspectData != null) {
+            return submit(new ContainerStatusSubmission(inspectData, hostId, hostName, status, time, 
+                    environment, imageName), async);
+        }
+        
+        // Read the data from the request body
+        final InputStream body = openJSONBody(Stapler.getCurrentRequest());
+        if (body == null) {
+            return HttpResponses.error(400, "The inspectData parameter or the application/json request body is required");
+        }
+        try {
+            final InputStream inspectBody = prepareBody(body, async);
+            if (inspectBody == null) {
+                return rejected();
+            }
+            return submit(new ContainerStatusSubmission(inspectBody, hostId, hostName, status, time, 
+                    environment, imageName), async);
+        } catch (BodyTooLargeException ex) {
+            return HttpResponses.error(413, ex.getMessage());
+        } finally {
+            body.close();
         }
-        return HttpResponses.ok();
     } 
        
     /**
      * Submits a new {@link DockerTraceabilityReport} via API.
-     * @param json String representation of {@link DockerTraceabilityReport}
-     * @return {@link HttpResponse}
+     * Instead of the {@code json} parameter, the report may be submitted in 
+     * the request body with the {@code application/json} content type.
+     * Such body may be compressed ({@code Content-Encoding: gzip}).
+     * @param json String representation of {@link DockerTraceabilityReport}.
+     *      Optional if the report is submitted in the request body.
+     * @return {@link HttpResponse}. 202 (Accepted) in the asynchronous ingestion mode
      * @throws ServletException Servlet error
      * @throws IOException Processing error
      */
     @RequirePOST
-    public HttpResponse doSubmitReport(@QueryParameter(required = true) String json) 
+    public HttpResponse doSubmitReport(@QueryParameter(required = false) @CheckForNull String json) 
             throws IOException, ServletException { 
         checkPermission(DockerTraceabilityPlugin.SUBMIT);
-        ObjectMapper mapper = new ObjectMapper();
-        final DockerTraceabilityReport report = mapper.readValue(json, DockerTraceabilityReport.class);
-        DockerTraceabilityReportListener.fire(report);
-        return HttpResponses.ok();
+        final boolean async = DockerTraceabilityPlugin.getInstance().getConfiguration().getIngestion().isAsyncIngestion();
+        if (json != null) {
+            return submit(new ReportSubmission(json), async);
+        }
+        
+        // Read the report from the request body
+        final InputStream body = openJSONBody(Stapler.getCurrentRequest());
+        if (body == null) {
+            return HttpResponses.error(400, "The json parameter or the application/json request body is required");
+        }
+        try {
+            final InputStream reportBody = prepareBody(body, async);
+            if (reportBody == null) {
+                return rejected();
+            }
+            return submit(new ReportSubmission(reportBody), async);
+        } catch (BodyTooLargeException ex) {
+            return HttpResponses.error(413, ex.getMessage());
+        } finally {
+            body.close();
+        }
+    }
+    
+    /**
+     * Submits multiple {@link DockerTraceabilityReport}s via API.
+     * The request body should contain newline-delimited JSON, one report per line.
+     * Lines are being read and processed one-by-one, so the whole body is never 
+     * stored in the memory. The body may be compressed ({@code Content-Encoding: gzip}).
+     * The response contains a JSON array with a result for every non-blank line.
+     * Malformed or too long lines are being reported as errors, other lines 
+     * of the batch are processed anyway.
+     * @param req Stapler request
+     * @param rsp Stapler response
+     * @throws IOException Processing error
+     * @throws ServletException Servlet error
+     */
+    @RequirePOST
+    public void doSubmitReports(StaplerRequest req, StaplerResponse rsp) 
+            throws IOException, ServletException {
+        checkPermission(DockerTraceabilityPlugin.SUBMIT);
+        final boolean async = DockerTraceabilityPlugin.getInstance().getConfiguration().getIngestion().isAsyncIngestion();
+        final ObjectReader reportReader = DockerTraceabilityCodecs.reportReader();
+        final LineReader lines = new LineReader(new InputStreamReader(openBody(req), "UTF-8"), MAX_LINE_LENGTH);
+        
+        rsp.setContentType("application/json;charset=UTF-8");
+        final JsonGenerator generator = DockerTraceabilityCodecs.getFactory().createGenerator(rsp.getWriter());
+        try {
+            generator.writeStartArray();
+            while (lines.next()) {
+                final int lineNumber = lines.getLineNumber();
+                if (lines.isTruncated()) {
+                    writeSubmissionError(generator, lineNumber, 
+                            "The report exceeds the limit of " + MAX_LINE_LENGTH + " characters");
+                    continue;
+                }
+                final String line = lines.getLine().trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                
+                final DockerTraceabilityReport report;
+                final long start = DockerTraceabilityMetrics.SUBMIT_PARSE.start();
+                try {
+                    report = reportReader.readValue(line);
+                } catch (JsonProcessingException ex) {
+                    writeSubmissionError(generator, lineNumber, ex.getOriginalMessage());
+                    continue;
+                } finally {
+                    DockerTraceabilityMetrics.SUBMIT_PARSE.stop(start);
+                }
+                
+                final SubmissionResult result;
+                try {
+                    result = process(new ParsedSubmission(report), async);
+                } catch (IOException ex) {
+                    LOGGER.log(Level.WARNING, "Cannot process the report " + report, ex);
+                    writeSubmissionError(generator, lineNumber, ex.getMessage());
+                    continue;
+                }
+                generator.writeStartObject();
+                generator.writeNumberField("line", lineNumber);
+                generator.writeStringField("containerId", report.getContainerId());
+                generator.writeStringField("status", result.name());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        } finally {
+            generator.close();
+            lines.close();
+        }
+    }
+    
+    private static void writeSubmissionError(@Nonnull JsonGenerator generator, int lineNumber, 
+            @CheckForNull String message) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("line", lineNumber);
+        generator.writeStringField("status", SubmissionResult.error.name());
+        generator.writeStringField("message", message);
+        generator.writeEndObject();
+    }
+    
+    /**
+     * Opens the request body if it contains JSON data.
+     * Reading more than {@link #MAX_BODY_SIZE} bytes from the stream causes {@link BodyTooLargeException}.
+     * @param req Current request
+     * @return Body stream, which should be closed by the caller. 
+     *      Null if the request has no {@code application/json} body.
+     * @throws IOException Cannot read the body
+     */
+    private static @CheckForNull InputStream openJSONBody(@CheckForNull StaplerRequest req) 
+            throws IOException {
+        if (req == null || !StringUtils.startsWithIgnoreCase(req.getContentType(), "application/json")) {
+            return null;
+        }
+        return new SizeLimitedInputStream(openBody(req), MAX_BODY_SIZE);
+    }
+    
+    /**
+     * Prepares the request body for the submission.
+     * In the synchronous mode the body is being parsed directly from the request stream.
+     * In the asynchronous mode it is being read into the memory, because the parsing 
+     * happens after the request completion. The body is not read if the pipeline is full.
+     * @param body Request body
+     * @param async Asynchronous ingestion mode
+     * @return Body to be parsed. Null if the pipeline cannot accept the submission
+     * @throws IOException Cannot read the body
+     */
+    private static @CheckForNull InputStream prepareBody(@Nonnull InputStream body, boolean async) 
+            throws IOException {
+        if (!async) {
+            return body;
+        }
+        if (DockerTraceabilityIngestionPipeline.getInstance().isFull()) {
+            DockerTraceabilityMetrics.markRejectedSubmission();
+            return null;
+        }
+        return new ByteArrayInputStream(IOUtils.toByteArray(body));
+    }
+    
+    /**
+     * Opens the request body.
+     * Decompresses the data if the body has been compressed by gzip.
+     * @param req Current request
+     * @return Body stream, which should be closed by the caller
+     * @throws IOException Cannot read the body
+     */
+    private static @Nonnull InputStream openBody(@Nonnull StaplerRequest req) throws IOException {
+        final InputStream body = req.getInputStream();
+        final String encoding = req.getHeader("Content-Encoding");
+        if ("gzip".equalsIgnoreCase(encoding) || "x-gzip".equalsIgnoreCase(encoding)) {
+            return new GZIPInputStream(body);
+        }
+        return body;
+    }
+    
+    /**
+     * Processes the submission.
+     * If {@link DockerTraceabilityPluginConfiguration.IngestionSettings#isAsyncIngestion()} is enabled,
+     * the submission will be passed to {@link DockerTraceabilityIngestionPipeline}.
+     * Otherwise, the reports will be processed within the request.
+     * @param submission Submission to be processed
+     * @param async Asynchronous ingestion mode
+     * @return {@link HttpResponse}. 202 if the submission has been accepted by
+     *      the asynchronous pipeline, 503 if the pipeline is full
+     * @throws IOException Processing error
+     */
+    private static @Nonnull HttpResponse submit(@Nonnull DockerTraceabilityIngestionPipeline.Submission submission,
+            boolean async) throws IOException {
+        switch (process(submission, async)) {
+            case accepted:
+                return HttpResponses.status(202);
+            case rejected:
+                return rejected();
+            default:
+                return HttpResponses.ok();
+        }
+    }
+    
+    private static @Nonnull HttpResponse rejected() {
+        return HttpResponses.error(503, "Docker Traceability ingestion queue is full, retry later");
+    }
+    
+    private static @Nonnull SubmissionResult process(@Nonnull DockerTraceabilityIngestionPipeline.Submission submission,
+            boolean async) throws IOException {
+        if (async) {
+            try {
+                DockerTraceabilityIngestionPipeline.getInstance().submit(submission);
+            } catch (RejectedExecutionException ex) {
+                DockerTraceabilityMetrics.markRejectedSubmission();
+                return SubmissionResult.rejected;
+            }
+            return SubmissionResult.accepted;
+        }
+        
+        final List<DockerTraceabilityReport> reports;
+        final long start = DockerTraceabilityMetrics.SUBMIT_PARSE.start();
+        try {
+            reports = submission.parse();
+        } finally {
+            DockerTraceabilityMetrics.SUBMIT_PARSE.stop(start);
+        }
+        for (DockerTraceabilityReport report : reports) {
+            DockerTraceabilityReportListener.fire(report);
+        }
+        return SubmissionResult.processed;
     }
     
     /**
@@ -339,7 +752,6 @@ public class DockerTraceabilityRootAction implements RootAction, SearchableModel
         rsp.sendRedirect2(j.getRootUrl()+"fingerprint/"+fingerPrintHash);
     }
     
-    //TODO: filtering by container ID, imageID, containerName, imageName, hostName, hostID, environment
     /**
      * Retrieves the latest container status via API.
      * The output will be retrieved in JSON. Supports filers. Missing 
@@ -370,10 +782,142 @@ public class DockerTraceabilityRootAction implements RootAction, SearchableModel
         return toJSONResponse(out);
     }  
     
-    //TODO: More filtering
+    /**
+     * Queries containers by their latest known properties.
+     * The request is being processed by in-memory indexes, fingerprints of
+     * non-matching containers are not being loaded.
+     * All parameters are optional. If several parameters are specified,
+     * the response contains containers matching all of them.
+     * @param containerName Container name
+     * @param imageId Full 64-char image ID
+     * @param imageName Image name
+     * @param hostId Docker host ID
+     * @param hostName Docker host name
+     * @param environment Environment name
+     * @param status Last status of the container, e.g. {@code start} or {@code die}
+     * @return JSON array of container summaries sorted by container IDs
+     * @throws IOException Processing error
+     * @throws ServletException Servlet error
+     */
+    public HttpResponse doQueryContainers(
+            @QueryParameter(required = false) String containerName,
+            @QueryParameter(required = false) String imageId,
+            @QueryParameter(required = false) String imageName,
+            @QueryParameter(required = false) String hostId,
+            @QueryParameter(required = false) String hostName,
+            @QueryParameter(required = false) String environment,
+            @QueryParameter(required = false) String status) 
+            throws IOException, ServletException {
+        checkPermission(DockerTraceabilityPlugin.READ_DETAILS);
+        final HttpResponse notReady = checkIndexBuilt();
+        if (notReady != null) {
+            return notReady;
+        }
+        
+        final Map<DockerContainerIndex.Field, String> predicates = 
+                new EnumMap<DockerContainerIndex.Field, String>(DockerContainerIndex.Field.class);
+        predicates.put(DockerContainerIndex.Field.containerName, containerName);
+        predicates.put(DockerContainerIndex.Field.imageId, imageId);
+        predicates.put(DockerContainerIndex.Field.imageName, imageName);
+        predicates.put(DockerContainerIndex.Field.hostId, hostId);
+        predicates.put(DockerContainerIndex.Field.hostName, hostName);
+        predicates.put(DockerContainerIndex.Field.environment, environment);
+        predicates.put(DockerContainerIndex.Field.status, status);
+        return toJSONResponse(containerIndex().query(predicates));
+    }
+    
+    /**
+     * Gets a page of the registered containers list.
+     * The list is being built from in-memory summaries, and only the requested
+     * page is being sent to the client.
+     * @param offset Number of rows to be skipped
+     * @param limit Maximum number of rows. 
+     *      If the value equals to 0, the default page size will be used.
+     *      The value is limited by {@link #RECORDS_PAGE_SIZE_MAX}.
+     * @param sort Sort column, see {@link DockerContainerListQuery.Column}. Default value - {@code containerId}
+     * @param order Sort order, {@code asc} (default) or {@code desc}
+     * @param filter Optional text, which should be a part of the container ID, name, image, host or environment
+     * @param status Optional last status of containers
+     * @return JSON object with the page rows and counters
+     * @throws IOException Processing error
+     * @throws ServletException Servlet error
+     * @since 1.3
+     */
+    public HttpResponse doContainerList(
+            @QueryParameter(required = false) int offset,
+            @QueryParameter(required = false) int limit,
+            @QueryParameter(required = false) String sort,
+            @QueryParameter(required = false) String order,
+            @QueryParameter(required = false) String filter,
+            @QueryParameter(required = false) String status) 
+            throws IOException, ServletException {
+        checkPermission(getRequiredPermission());
+        if (limit < 0 || offset < 0) {
+            return HttpResponses.error(400, "limit and offset must be non-negative");
+        }
+        final HttpResponse notReady = checkIndexBuilt();
+        if (notReady != null) {
+            return notReady;
+        }
+        
+        final int pageSize = (limit == 0) ? RECORDS_PAGE_SIZE_DEFAULT : Math.min(limit, RECORDS_PAGE_SIZE_MAX);
+        final DockerContainerListQuery query = new DockerContainerListQuery(filter, status, 
+                DockerContainerListQuery.Column.fromString(sort), "desc".equalsIgnoreCase(order), 
+                offset, pageSize);
+        return toJSONResponse(query.run(getContainerIDs(), containerIndex()));
+    }
+    
+    /**
+     * Checks that the container index can serve queries.
+     * Results of queries over a partial index would silently miss containers, 
+     * hence such queries are being rejected until the index is built.
+     * @return 503 response if the index is being built, null otherwise
+     */
+    private @CheckForNull HttpResponse checkIndexBuilt() {
+        if (containerIndex().isBuilt()) {
+            return null;
+        }
+        return HttpResponses.error(503, "Docker Traceability container index is being built, retry later");
+    }
+    
+    /**
+     * Gets runtime metrics of the plugin via API.
+     * The output contains latency percentiles of the ingestion, storage and 
+     * query stages, the report rate, queue depths and drop counters.
+     * @param req Current request
+     * @param rsp Response
+     * @throws IOException Processing error
+     * @throws ServletException Servlet error
+     * @see DockerTraceabilityStatistics
+     * @since 1.3
+     */
+    public void doMetrics(StaplerRequest req, StaplerResponse rsp) 
+            throws IOException, ServletException {
+        checkPermission(DockerTraceabilityPlugin.READ_DETAILS);
+        rsp.setContentType("application/json;charset=UTF-8");
+        final JsonGenerator generator = DockerTraceabilityCodecs.getFactory().createGenerator(rsp.getWriter());
+        try {
+            DockerTraceabilityStatistics.getInstance().writeJSON(generator);
+        } finally {
+            generator.close();
+        }
+    }
+    
+    /**
+     * Gets last statuses of registered containers.
+     * @return Sorted list of statuses
+     */
+    @Restricted(NoExternalUse.class)
+    public @Nonnull List<String> getContainerStatuses() {
+        return containerIndex().getValues(DockerContainerIndex.Field.status);
+    }
+    
+    //TODO: filtering of records by status and host. Filtering by other fields is provided by doQueryContainers
     /**
      * Queries container statuses via API.
      * The output will be retrieved in JSON. Supports filters.
+     * Items are being written to the response while the history is walked,
+     * so the memory consumption does not depend on the history length.
      * @param id ID of the container, for which the info should be retrieved.
      *    Short container IDs are not supported.
      * @param mode {@link QueryMode}. Default value - {@link QueryMode#inspectContainer}
@@ -381,68 +925,155 @@ public class DockerTraceabilityRootAction implements RootAction, SearchableModel
      *      If the value equals to 0, the filter will be ignored (default in {@link QueryParameter}).
      * @param until End time. 
      *      If the value equals to 0, the filter will be ignored (default in {@link QueryParameter}).
+     * @param offset Number of items to be skipped
+     * @param limit Maximum number of items. If the value equals to 0, all items will be returned
+     * @param order Order of items, {@code asc} (default) or {@code desc}
+     * @param latest Optional number of the most recent items, which should be taken. 
+     *      {@code offset} and {@code limit} are being applied to the selected items.
+     *      If the value equals to 0, the filter will be ignored.
      * @throws IOException Processing error
      * @throws ServletException Servlet error
      * @return Response containing the output JSON. may be an error if something breaks.
      */
     public HttpResponse doQueryContainer( 
-            @QueryParameter(required = true) String id,
+            @QueryParameter(required = true) final String id,
             @QueryParameter(required = false) String mode,
             @QueryParameter(required = false) long since,
-            @QueryParameter(required = false) long until) 
+            @QueryParameter(required = false) long until,
+            @QueryParameter(required = false) final int offset,
+            @QueryParameter(required = false) final int limit,
+            @QueryParameter(required = false) String order,
+            @QueryParameter(required = false) final int latest) 
             throws IOException, ServletException {     
         checkPermission(DockerTraceabilityPlugin.READ_DETAILS);
+        if (limit < 0 || offset < 0 || latest < 0) {
+            return HttpResponses.error(400, "limit, offset and latest must be non-negative");
+        }
         
         final QueryMode queryMode = QueryMode.fromString(mode);
         final long maxTime = (until != 0) ? until : Long.MAX_VALUE;
         final long minTime = (since != 0) ? since : Long.MIN_VALUE;
-        
-        DockerDeploymentFacet facet = DockerDeploymentFacet.getDeploymentFacet(id);
-        if (facet == null) {
-            return HttpResponses.error(404, "No info available for the containerId=" + id);
+        final boolean descending = "desc".equalsIgnoreCase(order);
+        return new HttpResponse() {
+            @Override
+            public void generateResponse(StaplerRequest req, StaplerResponse rsp, Object node) 
+                    throws IOException, ServletException {
+                final long start = DockerTraceabilityMetrics.QUERY_CONTAINER.start();
+                try {
+                    final DockerDeploymentFacet facet = DockerDeploymentFacet.getDeploymentFacet(id);
+                    if (facet == null) {
+                        HttpResponses.error(404, "No info available for the containerId=" + id)
+                                .generateResponse(req, rsp, node);
+                        return;
+                    }
+                    
+                    final Iterator<DockerContainerRecord> records = (latest == 0) 
+                            ? new RecordWalker(facet, minTime, maxTime, descending)
+                            : selectLatest(facet, queryMode, minTime, maxTime, latest, descending).iterator();
+                    rsp.setContentType("application/json;charset=UTF-8");
+                    writeQueryItems(rsp, records, queryMode, offset, limit);
+                } finally {
+                    DockerTraceabilityMetrics.QUERY_CONTAINER.stop(start);
+                }
+            }
+        };
+    }
+    
+    /**
+     * Selects records of the most recent items.
+     * Only records are being stored, items will be retrieved on-demand.
+     * @return Records in the requested order
+     */
+    private static @Nonnull List<DockerContainerRecord> selectLatest(@Nonnull DockerDeploymentFacet facet, 
+            @Nonnull QueryMode queryMode, long minTime, long maxTime, int latest, boolean descending) {
+        final List<DockerContainerRecord> res = new ArrayList<DockerContainerRecord>(Math.min(latest, 1024));
+        final Iterator<DockerContainerRecord> records = new RecordWalker(facet, minTime, maxTime, true);
+        while (res.size() < latest && records.hasNext()) {
+            final DockerContainerRecord record = records.next();
+            if (queryMode.select(record) != null) {
+                res.add(record);
+            }
+        }
+        if (!descending) {
+            Collections.reverse(res);
+        }
+        return res;
+    }
+    
+    private static void writeQueryItems(@Nonnull StaplerResponse rsp, @Nonnull Iterator<DockerContainerRecord> records, 
+            @Nonnull QueryMode queryMode, int offset, int limit) throws IOException {
+        final JsonGenerator generator = DockerTraceabilityCodecs.getFactory().createGenerator(rsp.getWriter());
+        try {
+            generator.writeStartArray();
+            int skipped = 0;
+            int written = 0;
+            while ((limit == 0 || written < limit) && records.hasNext()) {
+                final DockerContainerRecord record = records.next();
+                final Object item = queryMode.select(record);
+                if (item == null) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                    continue;
+                }
+                generator.writeObject(item);
+                written++;
+            }
+            generator.writeEndArray();
+        } finally {
+            generator.close();
         }
+    }
+    
+    /**
+     * Walks container records chunk-by-chunk.
+     * The facet is not being locked while records are processed, 
+     * so slow clients do not block the ingestion.
+     */
+    private static final class RecordWalker implements Iterator<DockerContainerRecord> {
+        
+        private static final int CHUNK_SIZE = 256;
         
-        final SortedSet<DockerContainerRecord> deploymentRecords = facet.getDeploymentRecords();
-        List<Object> result = new ArrayList<Object>(deploymentRecords.size());
-        for (DockerContainerRecord record : deploymentRecords) {
-            // time filters
-            final long eventTime = record.getReport().getEvent().getTime();
-            if (eventTime < minTime || eventTime > maxTime) {
-                continue;
+        private final @Nonnull DockerDeploymentFacet facet;
+        private final long since;
+        private final long until;
+        private final boolean descending;
+        private @Nonnull Iterator<DockerContainerRecord> chunk = Collections.<DockerContainerRecord>emptyList().iterator();
+        private @CheckForNull DockerContainerRecord last;
+        private boolean exhausted;
+
+        RecordWalker(@Nonnull DockerDeploymentFacet facet, long since, long until, boolean descending) {
+            this.facet = facet;
+            this.since = since;
+            this.until = until;
+            this.descending = descending;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!chunk.hasNext() && !exhausted) {
+                final List<DockerContainerRecord> next = facet.getDeploymentRecords(since, until, last, descending, CHUNK_SIZE);
+                exhausted = next.size() < CHUNK_SIZE;
+                chunk = next.iterator();
             }
-            
-            // Report data
-            final DockerTraceabilityReport report = record.getReport();
-            switch (queryMode) {
-                case all:
-                    result.add(report);
-                    break;
-                case events:
-                    result.add(report.getEvent());
-                    break;
-                case inspectContainer:
-                    InspectContainerResponse containerResponse = report.getContainer();
-                    if (containerResponse != null) {
-                        result.add(containerResponse);
-                    }
-                    break;
-                case inspectImage:
-                    InspectImageResponse imageResponse = report.getImage();
-                    if (imageResponse != null) {
-                        result.add(imageResponse);
-                    }
-                    break;   
-                case hostInfo:
-                    result.add(report.getHostInfo());
-                    break;    
-                default:
-                    throw new IllegalStateException("Unsupported query mode: "+queryMode);
+            return chunk.hasNext();
+        }
+
+        @Override
+        public DockerContainerRecord next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
             }
+            last = chunk.next();
+            return last;
         }
-        
-        // Return raw JSON in the response
-        return toJSONResponse(result);
-    }  
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Records cannot be removed");
+        }
+    }
     
     /**
      * Retrieves the latest raw status via API.
@@ -514,22 +1145,7 @@ public class DockerTraceabilityRootAction implements RootAction, SearchableModel
 
     @Override
     public SearchIndex getSearchIndex() {
-        return makeSearchIndex().make();
-    }
-    
-    private synchronized SearchIndexBuilder makeSearchIndex() {
-        final SearchIndexBuilder searchIndexBuilder = new SearchIndexBuilder();
-        Jenkins j = Jenkins.getInstance();
-        if (j == null || containerIDs == null) {
-            return searchIndexBuilder; // cannot construct URLs 
-        }
-        
-        // Add container IDs and hashes for each registered container id.
-        for (String containerID : containerIDs) {
-            String containerHash = DockerTraceabilityHelper.getContainerHash(containerID);
-            searchIndexBuilder.add("container?id="+containerID, containerID, containerHash);
-        }
-        return searchIndexBuilder;
+        return containerIndex().getSearchIndex();
     }
 
     private @Nonnull XmlFile getConfigFile() throws IOException {
@@ -550,6 +1166,8 @@ public class DockerTraceabilityRootAction implements RootAction, SearchableModel
     
     /**
      * Loads the other data from disk if it's available.
+     * Container IDs from the legacy configuration file will be migrated
+     * to {@link DockerContainerRegistry}.
      */
     private synchronized void load() {
         if (containerIDs != null) {
@@ -564,6 +1182,23 @@ public class DockerTraceabilityRootAction implements RootAction, SearchableModel
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Failed to load the configuration from config path = "+config,e);
         }
+        
+        final Jenkins j = Jenkins.getInstance();
+        if (j == null) {
+            return;
+        }
+        registry = new DockerContainerRegistry(new File(j.getRootDir(), "docker-traceability"));
+        
+        if (containerIDs != null && !containerIDs.isEmpty()) {
+            try {
+                registry.addAll(containerIDs);
+                registry.compact();
+                containerIDs = null;
+                save();
+            } catch (IOException ex) {
+                LOGGER.log(Level.SEVERE, "Failed to migrate container IDs to the registry", ex);
+            }
+        }
     }
     
     /**
@@ -575,13 +1210,175 @@ public class DockerTraceabilityRootAction implements RootAction, SearchableModel
         return new HttpResponse() {
             @Override
             public void generateResponse(StaplerRequest req, StaplerResponse rsp, Object node) throws IOException, ServletException {
-                ObjectMapper mapper = new ObjectMapper(); 
                 rsp.setContentType("application/json;charset=UTF-8");
-                mapper.writeValue(rsp.getWriter(), item);
+                DockerTraceabilityCodecs.writer().writeValue(rsp.getWriter(), item);
             }
         };
     }
     
+    /**
+     * Results of the report submission, which are being returned by the bulk API.
+     */
+    private enum SubmissionResult {
+        /**
+         * Report has been processed within the request.
+         */
+        processed,
+        /**
+         * Report has been accepted by {@link DockerTraceabilityIngestionPipeline}.
+         */
+        accepted,
+        /**
+         * {@link DockerTraceabilityIngestionPipeline} queue is full.
+         */
+        rejected,
+        /**
+         * Report cannot be parsed or processed.
+         */
+        error
+    }
+    
+    /**
+     * Submission of the {@link DockerTraceabilityReport}, which has been already parsed.
+     */
+    private static class ParsedSubmission implements DockerTraceabilityIngestionPipeline.Submission {
+        
+        private final @Nonnull DockerTraceabilityReport report;
+
+        public ParsedSubmission(@Nonnull DockerTraceabilityReport report) {
+            this.report = report;
+        }
+
+        @Override
+        public List<DockerTraceabilityReport> parse() {
+            return Collections.singletonList(report);
+        }
+
+        @Override
+        public String toString() {
+            final InspectContainerResponse container = report.getContainer();
+            return "Report of the container " + (container != null ? container.getId() : "unknown");
+        }
+    }
+    
+    /**
+     * Submission of {@link DockerTraceabilityReport} in JSON.
+     * The report is being passed either as a string or as a request body stream.
+     * The stream is not being closed by the submission.
+     */
+    private static class ReportSubmission implements DockerTraceabilityIngestionPipeline.Submission {
+        
+        private final @CheckForNull String json;
+        private final @CheckForNull InputStream body;
+
+        public ReportSubmission(@Nonnull String json) {
+            this.json = json;
+            this.body = null;
+        }
+        
+        public ReportSubmission(@Nonnull InputStream body) {
+            this.json = null;
+            this.body = body;
+        }
+
+        @Override
+        public List<DockerTraceabilityReport> parse() throws IOException {
+            final ObjectReader reader = DockerTraceabilityCodecs.reportReader();
+            final DockerTraceabilityReport report = (json != null) 
+                    ? reader.<DockerTraceabilityReport>readValue(json) 
+                    : reader.<DockerTraceabilityReport>readValue(body);
+            return Collections.singletonList(report);
+        }
+
+        @Override
+        public String toString() {
+            return (json != null) 
+                    ? "JSON report (" + json.length() + " characters)" 
+                    : "JSON report in the request body";
+        }
+    }
+    
+    /**
+     * Submission of docker inspect output with a minimal set of parameters.
+     * The output is being passed either as a string or as a request body stream.
+     * The stream is not being closed by the submission.
+     * @see #doSubmitContainerStatus
+     */
+    private static class ContainerStatusSubmission implements DockerTraceabilityIngestionPipeline.Submission {
+        
+        private final @CheckForNull String inspectData;
+        private final @CheckForNull InputStream inspectBody;
+        private final @CheckForNull String hostId;
+        private final @CheckForNull String hostName;
+        private final @CheckForNull String status;
+        private final long time;
+        private final @CheckForNull String environment;
+        private final @CheckForNull String imageName;
+
+        public ContainerStatusSubmission(@Nonnull String inspectData, @CheckForNull String hostId, 
+                @CheckForNull String hostName, @CheckForNull String status, long time, 
+                @CheckForNull String environment, @CheckForNull String imageName) {
+            this(inspectData, null, hostId, hostName, status, time, environment, imageName);
+        }
+        
+        public ContainerStatusSubmission(@Nonnull InputStream inspectBody, 
+                @CheckForNull String hostId, @CheckForNull String hostName, @CheckForNull String status, 
+                long time, @CheckForNull String environment, @CheckForNull String imageName) {
+            this(null, inspectBody, hostId, hostName, status, time, environment, imageName);
+        }
+        
+        private ContainerStatusSubmission(@CheckForNull String inspectData, 
+                @CheckForNull InputStream inspectBody,
+                @CheckForNull String hostId, @CheckForNull String hostName, @CheckForNull String status, 
+                long time, @CheckForNull String environment, @CheckForNull String imageName) {
+            this.inspectData = inspectData;
+            this.inspectBody = inspectBody;
+            this.hostId = hostId;
+            this.hostName = hostName;
+            this.status = status;
+            // Capture the time on submission, the parsing may happen later in the async mode
+            this.time = time != 0 ? time : System.currentTimeMillis()/1000;
+            this.environment = environment;
+            this.imageName = imageName;
+        }
+
+        @Override
+        public List<DockerTraceabilityReport> parse() throws IOException {
+            final ObjectReader reader = DockerTraceabilityCodecs.inspectContainerArrayReader();
+            final InspectContainerResponse[] inspectContainerResponses = (inspectData != null)
+                    ? reader.<InspectContainerResponse[]>readValue(inspectData)
+                    : reader.<InspectContainerResponse[]>readValue(inspectBody);
+            final long eventTime = time;
+            final String effectiveHostName = StringUtils.isNotBlank(hostName) ? hostName : "unknown";
+            final String effectiveHostId = StringUtils.isNotBlank(hostId) ? hostId : "unknown";
+            final String effectiveStatus = StringUtils.isNotBlank(status) 
+                    ? status.toUpperCase(Locale.ENGLISH) : DockerEventType.NONE.toString();
+            final String effectiveImageName = hudson.Util.fixEmpty(imageName);
+            final String effectiveEnvironment = hudson.Util.fixEmpty(environment);
+
+            // Host info is the same for all containers
+            final Info hostInfo = new DockerInfo(effectiveHostId, effectiveHostName).toInfo();
+            final List<DockerTraceabilityReport> res = new ArrayList<DockerTraceabilityReport>(inspectContainerResponses.length);
+            for (InspectContainerResponse inspectContainerResponse : inspectContainerResponses) {
+                final Event event = new DockerEvent(effectiveStatus, inspectContainerResponse.getImageId(), 
+                        effectiveHostId, eventTime).toDockerEvent();
+
+                res.add(new DockerTraceabilityReport(event, hostInfo,
+                        inspectContainerResponse, 
+                        inspectContainerResponse.getImageId(), effectiveImageName,
+                        /* InspectImageResponse */ null, new LinkedList<String>(), effectiveEnvironment));
+            }
+            return res;
+        }
+
+        @Override
+        public String toString() {
+            return "Status " + status + " of containers from the host " + hostName + " (" + (inspectData != null 
+                    ? inspectData.length() + " characters" 
+                    : "the request body") + ")";
+        }
+    }
+    
     private enum QueryMode {
         inspectContainer,
         inspectImage,
@@ -602,6 +1399,52 @@ public class DockerTraceabilityRootAction implements RootAction, SearchableModel
                 return DEFAULT;
             }
         }
+        
+        /**
+         * Gets the item of the record, which should be returned by the query.
+         * @param record Container record
+         * @return Item or null if the record has no data for this mode
+         */
+        public @CheckForNull Object select(@Nonnull DockerContainerRecord record) {
+            switch (this) {
+                case all:
+                    return record.getReport();
+                case events:
+                    return record.getEvent();
+                case inspectContainer:
+                    return record.getReport().getContainer();
+                case inspectImage:
+                    return record.getReport().getImage();
+                case hostInfo:
+                    return record.getReport().getHostInfo();
+                default:
+                    throw new IllegalStateException("Unsupported query mode: " + this);
+            }
+        }
+    }
+    
+    /**
+     * Builds the container index in background on startup.
+     */
+    @Initializer(after = InitMilestone.JOB_LOADED)
+    public static void scheduleContainerIndexBuild() {
+        final DockerTraceabilityRootAction action = getInstance();
+        if (action != null) {
+            action.containerIndex();
+        }
+    }
+    
+    /**
+     * Releases files of the container registry on the plugin stop.
+     * It should be invoked after the report processing has been stopped.
+     */
+    @Restricted(NoExternalUse.class)
+    public static void closeRegistry() {
+        final DockerTraceabilityRootAction action = getInstance();
+        final DockerContainerRegistry registry = action != null ? action.registry : null;
+        if (registry != null) {
+            registry.close();
+        }
     }
     
     /**
@@ -623,4 +1466,131 @@ public class DockerTraceabilityRootAction implements RootAction, SearchableModel
         } 
         return action;
     }
+    
+    /**
+     * Reads lines of the request body with a bounded length.
+     * Remainders of too long lines are being skipped without buffering.
+     */
+    private static final class LineReader implements Closeable {
+        
+        private final @Nonnull Reader reader;
+        private final int maxLength;
+        private final StringBuilder line = new StringBuilder();
+        private int lineNumber = 0;
+        private boolean truncated;
+
+        LineReader(@Nonnull Reader reader, int maxLength) {
+            this.reader = new BufferedReader(reader);
+            this.maxLength = maxLength;
+        }
+        
+        /**
+         * Reads the next line.
+         * @return false if the end of the stream has been reached
+         * @throws IOException Read error
+         */
+        boolean next() throws IOException {
+            line.setLength(0);
+            truncated = false;
+            int c = reader.read();
+            if (c == -1) {
+                return false;
+            }
+            lineNumber++;
+            while (c != -1 && c != '\n') {
+                if (line.length() < maxLength) {
+                    line.append((char) c);
+                } else {
+                    truncated = true;
+                }
+                c = reader.read();
+            }
+            return true;
+        }
+
+        /**
+         * Gets the current line.
+         * @return Line without the line break. The content is cut if {@link #isTruncated()}
+         */
+        @Nonnull String getLine() {
+            return line.toString();
+        }
+
+        int getLineNumber() {
+            return lineNumber;
+        }
+
+        boolean isTruncated() {
+            return truncated;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+    
+    /**
+     * Indicates that the request body exceeds {@link #MAX_BODY_SIZE}.
+     */
+    private static final class BodyTooLargeException extends IOException {
+        
+        private static final long serialVersionUID = 1L;
+
+        BodyTooLargeException(long limit) {
+            super("The request body exceeds the limit of " + limit + " bytes");
+        }
+    }
+    
+    /**
+     * Stream, which fails if more than the specified number of bytes has been read.
+     * It limits the size of decompressed bodies, which is not limited by the container.
+     */
+    private static final class SizeLimitedInputStream extends FilterInputStream {
+        
+        private final long limit;
+        private long count;
+
+        SizeLimitedInputStream(@Nonnull InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            final long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+        
+        private void count(long n) throws BodyTooLargeException {
+            count += n;
+            if (count > limit) {
+                throw new BodyTooLargeException(limit);
+            }
+        }
+    }
 }
@@ -0,0 +1,279 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.core;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nonnull;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPlugin;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityMetrics;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityMetrics.Timer;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityMetrics.TimerMXBean;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityStringPool;
+import org.jenkinsci.plugins.docker.traceability.util.FingerprintSaveQueue;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Runtime statistics of the plugin.
+ * Combines {@link DockerTraceabilityMetrics} timers with queue depths,
+ * drop counters of the ingestion components and {@link DockerFingerprintCache} statistics.
+ * The statistics are available via {@link DockerTraceabilityRootAction#doMetrics} 
+ * and via JMX ({@code org.jenkinsci.plugins.docker.traceability} domain).
+ */
+@Restricted(NoExternalUse.class)
+public class DockerTraceabilityStatistics implements DockerTraceabilityStatisticsMXBean {
+    
+    private final static Logger LOGGER = Logger.getLogger(DockerTraceabilityPlugin.class.getName());
+    
+    static final String JMX_DOMAIN = "org.jenkinsci.plugins.docker.traceability";
+    
+    private static final DockerTraceabilityStatistics INSTANCE = new DockerTraceabilityStatistics();
+
+    DockerTraceabilityStatistics() {
+    }
+    
+    public static @Nonnull DockerTraceabilityStatistics getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Gets the number of reports, which have been processed per second.
+     * @return Average rate over the last minute
+     */
+    @Override
+    public double getReportsPerSecond() {
+        return DockerTraceabilityMetrics.REPORT_RESOLVE.getRatePerSecond();
+    }
+
+    @Override
+    public Map<String, Integer> getPipelineQueueDepths() {
+        final DockerTraceabilityIngestionPipeline pipeline = DockerTraceabilityIngestionPipeline.getInstanceOrNull();
+        return pipeline != null ? pipeline.getQueueDepths() : Collections.<String, Integer>emptyMap();
+    }
+
+    @Override
+    public long getRejectedSubmissions() {
+        return DockerTraceabilityMetrics.getRejectedSubmissions();
+    }
+
+    @Override
+    public Map<String, Long> getPipelineRejections() {
+        final DockerTraceabilityIngestionPipeline pipeline = DockerTraceabilityIngestionPipeline.getInstanceOrNull();
+        return pipeline != null ? pipeline.getRejectedCounts() : Collections.<String, Long>emptyMap();
+    }
+
+    @Override
+    public Map<String, Integer> getListenerQueueDepths() {
+        final DockerTraceabilityListenerDispatcher dispatcher = DockerTraceabilityListenerDispatcher.getInstanceOrNull();
+        return dispatcher != null ? dispatcher.getQueueDepths() : Collections.<String, Integer>emptyMap();
+    }
+
+    @Override
+    public Map<String, Long> getDroppedNotifications() {
+        final DockerTraceabilityListenerDispatcher dispatcher = DockerTraceabilityListenerDispatcher.getInstanceOrNull();
+        return dispatcher != null ? dispatcher.getDroppedCounts() : Collections.<String, Long>emptyMap();
+    }
+
+    @Override
+    public int getAuditLogQueueDepth() {
+        final DockerTraceabilityAuditLog log = DockerTraceabilityAuditLog.getInstanceOrNull();
+        return log != null ? log.getQueueDepth() : 0;
+    }
+
+    @Override
+    public long getDroppedAuditRecords() {
+        final DockerTraceabilityAuditLog log = DockerTraceabilityAuditLog.getInstanceOrNull();
+        return log != null ? log.getDroppedCount() : 0;
+    }
+
+    @Override
+    public int getPendingFingerprintSaves() {
+        return FingerprintSaveQueue.getPendingCount();
+    }
+
+    @Override
+    public long getStringPoolHits() {
+        return DockerTraceabilityStringPool.getHits();
+    }
+
+    @Override
+    public long getStringPoolSavedBytes() {
+        return DockerTraceabilityStringPool.getSavedBytes();
+    }
+
+    @Override
+    public int getStringPoolSize() {
+        return DockerTraceabilityStringPool.getSize();
+    }
+
+    @Override
+    public Map<String, Double> getFingerprintCacheHitRates() {
+        final Map<String, Double> res = new TreeMap<String, Double>();
+        for (DockerFingerprintCache cache : getFingerprintCaches()) {
+            res.put(cache.getName(), cache.getHitRate());
+        }
+        return res;
+    }
+
+    @Override
+    public Map<String, Integer> getFingerprintCacheSizes() {
+        final Map<String, Integer> res = new TreeMap<String, Integer>();
+        for (DockerFingerprintCache cache : getFingerprintCaches()) {
+            res.put(cache.getName(), cache.getSize());
+        }
+        return res;
+    }
+    
+    private static @Nonnull DockerFingerprintCache[] getFingerprintCaches() {
+        return new DockerFingerprintCache[] {DockerFingerprintCache.CONTAINERS, DockerFingerprintCache.IMAGES};
+    }
+    
+    /**
+     * Writes the statistics as a JSON object.
+     * @param gen Target generator
+     * @throws IOException Write error
+     */
+    public void writeJSON(@Nonnull JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeNumberField("reportsPerSecond", getReportsPerSecond());
+        
+        gen.writeObjectFieldStart("timers");
+        for (Timer timer : DockerTraceabilityMetrics.getTimers().values()) {
+            gen.writeObjectFieldStart(timer.getName());
+            gen.writeNumberField("count", timer.getCount());
+            gen.writeNumberField("ratePerSecond", timer.getRatePerSecond());
+            gen.writeNumberField("meanMs", timer.getMeanMillis());
+            gen.writeNumberField("p50Ms", timer.get50thPercentileMillis());
+            gen.writeNumberField("p99Ms", timer.get99thPercentileMillis());
+            gen.writeNumberField("maxMs", timer.getMaxMillis());
+            gen.writeEndObject();
+        }
+        gen.writeEndObject();
+        
+        gen.writeObjectFieldStart("queues");
+        writeMap(gen, "pipeline", getPipelineQueueDepths());
+        writeMap(gen, "listeners", getListenerQueueDepths());
+        gen.writeNumberField("auditLog", getAuditLogQueueDepth());
+        gen.writeNumberField("fingerprintSaves", getPendingFingerprintSaves());
+        gen.writeEndObject();
+        
+        gen.writeObjectFieldStart("dropped");
+        gen.writeNumberField("rejectedSubmissions", getRejectedSubmissions());
+        writeMap(gen, "pipeline", getPipelineRejections());
+        writeMap(gen, "listeners", getDroppedNotifications());
+        gen.writeNumberField("auditLog", getDroppedAuditRecords());
+        gen.writeEndObject();
+        
+        gen.writeObjectFieldStart("stringPool");
+        gen.writeNumberField("hits", getStringPoolHits());
+        gen.writeNumberField("savedBytes", getStringPoolSavedBytes());
+        gen.writeNumberField("size", getStringPoolSize());
+        gen.writeEndObject();
+        
+        gen.writeObjectFieldStart("fingerprintCache");
+        for (DockerFingerprintCache cache : getFingerprintCaches()) {
+            gen.writeObjectFieldStart(cache.getName());
+            gen.writeNumberField("size", cache.getSize());
+            gen.writeNumberField("protectedSize", cache.getProtectedSize());
+            gen.writeNumberField("capacity", cache.getCapacity());
+            gen.writeNumberField("hits", cache.getHits());
+            gen.writeNumberField("misses", cache.getMisses());
+            gen.writeNumberField("evictions", cache.getEvictions());
+            gen.writeNumberField("hitRate", cache.getHitRate());
+            gen.writeEndObject();
+        }
+        gen.writeEndObject();
+        
+        gen.writeEndObject();
+    }
+    
+    private static void writeMap(@Nonnull JsonGenerator gen, @Nonnull String name, 
+            @Nonnull Map<String, ? extends Number> values) throws IOException {
+        gen.writeObjectFieldStart(name);
+        for (Map.Entry<String, ? extends Number> entry : values.entrySet()) {
+            gen.writeNumberField(entry.getKey(), entry.getValue().longValue());
+        }
+        gen.writeEndObject();
+    }
+    
+    /**
+     * Registers the statistics and timers in the platform MBean server.
+     * Previously registered beans with the same names are being replaced.
+     */
+    public static void registerMBeans() {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            register(server, new ObjectName(JMX_DOMAIN + ":type=Statistics"), 
+                    new StandardMBean(INSTANCE, DockerTraceabilityStatisticsMXBean.class, true));
+            for (Timer timer : DockerTraceabilityMetrics.getTimers().values()) {
+                register(server, timerName(timer), new StandardMBean(timer, TimerMXBean.class, true));
+            }
+        } catch (JMException ex) {
+            LOGGER.log(Level.WARNING, "Cannot register Docker Traceability MBeans", ex);
+        }
+    }
+    
+    /**
+     * Unregisters beans, which have been registered by {@link #registerMBeans()}.
+     */
+    public static void unregisterMBeans() {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            unregister(server, new ObjectName(JMX_DOMAIN + ":type=Statistics"));
+            for (Timer timer : DockerTraceabilityMetrics.getTimers().values()) {
+                unregister(server, timerName(timer));
+            }
+        } catch (JMException ex) {
+            LOGGER.log(Level.WARNING, "Cannot unregister Docker Traceability MBeans", ex);
+        }
+    }
+    
+    static @Nonnull ObjectName timerName(@Nonnull Timer timer) throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=Timer,name=" + timer.getName());
+    }
+    
+    private static void register(@Nonnull MBeanServer server, @Nonnull ObjectName name, 
+            @Nonnull Object mbean) throws JMException {
+        unregister(server, name);
+        server.registerMBean(mbean, name);
+    }
+    
+    private static void unregister(@Nonnull MBeanServer server, @Nonnull ObjectName name) 
+            throws JMException {
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+    }
+}
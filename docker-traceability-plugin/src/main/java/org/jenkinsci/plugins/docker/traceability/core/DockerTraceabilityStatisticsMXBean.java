@@ -0,0 +1,63 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.core;
+
+import java.util.Map;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * JMX interface of {@link DockerTraceabilityStatistics}.
+ */
+@Restricted(NoExternalUse.class)
+public interface DockerTraceabilityStatisticsMXBean {
+    
+    double getReportsPerSecond();
+    
+    Map<String, Integer> getPipelineQueueDepths();
+    
+    long getRejectedSubmissions();
+    
+    Map<String, Long> getPipelineRejections();
+    
+    Map<String, Integer> getListenerQueueDepths();
+    
+    Map<String, Long> getDroppedNotifications();
+    
+    int getAuditLogQueueDepth();
+    
+    long getDroppedAuditRecords();
+    
+    int getPendingFingerprintSaves();
+    
+    long getStringPoolHits();
+    
+    long getStringPoolSavedBytes();
+    
+    int getStringPoolSize();
+    
+    Map<String, Double> getFingerprintCacheHitRates();
+    
+    Map<String, Integer> getFingerprintCacheSizes();
+}
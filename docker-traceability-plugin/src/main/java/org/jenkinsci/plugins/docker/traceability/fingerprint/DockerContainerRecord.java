@@ -23,50 +23,254 @@
  */
 package org.jenkinsci.plugins.docker.traceability.fingerprint;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
 import java.io.Serializable;
+import java.lang.ref.SoftReference;
 import java.util.Comparator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPlugin;
 import org.jenkinsci.plugins.docker.traceability.core.DockerTraceabilityHelper;
 import org.jenkinsci.plugins.docker.traceability.dockerjava.api.command.InspectContainerResponse;
 import org.jenkinsci.plugins.docker.traceability.dockerjava.api.model.Event;
 import org.jenkinsci.plugins.docker.traceability.api.DockerTraceabilityReport;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityCodecs;
+import org.jenkinsci.plugins.docker.traceability.util.JsonDelta;
 
 /**
  * Stores an entry for {@link DockerDeploymentFacet}.
+ * <p>
+ * The container state may be stored as a {@link JsonDelta} against the 
+ * previous record of the facet. In such case the stored report does not 
+ * contain {@link InspectContainerResponse}, and it is being reconstructed
+ * by {@link #getReport()} on-demand. 
+ * Delta chains are being managed by {@link DockerDeploymentFacet}.
  * @author Oleg Nenashev
  */
 public class DockerContainerRecord {
 
-    private final @Nonnull DockerTraceabilityReport report;
+    private final static Logger LOGGER = Logger.getLogger(DockerTraceabilityPlugin.class.getName());
+    
+    /**
+     * Stored report. 
+     * If {@link #containerDelta} is defined, the container info is omitted.
+     */
+    private @Nonnull DockerTraceabilityReport report;
+    
+    /**
+     * Delta of the container state against {@link #deltaBase}.
+     */
+    private @CheckForNull String containerDelta;
+    
+    /**
+     * Base record for {@link #containerDelta}.
+     * It is being restored by {@link DockerDeploymentFacet} after the loading.
+     */
+    private transient @CheckForNull DockerContainerRecord deltaBase;
+    
+    /**
+     * Cached reconstructed report for delta records.
+     */
+    private transient @CheckForNull SoftReference<DockerTraceabilityReport> resolvedReport;
+    
+    /**
+     * Time of the event in seconds.
+     * Together with {@link #status} it defines the order of records in the facet.
+     */
+    private transient long time;
+    
+    /**
+     * Status of the event.
+     */
+    private transient String status;
     
     public DockerContainerRecord(@Nonnull DockerTraceabilityReport report) {
         this.report = report;
+        indexEvent();
+    }
+    
+    /**
+     * Creates a search key for navigable sets of records.
+     * Such key is lower than any record with the same time.
+     * @param time Time in seconds
+     */
+    private DockerContainerRecord(long time) {
+        this.report = new DockerTraceabilityReport();
+        this.time = time;
+        this.status = "";
+    }
+    
+    private void indexEvent() {
+        final Event event = report.getEvent();
+        time = event.getTime();
+        status = event.getStatus();
+    }
+    
+    private Object readResolve() {
+        indexEvent();
+        return this;
     }
     
     /**
      * Gets the nested report.
      * @return A related {@link DockerTraceabilityReport}
      */
-    public @Nonnull DockerTraceabilityReport getReport() {
-        return report;
+    public synchronized @Nonnull DockerTraceabilityReport getReport() {
+        if (containerDelta == null) {
+            return report;
+        }
+        
+        DockerTraceabilityReport resolved = resolvedReport != null ? resolvedReport.get() : null;
+        if (resolved == null) {
+            InspectContainerResponse container = null;
+            try {
+                final ObjectNode node = getContainerNode();
+                if (node != null) {
+                    container = DockerTraceabilityCodecs.inspectContainerReader().readValue(node);
+                }
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, "Cannot reconstruct the container info for the event " 
+                        + report.getEvent().getId() + " at " + report.getEvent().getTime(), ex);
+            }
+            resolved = new DockerTraceabilityReport(report.getEvent(), report.getHostInfo(), container, 
+                    report.getImageId(), report.getImageName(), report.getImage(), 
+                    report.getParents(), report.getEnvironment());
+            resolvedReport = new SoftReference<DockerTraceabilityReport>(resolved);
+        }
+        return resolved;
+    }
+    
+    /**
+     * Gets the event of the report.
+     * Unlike {@link #getReport()}, this method never reconstructs the container info.
+     * @return Event
+     */
+    public synchronized @Nonnull Event getEvent() {
+        return report.getEvent();
+    }
+    
+    /**
+     * Gets time of the event.
+     * Unlike {@link #getEvent()}, this method does not require synchronization.
+     * @return Time in seconds
+     * @since 1.3
+     */
+    public long getTime() {
+        return time;
+    }
+    
+    /**
+     * Gets ID of the image.
+     * Unlike {@link #getReport()}, this method never reconstructs the container info.
+     * @return Image ID. May be null in corner cases
+     */
+    public synchronized @CheckForNull String getImageId() {
+        return report.getImageId();
     }
     
     public @CheckForNull String getContainerId() {
-        InspectContainerResponse container = report.getContainer();
+        InspectContainerResponse container = getReport().getContainer();
         return (container != null) ? container.getId() : null;
     }
     
     public @CheckForNull String getContainerFingerprintHash() {
-        InspectContainerResponse container = report.getContainer();
+        InspectContainerResponse container = getReport().getContainer();
         return (container != null) ? DockerTraceabilityHelper.getContainerHash(container.getId()) : null;
     }
     
     public @CheckForNull String getImageFingerprintHash() {
-        final String imageId = report.getImageId();
+        final String imageId = getImageId();
         return imageId != null ? DockerTraceabilityHelper.getImageHash(imageId) : null;
     }
     
+    /**
+     * Checks if the container info is stored as a delta.
+     * @return true if the record depends on the previous one
+     */
+    /*package*/ synchronized boolean isDelta() {
+        return containerDelta != null;
+    }
+    
+    /**
+     * Gets the number of delta records in the chain, which ends with this record.
+     * @return 0 for records with the full container info
+     */
+    /*package*/ synchronized int getDeltaChainLength() {
+        int length = 0;
+        for (DockerContainerRecord r = this; r != null && r.isDelta(); r = r.deltaBase) {
+            length++;
+        }
+        return length;
+    }
+    
+    /*package*/ synchronized void setDeltaBase(@CheckForNull DockerContainerRecord base) {
+        this.deltaBase = base;
+    }
+    
+    /**
+     * Gets the container info as JSON tree.
+     * @return Container info. Null if the report has no container info
+     * @throws IOException Cannot reconstruct the container info
+     */
+    private synchronized @CheckForNull ObjectNode getContainerNode() throws IOException {
+        final DockerTraceabilityReport cached = resolvedReport != null ? resolvedReport.get() : null;
+        if (containerDelta == null || cached != null) {
+            final InspectContainerResponse container = (cached != null ? cached : report).getContainer();
+            return container != null 
+                    ? DockerTraceabilityCodecs.getMapper().<ObjectNode>valueToTree(container) : null;
+        }
+        
+        final DockerContainerRecord base = deltaBase;
+        final ObjectNode baseNode = base != null ? base.getContainerNode() : null;
+        if (baseNode == null) {
+            throw new IOException("Base record of the delta is missing");
+        }
+        return JsonDelta.apply(baseNode, DockerTraceabilityCodecs.getMapper().readTree(containerDelta));
+    }
+    
+    /**
+     * Converts the record to the delta against the specified one.
+     * The record won't be modified if the base record or the record itself have no container info.
+     * @param base Base record. Usually it is the previous record of the facet
+     * @throws IOException Cannot calculate the delta
+     */
+    /*package*/ synchronized void encodeDelta(@Nonnull DockerContainerRecord base) throws IOException {
+        final DockerTraceabilityReport full = getReport();
+        if (full.getContainer() == null) {
+            return;
+        }
+        final ObjectNode baseNode = base.getContainerNode();
+        if (baseNode == null) {
+            return;
+        }
+        
+        final ObjectNode node = getContainerNode();
+        final String delta = DockerTraceabilityCodecs.writer().writeValueAsString(JsonDelta.diff(baseNode, node));
+        report = new DockerTraceabilityReport(full.getEvent(), full.getHostInfo(), null, 
+                full.getImageId(), full.getImageName(), full.getImage(), 
+                full.getParents(), full.getEnvironment());
+        containerDelta = delta;
+        deltaBase = base;
+        resolvedReport = null;
+    }
+    
+    /**
+     * Converts the delta record to the record with the full container info.
+     * It should be invoked before modifications of the base record chain.
+     */
+    /*package*/ synchronized void materialize() {
+        if (containerDelta == null) {
+            return;
+        }
+        report = getReport();
+        containerDelta = null;
+        deltaBase = null;
+        resolvedReport = null;
+    }
+    
     /**
      * Compares {@link DockerContainerRecord}s by time
      */
@@ -75,16 +279,24 @@ public class DockerContainerRecord {
         private static final long serialVersionUID = 1L;
         
         public int compare(DockerContainerRecord o1, DockerContainerRecord o2) {
-            
-            final Event event1 = o1.getReport().getEvent();
-            final Event event2 = o2.getReport().getEvent();
-            if (event1.getTime() != event2.getTime()) {
-                return Long.compare(event1.getTime(), event2.getTime());
+            if (o1.time != o2.time) {
+                return Long.compare(o1.time, o2.time);
             }
             
             // We rely on the event type and presume there's no similar events
             // at the same time
-            return event1.getStatus().compareTo(event2.getStatus());
+            return o1.status.compareTo(o2.status);
         }
     }
+    
+    /**
+     * Gets a key for lookups in sets ordered by {@link TimeComparator}.
+     * The key is lower than all records with the specified time and higher 
+     * than all records with lower times.
+     * @param time Time in seconds
+     * @return Search key, which should not be stored in the facet
+     */
+    static @Nonnull DockerContainerRecord searchKey(long time) {
+        return new DockerContainerRecord(time);
+    }
 }
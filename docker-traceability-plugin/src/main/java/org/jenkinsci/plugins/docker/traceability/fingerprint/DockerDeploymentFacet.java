@@ -23,19 +23,34 @@
  */
 package org.jenkinsci.plugins.docker.traceability.fingerprint;
 
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
 import hudson.model.Fingerprint;
+import hudson.model.TaskListener;
+import java.io.File;
 import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
+import jenkins.model.Jenkins;
 import org.jenkinsci.plugins.docker.commons.fingerprint.DockerFingerprintFacet;
 import org.jenkinsci.plugins.docker.commons.fingerprint.DockerFingerprints;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPlugin;
 import org.jenkinsci.plugins.docker.traceability.core.DockerTraceabilityHelper;
 import org.jenkinsci.plugins.docker.traceability.model.DockerEventType;
 import org.jenkinsci.plugins.docker.traceability.api.DockerTraceabilityReport;
+import org.jenkinsci.plugins.docker.traceability.util.FingerprintSaveQueue;
 import org.jenkinsci.plugins.docker.traceability.util.FingerprintsHelper;
 
 /**
@@ -43,31 +58,518 @@ import org.jenkinsci.plugins.docker.traceability.util.FingerprintsHelper;
  * It's supposed to be used within a container fingerprint, which stores
  * the info about events.
  * This facet should be added to container {@link Fingerprint}s.
+ * <p>
+ * By default, records are being stored within the fingerprint XML file.
+ * If the {@code org.jenkinsci.plugins.docker.traceability.fingerprint.DockerDeploymentFacet.journalStorage}
+ * system property is set to {@code true}, records are being appended to 
+ * {@link DockerDeploymentJournal} instead, and the fingerprint keeps only 
+ * a small header with the latest record and summary fields.
+ * Existing facets are being migrated to the journal on the next modification.
+ * Journaled facets stay in the journal mode even if the property is disabled later.
+ * <p>
+ * If the {@code org.jenkinsci.plugins.docker.traceability.fingerprint.DockerDeploymentFacet.deltaKeyframeInterval}
+ * system property is greater than 1, container infos within the fingerprint are 
+ * being stored as deltas against the previous records with a full record
+ * (keyframe) every N records. 
+ * See {@link DockerContainerRecord} for more info.
+ * <p>
+ * Modifications hold the monitor of the owning {@link Fingerprint}, which is
+ * also held by {@link Fingerprint#save()}. Hence the facet is never serialized 
+ * in the middle of the modification, even if the save is deferred by 
+ * {@link FingerprintSaveQueue}.
  * @author Oleg Nenashev
  */
 public class DockerDeploymentFacet extends DockerFingerprintFacet {
-        
+    
+    private final static Logger LOGGER = Logger.getLogger(DockerTraceabilityPlugin.class.getName());
+    
+    private static final boolean JOURNAL_STORAGE = 
+            Boolean.getBoolean(DockerDeploymentFacet.class.getName() + ".journalStorage");
+    
+    private static final int DELTA_KEYFRAME_INTERVAL = 
+            Integer.getInteger(DockerDeploymentFacet.class.getName() + ".deltaKeyframeInterval", 0);
+    
+    private static final DockerContainerRecord.TimeComparator TIME_COMPARATOR = 
+            new DockerContainerRecord.TimeComparator();
+    
+    /**
+     * Records stored within the fingerprint.
+     * The set is empty if the facet is {@link #journaled}.
+     */
     private final SortedSet<DockerContainerRecord> deploymentRecords 
-            = new TreeSet<DockerContainerRecord>(new DockerContainerRecord.TimeComparator());
+            = new TreeSet<DockerContainerRecord>(TIME_COMPARATOR);
+    
+    /**
+     * Indicates that records are being stored in {@link DockerDeploymentJournal}.
+     * Fields below are maintained only in this mode.
+     */
+    private boolean journaled;
+    private int journalSize;
+    private @CheckForNull DockerContainerRecord latest;
+    /**
+     * Time of the latest inspect record before {@link #latest}.
+     * {@link Long#MIN_VALUE} if there is no such record, null if the time is unknown.
+     */
+    private @CheckForNull Long previousInspectTime;
+    private @CheckForNull String imageId;
+    private long imageIdTime;
+    private @CheckForNull String lastStatus;
+    private long lastStatusTime;
+    
+    /**
+     * Offset of {@link #latest} in the journal if it is the last entry.
+     * Null if the offset is unknown.
+     * The offset is not being persisted, because the fingerprint may be saved 
+     * later than the journal is modified.
+     */
+    private transient @CheckForNull Long latestOffset;
+    
+    /**
+     * Records, which have been loaded from the journal.
+     */
+    private transient @CheckForNull SoftReference<NavigableSet<DockerContainerRecord>> journalCache;
+    
+    /**
+     * Indicates that delta bases of {@link #deploymentRecords} have been restored after the loading.
+     */
+    private transient boolean deltasLinked;
+    
+    /**
+     * Result of {@link #getLastStatus()} for records stored within the fingerprint.
+     * Null if it has to be recalculated.
+     */
+    private transient @CheckForNull String lastStatusCache;
             
     public DockerDeploymentFacet(Fingerprint fingerprint, long timestamp) {
         super(fingerprint, timestamp);
     }
 
-    public synchronized void add(DockerContainerRecord r) throws IOException {
-        for (DockerContainerRecord e : deploymentRecords) { // prevent dups
-            if (e.equals(r))
+    /**
+     * Adds a new record to the facet.
+     * Records with the same time and status as existing ones will be ignored.
+     * @param r Record to be added
+     * @throws IOException Cannot save the fingerprint
+     */
+    public void add(DockerContainerRecord r) throws IOException {
+        synchronized (getFingerprint()) { // Fingerprint.save() holds the same monitor
+            addRecord(r);
+        }
+    }
+    
+    private synchronized void addRecord(@Nonnull DockerContainerRecord r) throws IOException {
+        if (JOURNAL_STORAGE && !journaled) {
+            migrateToJournal();
+        }
+        // Header fields allow to process records newer than the latest one without loading the journal
+        final boolean newest = journaled && (latest == null || TIME_COMPARATOR.compare(r, latest) > 0);
+        if (!newest && records().contains(r)) { // prevent dups
+            return;
+        }
+        
+        final DockerDeploymentRetentionPolicy policy = DockerDeploymentRetentionPolicy.getCurrent();
+        final long now = System.currentTimeMillis() / 1000;
+        final DockerContainerRecord replaced;
+        if (!policy.isEnabled()) {
+            replaced = null;
+        } else if (newest) {
+            if (policy.isRejectedLatest(r, now)) {
                 return;
+            }
+            replaced = (latest != null && policy.isReplaced(latest, getPreviousInspectTime())) ? latest : null;
+        } else {
+            if (policy.isRejected(records(), r, now)) {
+                return;
+            }
+            replaced = policy.selectReplaced(records(), r);
+        }
+        
+        if (journaled) {
+            final DockerDeploymentJournal journal = getJournal();
+            final NavigableSet<DockerContainerRecord> cached = getJournalCache();
+            final DockerContainerRecord previousLatest = latest;
+            boolean truncated = false;
+            if (replaced != null && latestOffset != null && latest != null 
+                    && TIME_COMPARATOR.compare(replaced, latest) == 0
+                    && journal.truncateLast(latestOffset, latest)) {
+                // The last entry has been cut off, otherwise the record will be removed by the sweep
+                journalSize--;
+                truncated = true;
+                if (cached != null) {
+                    cached.remove(replaced);
+                }
+            }
+            final long offset = journal.length();
+            journal.append(Collections.singleton(r));
+            journalSize++;
+            if (cached != null) {
+                cached.add(r);
+            }
+            if (newest) {
+                if (previousLatest == null) {
+                    previousInspectTime = Long.MIN_VALUE;
+                } else if (!truncated && DockerDeploymentRetentionPolicy.isInspect(previousLatest)) {
+                    previousInspectTime = previousLatest.getTime();
+                }
+            } else if (previousInspectTime != null && DockerDeploymentRetentionPolicy.isInspect(r) 
+                    && r.getTime() > previousInspectTime) {
+                previousInspectTime = r.getTime();
+            }
+            updateHeader(r);
+            latestOffset = (latest == r) ? offset : null;
+        } else {
+            if (replaced != null) {
+                deploymentRecords.remove(replaced);
+                lastStatusCache = null;
+            }
+            encodeDelta(r);
+            deploymentRecords.add(r);
+            if (DockerEventType.fromString(r.getEvent().getStatus()) != DockerEventType.NONE) {
+                // Statuses of older records do not override the newer ones
+                lastStatusCache = (deploymentRecords.last() == r) 
+                        ? r.getEvent().getStatus().toUpperCase(Locale.ENGLISH) : null;
+            }
+        }
+        
+        final int maxRecords = policy.getMaxRecords();
+        if (maxRecords > 0) {
+            // Journal rewrites are expensive, hence some overflow is allowed
+            final int size = journaled ? journalSize : deploymentRecords.size();
+            final int slack = journaled ? Math.max(1, maxRecords / 10) : 0;
+            if (size > maxRecords + slack) {
+                removeExpired(policy, now);
+            }
+        }
+        FingerprintSaveQueue.save(getFingerprint());
+    }
+    
+    /**
+     * Removes records, which violate the retention policy.
+     * @param policy Retention policy
+     * @param now Current time in seconds
+     * @return true if the facet has been modified
+     * @throws IOException Cannot read or write the data
+     * @since 1.3
+     */
+    public boolean applyRetention(@Nonnull DockerDeploymentRetentionPolicy policy, long now) 
+            throws IOException {
+        synchronized (getFingerprint()) { // Fingerprint.save() holds the same monitor
+            return doApplyRetention(policy, now);
+        }
+    }
+    
+    private synchronized boolean doApplyRetention(@Nonnull DockerDeploymentRetentionPolicy policy, long now) 
+            throws IOException {
+        if (!policy.isEnabled() || !removeExpired(policy, now)) {
+            return false;
+        }
+        FingerprintSaveQueue.save(getFingerprint());
+        return true;
+    }
+    
+    /**
+     * Deletes the journal of the facet, e.g. if the container has been removed.
+     * The latest record is being kept within the fingerprint.
+     * @throws IOException Cannot delete the journal
+     * @since 1.3
+     */
+    public void deleteJournal() throws IOException {
+        synchronized (getFingerprint()) { // Fingerprint.save() holds the same monitor
+            doDeleteJournal();
+        }
+    }
+    
+    private synchronized void doDeleteJournal() throws IOException {
+        if (!journaled) {
+            return;
+        }
+        getJournal().delete();
+        if (latest != null) { // Journal entries are self-contained
+            deploymentRecords.add(latest);
+        }
+        journaled = false;
+        journalSize = 0;
+        latest = null;
+        latestOffset = null;
+        previousInspectTime = null;
+        imageId = null;
+        imageIdTime = 0;
+        lastStatus = null;
+        lastStatusTime = 0;
+        journalCache = null;
+        lastStatusCache = null;
+        deltasLinked = false;
+        FingerprintSaveQueue.save(getFingerprint());
+    }
+    
+    /**
+     * Removes expired records without saving the fingerprint.
+     */
+    private boolean removeExpired(@Nonnull DockerDeploymentRetentionPolicy policy, long now) throws IOException {
+        final NavigableSet<DockerContainerRecord> records = records();
+        final List<DockerContainerRecord> expired = policy.selectExpired(records, now);
+        if (expired.isEmpty()) {
+            return false;
+        }
+        
+        if (!journaled) { // Records must not depend on the removed ones
+            final Set<DockerContainerRecord> removed = new HashSet<DockerContainerRecord>(expired);
+            DockerContainerRecord previous = null;
+            for (DockerContainerRecord record : records) {
+                if (previous != null && removed.contains(previous) && !removed.contains(record)) {
+                    record.materialize();
+                }
+                previous = record;
+            }
+        }
+        records.removeAll(expired);
+        linkDeltas();
+        lastStatusCache = null;
+        if (journaled) {
+            getJournal().rewrite(records);
+            journalSize = records.size();
+            latestOffset = null;
+            previousInspectTime = findPreviousInspectTime(records);
+        }
+        return true;
+    }
+    
+    /**
+     * Moves records from the fingerprint to the journal.
+     * The fingerprint should be saved by the caller.
+     */
+    private void migrateToJournal() throws IOException {
+        final DockerDeploymentJournal journal = getJournal();
+        if (journal.exists() && !journal.getFile().delete()) { // Remainder of the interrupted migration
+            throw new IOException("Cannot delete the stale journal " + journal.getFile());
+        }
+        for (DockerContainerRecord record : deploymentRecords) { // Journal entries are self-contained
+            record.materialize();
+        }
+        journal.append(deploymentRecords);
+        
+        for (DockerContainerRecord record : deploymentRecords) {
+            updateHeader(record);
+        }
+        journalSize = deploymentRecords.size();
+        latestOffset = null;
+        previousInspectTime = findPreviousInspectTime(records());
+        journalCache = new SoftReference<NavigableSet<DockerContainerRecord>>(
+                new TreeSet<DockerContainerRecord>(deploymentRecords));
+        deploymentRecords.clear();
+        journaled = true;
+    }
+    
+    private void updateHeader(@Nonnull DockerContainerRecord r) {
+        final long time = r.getTime();
+        if (latest == null || TIME_COMPARATOR.compare(r, latest) > 0) {
+            latest = r;
+        }
+        
+        final String recordImageId = r.getImageId();
+        if (recordImageId != null && (imageId == null || time < imageIdTime)) {
+            imageId = recordImageId;
+            imageIdTime = time;
         }
-        deploymentRecords.add(r);
-        getFingerprint().save();
+        
+        final String recordStatus = r.getEvent().getStatus();
+        if (DockerEventType.fromString(recordStatus) != DockerEventType.NONE 
+                && (lastStatus == null || time >= lastStatusTime)) {
+            lastStatus = recordStatus.toUpperCase(Locale.ENGLISH);
+            lastStatusTime = time;
+        }
+    }
+    
+    /**
+     * Stores the container info of the new record as a delta against the previous record.
+     * The record should not be added to the facet yet.
+     * @param r New record
+     */
+    private void encodeDelta(@Nonnull DockerContainerRecord r) throws IOException {
+        final NavigableSet<DockerContainerRecord> records = records();
+        
+        // The next record will have another base
+        final DockerContainerRecord next = records.higher(r);
+        if (next != null) {
+            next.materialize();
+        }
+        
+        final DockerContainerRecord previous = records.lower(r);
+        if (DELTA_KEYFRAME_INTERVAL > 1 && previous != null 
+                && previous.getDeltaChainLength() + 1 < DELTA_KEYFRAME_INTERVAL) {
+            r.encodeDelta(previous);
+        }
+    }
+    
+    /**
+     * Restores delta bases of the records.
+     * Each delta record refers the previous one.
+     */
+    private void linkDeltas() {
+        DockerContainerRecord previous = null;
+        for (DockerContainerRecord record : deploymentRecords) {
+            if (record.isDelta()) {
+                record.setDeltaBase(previous);
+            }
+            previous = record;
+        }
+        deltasLinked = true;
+    }
+    
+    private @Nonnull DockerDeploymentJournal getJournal() throws IOException {
+        return DockerDeploymentJournal.forFingerprint(getFingerprint().getHashString());
+    }
+    
+    private @CheckForNull NavigableSet<DockerContainerRecord> getJournalCache() {
+        return journalCache != null ? journalCache.get() : null;
+    }
+    
+    /**
+     * Gets all records of the facet.
+     * Journaled records will be loaded on-demand.
+     * @return Modifiable set of records
+     * @throws IOException Cannot read the journal
+     */
+    private @Nonnull NavigableSet<DockerContainerRecord> records() throws IOException {
+        if (!journaled) {
+            if (!deltasLinked) {
+                linkDeltas();
+            }
+            // Always a TreeSet, the declared type is retained for the XStream compatibility
+            return (NavigableSet<DockerContainerRecord>) deploymentRecords;
+        }
+        
+        NavigableSet<DockerContainerRecord> cached = getJournalCache();
+        if (cached == null) {
+            cached = new TreeSet<DockerContainerRecord>(TIME_COMPARATOR);
+            cached.addAll(getJournal().read());
+            journalCache = new SoftReference<NavigableSet<DockerContainerRecord>>(cached);
+        }
+        return cached;
+    }
+    
+    /**
+     * Gets the time of the latest inspect record before {@link #latest}.
+     * The journal is being loaded only if the time is unknown.
+     */
+    private long getPreviousInspectTime() throws IOException {
+        Long time = previousInspectTime;
+        if (time == null) {
+            time = findPreviousInspectTime(records());
+            previousInspectTime = time;
+        }
+        return time;
+    }
+    
+    private static long findPreviousInspectTime(@Nonnull NavigableSet<DockerContainerRecord> records) {
+        if (!records.isEmpty()) {
+            for (DockerContainerRecord record : records.headSet(records.last(), false).descendingSet()) {
+                if (DockerDeploymentRetentionPolicy.isInspect(record)) {
+                    return record.getTime();
+                }
+            }
+        }
+        return Long.MIN_VALUE;
     }
     
     public synchronized @Nonnull SortedSet<DockerContainerRecord> getDeploymentRecords() {
-        return Collections.unmodifiableSortedSet(deploymentRecords);
+        return Collections.unmodifiableSortedSet(recordsOrEmpty());
+    }
+    
+    /**
+     * Gets records within the specified time range.
+     * The method returns a view of the stored records, so the range is being 
+     * located in O(log n) without iterating over other records.
+     * @param since Starting time in seconds (inclusive). 
+     *      Use {@link Long#MIN_VALUE} to get all records before {@code until}
+     * @param until End time in seconds (inclusive).
+     *      Use {@link Long#MAX_VALUE} to get all records after {@code since}
+     * @return Unmodifiable view of records sorted by time
+     * @since 1.3
+     */
+    public synchronized @Nonnull SortedSet<DockerContainerRecord> getDeploymentRecords(long since, long until) {
+        return Collections.unmodifiableSortedSet(range(since, until));
+    }
+    
+    /**
+     * Gets a chunk of records within the specified time range.
+     * Records are being copied under the facet lock, so the caller may process 
+     * them without blocking modifications of the facet. 
+     * The whole range can be walked chunk-by-chunk by passing the last record 
+     * of the previous chunk as {@code after}.
+     * @param since Starting time in seconds (inclusive)
+     * @param until End time in seconds (inclusive)
+     * @param after Last record of the previous chunk. 
+     *      If null, the chunk starts from the beginning of the range
+     * @param descending If {@code true}, the newest records go first
+     * @param maxCount Maximum number of records in the chunk
+     * @return Records in the requested order. Empty if there are no more records
+     * @since 1.3
+     */
+    public synchronized @Nonnull List<DockerContainerRecord> getDeploymentRecords(long since, long until, 
+            @CheckForNull DockerContainerRecord after, boolean descending, int maxCount) {
+        NavigableSet<DockerContainerRecord> range = range(since, until);
+        if (descending) {
+            range = range.descendingSet();
+        }
+        if (after != null) {
+            range = range.tailSet(after, false);
+        }
+        final List<DockerContainerRecord> res = new ArrayList<DockerContainerRecord>(Math.min(maxCount, 16));
+        for (DockerContainerRecord record : range) {
+            if (res.size() >= maxCount) {
+                break;
+            }
+            res.add(record);
+        }
+        return res;
+    }
+    
+    private @Nonnull NavigableSet<DockerContainerRecord> range(long since, long until) {
+        if (since > until) {
+            return new TreeSet<DockerContainerRecord>(TIME_COMPARATOR);
+        }
+        NavigableSet<DockerContainerRecord> range = recordsOrEmpty();
+        if (since != Long.MIN_VALUE) {
+            range = range.tailSet(DockerContainerRecord.searchKey(since), true);
+        }
+        if (until != Long.MAX_VALUE) {
+            range = range.headSet(DockerContainerRecord.searchKey(until + 1), false);
+        }
+        return range;
+    }
+    
+    /**
+     * Gets the record, which has been in effect at the specified time.
+     * @param time Time in seconds
+     * @return The latest record with the time lower or equal to the specified one.
+     *      Null if there is no such record
+     * @since 1.3
+     */
+    public synchronized @CheckForNull DockerContainerRecord getRecordAt(long time) {
+        final NavigableSet<DockerContainerRecord> records = recordsOrEmpty();
+        if (records.isEmpty()) {
+            return null;
+        }
+        return (time == Long.MAX_VALUE) ? records.last() 
+                : records.lower(DockerContainerRecord.searchKey(time + 1));
+    }
+    
+    private @Nonnull NavigableSet<DockerContainerRecord> recordsOrEmpty() {
+        try {
+            return records();
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Cannot read the deployment journal of " + getFingerprint().getHashString(), ex);
+            return new TreeSet<DockerContainerRecord>(TIME_COMPARATOR);
+        }
     }
 
     public synchronized @CheckForNull DockerContainerRecord getLatest() {
+        if (journaled) {
+            return latest;
+        }
+        if (!deltasLinked) {
+            linkDeltas();
+        }
         return (deploymentRecords.isEmpty()) ? null : deploymentRecords.last();
     }
 
@@ -78,8 +580,11 @@ public class DockerDeploymentFacet extends DockerFingerprintFacet {
      * @return Commonly a {@code non-null} value, but may be {@code null} in corner-cases
      */
     public synchronized @CheckForNull String getImageId() {
+        if (journaled) {
+            return imageId;
+        }
         for (DockerContainerRecord record : deploymentRecords) {
-            String imageId = record.getReport().getImageId();
+            String imageId = record.getImageId();
             if (imageId != null) {
                 return imageId;
             }
@@ -92,15 +597,22 @@ public class DockerDeploymentFacet extends DockerFingerprintFacet {
      * @return Status string
      */
     public synchronized @Nonnull String getLastStatus() {
-        String lastStatus = null;
+        if (journaled) {
+            return (lastStatus != null) ? lastStatus : DockerEventType.UNKNOWN.toString();
+        }
+        if (lastStatusCache != null) {
+            return lastStatusCache;
+        }
+        String status = null;
         for (DockerContainerRecord record : deploymentRecords) {
-            String recordStatus = record.getReport().getEvent().getStatus();
-            DockerEventType status = DockerEventType.fromString(recordStatus);
-            if (status != DockerEventType.NONE) { // Yes, we accept Unknown statuses frow new Docker versions
-                lastStatus = recordStatus.toUpperCase(Locale.ENGLISH);
+            String recordStatus = record.getEvent().getStatus();
+            DockerEventType eventType = DockerEventType.fromString(recordStatus);
+            if (eventType != DockerEventType.NONE) { // Yes, we accept Unknown statuses frow new Docker versions
+                status = recordStatus.toUpperCase(Locale.ENGLISH);
             }
         }
-        return (lastStatus != null) ? lastStatus : DockerEventType.UNKNOWN.toString();
+        lastStatusCache = (status != null) ? status : DockerEventType.UNKNOWN.toString();
+        return lastStatusCache;
     }
     
     private DockerDeploymentFacet(@Nonnull Fingerprint fingerprint) {
@@ -137,9 +649,64 @@ public class DockerDeploymentFacet extends DockerFingerprintFacet {
     
     public static DockerDeploymentFacet addEvent(@Nonnull Fingerprint fingerprint, @Nonnull DockerTraceabilityReport event) 
             throws IOException {    
-        DockerDeploymentFacet facet = getOrCreate(fingerprint);
+        DockerDeploymentFacet facet;
+        synchronized (fingerprint) {
+            facet = DockerFingerprints.getFacet(fingerprint, DockerDeploymentFacet.class);
+            if (facet == null) { // The fingerprint will be saved by add()
+                facet = new DockerDeploymentFacet(fingerprint);
+                fingerprint.getFacets().add(facet);
+            }
+        }
         facet.add(new DockerContainerRecord(event));
-        fingerprint.save();
         return facet;
     }
+    
+    /**
+     * Deletes journals, which have been orphaned by the fingerprint cleanup.
+     */
+    @Extension
+    public static class JournalCleanupWork extends AsyncPeriodicWork {
+
+        public JournalCleanupWork() {
+            super("Docker Traceability journal cleanup");
+        }
+
+        @Override
+        public long getRecurrencePeriod() {
+            return DAY;
+        }
+
+        @Override
+        protected void execute(TaskListener listener) throws IOException, InterruptedException {
+            final Jenkins j = Jenkins.getInstance();
+            if (j == null) {
+                return;
+            }
+            
+            // Fingerprints of new containers may be saved with a delay
+            final long maxModified = System.currentTimeMillis() - HOUR;
+            int deleted = 0;
+            final File[] dirs1 = new File(j.getRootDir(), "fingerprints").listFiles();
+            for (File dir1 : dirs1 != null ? dirs1 : new File[0]) {
+                final File[] dirs2 = dir1.listFiles();
+                for (File dir2 : dirs2 != null ? dirs2 : new File[0]) {
+                    final File[] files = dir2.listFiles();
+                    for (File file : files != null ? files : new File[0]) {
+                        final String name = file.getName();
+                        final int suffix = name.indexOf(".journal");
+                        if (suffix == -1 || file.lastModified() > maxModified
+                                || new File(dir2, name.substring(0, suffix) + ".xml").exists()) {
+                            continue;
+                        }
+                        if (file.delete()) {
+                            deleted++;
+                        } else {
+                            LOGGER.log(Level.WARNING, "Cannot delete the orphaned journal {0}", file);
+                        }
+                    }
+                }
+            }
+            listener.getLogger().println("Deleted " + deleted + " orphaned journals");
+        }
+    }
 }
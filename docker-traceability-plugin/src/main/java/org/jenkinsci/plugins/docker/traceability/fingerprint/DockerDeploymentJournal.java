@@ -0,0 +1,296 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.fingerprint;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import javax.annotation.Nonnull;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPlugin;
+import org.jenkinsci.plugins.docker.traceability.api.DockerTraceabilityReport;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityCodecs;
+import org.jenkinsci.plugins.docker.traceability.util.FingerprintsHelper;
+
+/**
+ * Append-only journal of {@link DockerContainerRecord}s.
+ * The journal is being stored next to the fingerprint XML file.
+ * Each entry contains the length of the payload, its CRC32 checksum and
+ * the {@link DockerTraceabilityReport} in the JSON format.
+ * A truncated or corrupted tail is being cut off on reading, so new entries
+ * can be appended after the last valid one. Other unreadable entries are being skipped.
+ */
+final class DockerDeploymentJournal {
+    
+    private final static Logger LOGGER = Logger.getLogger(DockerTraceabilityPlugin.class.getName());
+    
+    /**
+     * Maximum size of a single entry. Larger lengths indicate a corrupted journal.
+     */
+    private static final int MAX_ENTRY_SIZE = 64 * 1024 * 1024;
+    
+    private static final DockerContainerRecord.TimeComparator TIME_COMPARATOR = 
+            new DockerContainerRecord.TimeComparator();
+    
+    private final @Nonnull File file;
+
+    DockerDeploymentJournal(@Nonnull File file) {
+        this.file = file;
+    }
+    
+    /**
+     * Gets the journal for the fingerprint.
+     * @param fingerprintHash MD5 hash of the fingerprint
+     * @return Journal, which is located next to the fingerprint XML
+     * @throws IOException Jenkins instance is not ready
+     */
+    static @Nonnull DockerDeploymentJournal forFingerprint(@Nonnull String fingerprintHash) throws IOException {
+        final Jenkins j = Jenkins.getInstance();
+        if (j == null) {
+            throw new IOException("Jenkins instance is not ready, cannot retrieve the root directory");
+        }
+        final File xml = FingerprintsHelper.getFingerprintFile(j, fingerprintHash);
+        return new DockerDeploymentJournal(new File(xml.getParentFile(), fingerprintHash.substring(4) + ".journal"));
+    }
+
+    @Nonnull File getFile() {
+        return file;
+    }
+    
+    boolean exists() {
+        return file.exists();
+    }
+    
+    /**
+     * Appends records to the journal.
+     * @param records Records to be appended
+     * @throws IOException Write error
+     */
+    void append(@Nonnull Collection<DockerContainerRecord> records) throws IOException {
+        write(file, records, true);
+    }
+    
+    /**
+     * Replaces the journal contents.
+     * The new journal is being written to a temporary file, which then replaces the original one.
+     * @param records Records to be stored
+     * @throws IOException Write error
+     */
+    void rewrite(@Nonnull Collection<DockerContainerRecord> records) throws IOException {
+        final File tmp = new File(file.getPath() + ".tmp");
+        write(tmp, records, false);
+        if (!tmp.renameTo(file)) { // Windows does not replace existing files
+            if (!file.delete() || !tmp.renameTo(file)) {
+                throw new IOException("Cannot replace the journal " + file + " by " + tmp);
+            }
+        }
+    }
+    
+    private static void write(@Nonnull File target, @Nonnull Collection<DockerContainerRecord> records, 
+            boolean append) throws IOException {
+        final File parent = target.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Cannot create the journal directory " + parent);
+        }
+        
+        final DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(target, append)));
+        try {
+            final CRC32 crc = new CRC32();
+            for (DockerContainerRecord record : records) {
+                final byte[] payload = DockerTraceabilityCodecs.writer().writeValueAsBytes(record.getReport());
+                crc.reset();
+                crc.update(payload);
+                out.writeInt(payload.length);
+                out.writeInt((int) crc.getValue());
+                out.write(payload);
+            }
+        } finally {
+            out.close();
+        }
+    }
+    
+    /**
+     * Deletes the journal file.
+     * @throws IOException The journal cannot be deleted
+     */
+    void delete() throws IOException {
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Cannot delete the journal " + file);
+        }
+    }
+    
+    /**
+     * Reads all records from the journal.
+     * Entries, which cannot be deserialized, are being skipped.
+     * A truncated tail or a tail with a wrong length or checksum will be removed.
+     * @return List of records in the order of writing
+     * @throws IOException Read error
+     */
+    @Nonnull List<DockerContainerRecord> read() throws IOException {
+        final List<DockerContainerRecord> res = new ArrayList<DockerContainerRecord>();
+        if (!file.exists()) {
+            return res;
+        }
+        
+        final long fileLength = file.length();
+        long validLength = 0;
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            final CRC32 crc = new CRC32();
+            while (true) {
+                final int length, checksum;
+                final byte[] payload;
+                try {
+                    length = in.readInt();
+                } catch (EOFException ex) {
+                    break; // End of the journal
+                }
+                
+                try {
+                    checksum = in.readInt();
+                    if (length < 0 || length > MAX_ENTRY_SIZE) {
+                        // Entry boundaries are lost, the remaining data cannot be read
+                        LOGGER.log(Level.WARNING, "Journal {0} has a wrong entry length {1} after {2} records. "
+                                + "The remaining data will be discarded", new Object[] {file, length, res.size()});
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException ex) {
+                    LOGGER.log(Level.WARNING, "Journal {0} is truncated after {1} records. "
+                            + "The incomplete entry will be discarded", new Object[] {file, res.size()});
+                    break;
+                }
+                
+                final long entryEnd = validLength + 8 + length;
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    if (entryEnd >= fileLength) {
+                        LOGGER.log(Level.WARNING, "Journal {0} has a checksum mismatch in the last entry. "
+                                + "The entry will be discarded", file);
+                        break;
+                    }
+                    LOGGER.log(Level.WARNING, "Journal {0} has a checksum mismatch in the entry #{1}. "
+                            + "The entry will be skipped", new Object[] {file, res.size()});
+                    validLength = entryEnd;
+                    continue;
+                }
+                
+                validLength = entryEnd;
+                try {
+                    final DockerTraceabilityReport report = DockerTraceabilityCodecs.reportReader().readValue(payload);
+                    res.add(new DockerContainerRecord(report));
+                } catch (IOException ex) {
+                    LOGGER.log(Level.WARNING, "Cannot deserialize an entry of the journal " + file 
+                            + " after " + res.size() + " records. The entry will be skipped", ex);
+                }
+            }
+        } finally {
+            in.close();
+        }
+        
+        if (validLength != fileLength) { // Truncated or corrupted tail
+            truncate(validLength);
+        }
+        return res;
+    }
+    
+    /**
+     * Gets the current length of the journal.
+     * The value can be used as an offset of the next appended entry.
+     * @return Length of the journal file in bytes, 0 if it does not exist
+     */
+    long length() {
+        return file.length();
+    }
+    
+    /**
+     * Removes entries starting from the specified offset.
+     * @param offset Offset of the first entry to be removed
+     * @throws IOException Write error
+     */
+    void truncate(long offset) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(offset);
+        } finally {
+            raf.close();
+        }
+    }
+    
+    /**
+     * Removes the last entry if it starts at the specified offset and contains the expected record.
+     * Otherwise the journal is not being modified, so a stale offset never cuts off valid entries.
+     * @param offset Offset of the last entry
+     * @param expected Record, which is expected in the entry. Records are being compared by time and status
+     * @return true if the entry has been removed
+     * @throws IOException Read or write error
+     */
+    boolean truncateLast(long offset, @Nonnull DockerContainerRecord expected) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            final long fileLength = raf.length();
+            if (offset < 0 || offset + 8 > fileLength) {
+                return false;
+            }
+            raf.seek(offset);
+            final int length = raf.readInt();
+            raf.readInt(); // Checksum, the payload is being verified by the deserialization
+            if (length < 0 || offset + 8 + length != fileLength) {
+                return false;
+            }
+            final byte[] payload = new byte[length];
+            raf.readFully(payload);
+            final DockerContainerRecord actual;
+            try {
+                actual = new DockerContainerRecord(
+                        DockerTraceabilityCodecs.reportReader().<DockerTraceabilityReport>readValue(payload));
+            } catch (IOException ex) {
+                return false;
+            }
+            if (TIME_COMPARATOR.compare(actual, expected) != 0) {
+                return false;
+            }
+            raf.setLength(offset);
+            return true;
+        } finally {
+            raf.close();
+        }
+    }
+}
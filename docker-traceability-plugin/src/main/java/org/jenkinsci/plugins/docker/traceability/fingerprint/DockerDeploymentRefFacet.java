@@ -33,6 +33,7 @@ import javax.annotation.Nonnull;
 import jenkins.model.FingerprintFacet;
 import org.jenkinsci.plugins.docker.traceability.core.DockerTraceabilityHelper;
 import org.jenkinsci.plugins.docker.traceability.model.DockerEventType;
+import org.jenkinsci.plugins.docker.traceability.util.FingerprintSaveQueue;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
 
@@ -74,8 +75,8 @@ public class DockerDeploymentRefFacet extends FingerprintFacet {
                 ? deploymentFacet.getLastStatus() : DockerEventType.UNKNOWN.toString();
     }
 
-    private synchronized void addRef(@Nonnull String containerId) {
-        containerIds.add(containerId);
+    private synchronized boolean addRef(@Nonnull String containerId) {
+        return containerIds.add(containerId);
     }
 
     public static @Nonnull DockerDeploymentRefFacet getOrCreate(@Nonnull Fingerprint fingerprint, long timestamp) throws IOException {  
@@ -95,9 +96,26 @@ public class DockerDeploymentRefFacet extends FingerprintFacet {
     
     public static DockerDeploymentRefFacet addRef(@Nonnull Fingerprint fingerprint, @Nonnull String containerId) 
             throws IOException {    
-        DockerDeploymentRefFacet facet = getOrCreate(fingerprint, new Date().getTime());
-        facet.addRef(containerId);
-        fingerprint.save();
+        DockerDeploymentRefFacet facet = null;
+        final boolean added;
+        synchronized (fingerprint) { // Fingerprint.save() holds the same monitor
+            for (FingerprintFacet existing : fingerprint.getFacets()) {
+                if (existing instanceof DockerDeploymentRefFacet) {
+                    facet = (DockerDeploymentRefFacet) existing;
+                    break;
+                }
+            }
+            if (facet == null) { // The fingerprint will be saved below
+                facet = new DockerDeploymentRefFacet(fingerprint, new Date().getTime());
+                fingerprint.getFacets().add(facet);
+            }
+            added = facet.addRef(containerId);
+        }
+        
+        // Save only if there is a new reference
+        if (added) {
+            FingerprintSaveQueue.save(fingerprint);
+        }
         return facet;
     }
 }
@@ -0,0 +1,297 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.fingerprint;
+
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.TaskListener;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPlugin;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPluginConfiguration;
+import org.jenkinsci.plugins.docker.traceability.core.DockerTraceabilityRootAction;
+import org.jenkinsci.plugins.docker.traceability.model.DockerEventType;
+
+/**
+ * Retention policy for {@link DockerDeploymentFacet} records.
+ * The policy is being applied incrementally on new records and by a periodic
+ * background sweep over registered containers.
+ * The latest stored record of the container is always retained, but new
+ * records older than the maximum age are not being stored at all.
+ * All times are specified in seconds since January 1, 1970, 00:00:00 GMT
+ * like event times.
+ * @see DockerTraceabilityPluginConfiguration
+ * @since 1.3
+ */
+public class DockerDeploymentRetentionPolicy {
+    
+    private final static Logger LOGGER = Logger.getLogger(DockerTraceabilityPlugin.class.getName());
+    
+    private static final DockerDeploymentRetentionPolicy DISABLED = new DockerDeploymentRetentionPolicy(0, 0, 0);
+    
+    private static final DockerContainerRecord.TimeComparator TIME_COMPARATOR = 
+            new DockerContainerRecord.TimeComparator();
+    
+    private final int maxRecords;
+    private final long maxAgeSec;
+    private final long inspectIntervalSec;
+
+    /**
+     * Constructor.
+     * @param maxRecords Maximum number of records per container. 0 - unlimited
+     * @param maxAgeSec Maximum age of records. 0 - unlimited
+     * @param inspectIntervalSec Minimal interval between inspect records. 0 - keep all
+     */
+    public DockerDeploymentRetentionPolicy(int maxRecords, long maxAgeSec, long inspectIntervalSec) {
+        this.maxRecords = maxRecords;
+        this.maxAgeSec = maxAgeSec;
+        this.inspectIntervalSec = inspectIntervalSec;
+    }
+    
+    public static @Nonnull DockerDeploymentRetentionPolicy forConfiguration(
+            @Nonnull DockerTraceabilityPluginConfiguration configuration) {
+        final DockerTraceabilityPluginConfiguration.RetentionSettings retention = configuration.getRetention();
+        return new DockerDeploymentRetentionPolicy(retention.getMaxRecordsPerContainer(), 
+                TimeUnit.DAYS.toSeconds(retention.getMaxRecordAgeDays()), 
+                TimeUnit.MINUTES.toSeconds(retention.getInspectIntervalMinutes()));
+    }
+    
+    /**
+     * Gets the policy for the current plugin configuration.
+     * @return Retention policy. Disabled policy if the plugin is not loaded
+     */
+    public static @Nonnull DockerDeploymentRetentionPolicy getCurrent() {
+        final DockerTraceabilityPlugin plugin;
+        try {
+            plugin = DockerTraceabilityPlugin.getInstance();
+        } catch (IllegalStateException ex) { // Jenkins is not ready
+            return DISABLED;
+        }
+        return forConfiguration(plugin.getConfiguration());
+    }
+
+    public int getMaxRecords() {
+        return maxRecords;
+    }
+    
+    public boolean isEnabled() {
+        return maxRecords > 0 || maxAgeSec > 0 || inspectIntervalSec > 0;
+    }
+    
+    /**
+     * Checks if the record does not change the container status.
+     * Such records are being submitted periodically, hence they can be downsampled.
+     * @param record Record to be checked
+     * @return true for {@link DockerEventType#NONE} and {@link DockerEventType#INSPECT_CONTAINER}
+     */
+    public static boolean isInspect(@Nonnull DockerContainerRecord record) {
+        final DockerEventType type = DockerEventType.fromString(record.getEvent().getStatus());
+        return type == DockerEventType.NONE || type == DockerEventType.INSPECT_CONTAINER;
+    }
+    
+    private static long getTime(@Nonnull DockerContainerRecord record) {
+        return record.getTime();
+    }
+    
+    /**
+     * Checks if the new record should be rejected before the storing.
+     * @param records Existing records of the container
+     * @param record New record
+     * @param now Current time
+     * @return true if the record violates the policy
+     */
+    public boolean isRejected(@Nonnull NavigableSet<DockerContainerRecord> records, 
+            @Nonnull DockerContainerRecord record, long now) {
+        if (isRejectedLatest(record, now)) {
+            return true;
+        }
+        
+        if (records.isEmpty() || TIME_COMPARATOR.compare(record, records.last()) > 0) {
+            // The latest record must be stored anyway
+            return false;
+        }
+        return inspectIntervalSec > 0 && isInspect(record) 
+                && hasInspectWithinInterval(records.headSet(record, false), getTime(record));
+    }
+    
+    /**
+     * Checks if the new record, which is newer than all existing records, should be rejected.
+     * Unlike {@link #isRejected(NavigableSet, DockerContainerRecord, long)}, 
+     * this method does not need existing records.
+     * @param record New record
+     * @param now Current time
+     * @return true if the record violates the policy
+     * @since 1.3
+     */
+    public boolean isRejectedLatest(@Nonnull DockerContainerRecord record, long now) {
+        return maxAgeSec > 0 && getTime(record) < now - maxAgeSec;
+    }
+    
+    /**
+     * Selects the record, which expires once the new record is stored.
+     * The latest inspect record is being stored regardless of the interval.
+     * If the new record becomes the latest one, the previous latest inspect record 
+     * is being expired if there is another inspect record within its interval.
+     * @param records Existing records of the container
+     * @param record New record, which has been accepted by {@link #isRejected}
+     * @return Record to be removed or {@code null} if there is no such record
+     * @since 1.3
+     */
+    public @CheckForNull DockerContainerRecord selectReplaced(
+            @Nonnull NavigableSet<DockerContainerRecord> records, @Nonnull DockerContainerRecord record) {
+        if (inspectIntervalSec <= 0 || records.isEmpty()) {
+            return null;
+        }
+        
+        final DockerContainerRecord previous = records.last();
+        if (TIME_COMPARATOR.compare(record, previous) <= 0 || !isInspect(previous)) {
+            return null;
+        }
+        return hasInspectWithinInterval(records.headSet(previous, false), getTime(previous)) ? previous : null;
+    }
+    
+    /**
+     * Checks if the latest record expires once a newer record is stored.
+     * It is an equivalent of {@link #selectReplaced(NavigableSet, DockerContainerRecord)}, 
+     * which needs only the time of the previous inspect record instead of all records.
+     * @param latest Current latest record of the container
+     * @param previousInspectTime Time of the latest inspect record before {@code latest}.
+     *      {@link Long#MIN_VALUE} if there is no such record
+     * @return true if {@code latest} should be removed
+     * @since 1.3
+     */
+    public boolean isReplaced(@Nonnull DockerContainerRecord latest, long previousInspectTime) {
+        return inspectIntervalSec > 0 && isInspect(latest) && previousInspectTime != Long.MIN_VALUE
+                && previousInspectTime > getTime(latest) - inspectIntervalSec;
+    }
+    
+    /**
+     * Checks if there is an inspect record within the interval before the specified time.
+     * @param earlier Records before the specified time
+     * @param time Time in seconds
+     */
+    private boolean hasInspectWithinInterval(@Nonnull NavigableSet<DockerContainerRecord> earlier, long time) {
+        for (DockerContainerRecord previous : earlier.descendingSet()) {
+            if (getTime(previous) <= time - inspectIntervalSec) {
+                break;
+            }
+            if (isInspect(previous)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Selects records to be removed.
+     * @param records Records of the container
+     * @param now Current time
+     * @return List of records, which violate the policy
+     */
+    public @Nonnull List<DockerContainerRecord> selectExpired(
+            @Nonnull NavigableSet<DockerContainerRecord> records, long now) {
+        final List<DockerContainerRecord> expired = new ArrayList<DockerContainerRecord>();
+        if (records.size() <= 1 || !isEnabled()) {
+            return expired;
+        }
+        
+        final DockerContainerRecord latest = records.last();
+        final LinkedList<DockerContainerRecord> retained = new LinkedList<DockerContainerRecord>();
+        long lastInspectTime = Long.MIN_VALUE;
+        for (DockerContainerRecord record : records.headSet(latest, false)) {
+            final long time = getTime(record);
+            if (maxAgeSec > 0 && time < now - maxAgeSec) {
+                expired.add(record);
+            } else if (inspectIntervalSec > 0 && isInspect(record)) {
+                if (lastInspectTime != Long.MIN_VALUE && time - lastInspectTime < inspectIntervalSec) {
+                    expired.add(record);
+                } else {
+                    lastInspectTime = time;
+                    retained.add(record);
+                }
+            } else {
+                retained.add(record);
+            }
+        }
+        
+        if (maxRecords > 0) {
+            final Iterator<DockerContainerRecord> it = retained.iterator();
+            for (int toRemove = retained.size() + 1 - maxRecords; toRemove > 0 && it.hasNext(); toRemove--) {
+                expired.add(it.next());
+            }
+        }
+        return expired;
+    }
+    
+    /**
+     * Applies the retention policy to all registered containers.
+     */
+    @Extension
+    public static class SweepWork extends AsyncPeriodicWork {
+
+        public SweepWork() {
+            super("Docker Traceability retention sweep");
+        }
+
+        @Override
+        public long getRecurrencePeriod() {
+            return HOUR;
+        }
+
+        @Override
+        protected void execute(TaskListener listener) throws IOException, InterruptedException {
+            final DockerDeploymentRetentionPolicy policy = getCurrent();
+            final DockerTraceabilityRootAction action = DockerTraceabilityRootAction.getInstance();
+            if (!policy.isEnabled() || action == null) {
+                return;
+            }
+            
+            final long now = System.currentTimeMillis() / 1000;
+            int modified = 0;
+            for (String containerId : action.getContainerIDs()) {
+                final DockerDeploymentFacet facet = DockerDeploymentFacet.getDeploymentFacet(containerId);
+                if (facet == null) {
+                    continue;
+                }
+                try {
+                    if (facet.applyRetention(policy, now)) {
+                        modified++;
+                    }
+                } catch (IOException ex) {
+                    LOGGER.log(Level.WARNING, "Cannot apply the retention policy to the container " + containerId, ex);
+                }
+            }
+            listener.getLogger().println("Retention policy has been applied to " + modified + " containers");
+        }
+    }
+}
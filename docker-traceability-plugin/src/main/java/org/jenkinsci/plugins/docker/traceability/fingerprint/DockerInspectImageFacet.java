@@ -30,6 +30,7 @@ import javax.annotation.Nonnull;
 import jenkins.model.FingerprintFacet;
 import org.jenkinsci.plugins.docker.commons.fingerprint.DockerFingerprintFacet;
 import org.jenkinsci.plugins.docker.traceability.dockerjava.api.command.InspectImageResponse;
+import org.jenkinsci.plugins.docker.traceability.util.FingerprintSaveQueue;
 import org.jenkinsci.plugins.docker.traceability.util.FingerprintsHelper;
 
 /**
@@ -100,14 +101,16 @@ public class DockerInspectImageFacet extends DockerFingerprintFacet {
      */
     public static void updateData(@Nonnull Fingerprint fingerprint, long reportTimeInSeconds, 
             @Nonnull InspectImageResponse data, @CheckForNull String imageName) throws IOException {       
-        DockerInspectImageFacet facet = FingerprintsHelper.getFacet(fingerprint, 
-                DockerInspectImageFacet.class);
-        if (facet == null) {
-            facet = new DockerInspectImageFacet(fingerprint, reportTimeInSeconds, data, imageName);
-            fingerprint.getFacets().add(facet);
-        } else {
-           facet.updateData(data, reportTimeInSeconds, imageName);
+        synchronized (fingerprint) { // Fingerprint.save() holds the same monitor
+            DockerInspectImageFacet facet = FingerprintsHelper.getFacet(fingerprint, 
+                    DockerInspectImageFacet.class);
+            if (facet == null) {
+                facet = new DockerInspectImageFacet(fingerprint, reportTimeInSeconds, data, imageName);
+                fingerprint.getFacets().add(facet);
+            } else {
+               facet.updateData(data, reportTimeInSeconds, imageName);
+            }
         }
-        fingerprint.save();
+        FingerprintSaveQueue.save(fingerprint);
     }
 }
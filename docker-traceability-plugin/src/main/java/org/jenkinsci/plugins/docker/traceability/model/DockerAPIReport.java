@@ -32,8 +32,8 @@ import java.util.List;
 import java.util.Map;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
-import org.jenkinsci.plugins.docker.commons.fingerprint.DockerFingerprints;
 import org.jenkinsci.plugins.docker.traceability.api.DockerTraceabilityReport;
+import org.jenkinsci.plugins.docker.traceability.core.DockerContainerIndex;
 import org.jenkinsci.plugins.docker.traceability.core.DockerTraceabilityHelper;
 import org.jenkinsci.plugins.docker.traceability.dockerjava.api.command.InspectContainerResponse;
 import org.jenkinsci.plugins.docker.traceability.dockerjava.api.command.InspectContainerResponse.ContainerState;
@@ -78,13 +78,34 @@ public class DockerAPIReport {
         private final @CheckForNull String id;
         private final @CheckForNull String name;
         private final @CheckForNull String created;
-        private final @CheckForNull FingerprintRef fingerprint;
+        private @CheckForNull FingerprintRef fingerprint;
+        private boolean fingerprintResolved;
 
         public Item(String id, String name, String created, @CheckForNull Fingerprint fingerprint) {
             this.id = id;
             this.name = name;
             this.created = created;
             this.fingerprint = (fingerprint != null) ? new FingerprintRef(fingerprint) : null;
+            this.fingerprintResolved = true;
+        }
+        
+        /**
+         * Creates an item, which loads the fingerprint on the first request.
+         * The fingerprint won't be loaded at all if the API client does not request it.
+         */
+        Item(String id, String name, String created) {
+            this.id = id;
+            this.name = name;
+            this.created = created;
+        }
+        
+        /**
+         * Looks up the fingerprint for lazily resolved items.
+         * @return Fingerprint or null if it is not available
+         */
+        @CheckForNull
+        Fingerprint lookupFingerprint() {
+            return null;
         }
 
         @Exported(visibility = 999)
@@ -107,7 +128,12 @@ public class DockerAPIReport {
         }
 
         @Exported(visibility = 999)
-        public FingerprintRef getFingerprint() {
+        public synchronized FingerprintRef getFingerprint() {
+            if (!fingerprintResolved) {
+                final Fingerprint fp = lookupFingerprint();
+                fingerprint = (fp != null) ? new FingerprintRef(fp) : null;
+                fingerprintResolved = true;
+            }
             return fingerprint;
         }   
     }
@@ -229,6 +255,17 @@ public class DockerAPIReport {
         private final int pid;
         private final int exitCode;
         
+        State(String lastStatus, String startedAt, String finishedAt, boolean running, boolean paused, 
+                int pid, int exitCode) {
+            this.lastStatus = lastStatus;
+            this.startedAt = startedAt;
+            this.finishedAt = finishedAt;
+            this.running = running;
+            this.paused = paused;
+            this.pid = pid;
+            this.exitCode = exitCode;
+        }
+        
         public State(String lastStatus, ContainerState state) {
             this.lastStatus = lastStatus;
             this.startedAt = state.getStartedAt();
@@ -305,6 +342,16 @@ public class DockerAPIReport {
             super(id, name, created, fingerprint);
             this.state = state;
         }       
+        
+        Container(String id, String name, String created, State state) {
+            super(id, name, created);
+            this.state = state;
+        }
+
+        @Override
+        Fingerprint lookupFingerprint() {
+            return getId() != null ? DockerTraceabilityHelper.of(getId()) : null;
+        }
 
         @Exported(visibility = 999)
         public State getState() {
@@ -317,6 +364,22 @@ public class DockerAPIReport {
         public Image(String id, String name, String created, Fingerprint fingerprint) {
             super(id, name, created, fingerprint);
         }
+        
+        Image(String id, String name, String created) {
+            super(id, name, created);
+        }
+
+        @Override
+        Fingerprint lookupFingerprint() {
+            if (getId() == null) {
+                return null;
+            }
+            try {
+                return DockerTraceabilityHelper.ofImage(getId());
+            } catch (IOException ex) {
+                return null;
+            }
+        }
     }
 
     @Exported(visibility = 999)
@@ -369,17 +432,32 @@ public class DockerAPIReport {
         if (lastRecord == null) {
             return null;
         }
-        final DockerTraceabilityReport report = lastRecord.getReport();
-        final String imageId = report.getImageId();
+        final String imageId = lastRecord.getReport().getImageId();
         @CheckForNull Fingerprint imageFP = null;
         if (imageId != null) {
             try {
-                imageFP = DockerFingerprints.of(imageId);
+                imageFP = DockerTraceabilityHelper.ofImage(imageId);
             } catch (IOException ex) {
                 // Do nothing
             } 
         }
-        
+        return forRecord(lastRecord, lastStatus, containerFP, imageFP);
+    }
+    
+    /**
+     * Creates a report from the latest record of the container.
+     * @param lastRecord Latest record of the container
+     * @param lastStatus Last status of the container
+     * @param containerFP Container fingerprint
+     * @param imageFP Image fingerprint if available
+     * @return Generated report. Null if the record has no container info.
+     * @since 1.3
+     */
+    @Restricted(NoExternalUse.class)
+    public static @CheckForNull DockerAPIReport forRecord(@Nonnull DockerContainerRecord lastRecord, 
+            @Nonnull String lastStatus, @Nonnull Fingerprint containerFP, @CheckForNull Fingerprint imageFP) {
+        final DockerTraceabilityReport report = lastRecord.getReport();
+        final String imageId = report.getImageId();
         final InspectImageResponse inspectImageResponse = report.getImage();
         final InspectContainerResponse inspectContainerResponse = report.getContainer();
         if (inspectContainerResponse == null) {
@@ -396,4 +474,23 @@ public class DockerAPIReport {
         final String lastUpdate =  DockerTraceabilityHelper.formatTime(report.getEvent().getTime());
         return new DockerAPIReport(lastUpdate, container, image, environment, host, report.getParents());
     }
+    
+    /**
+     * Creates a report from the in-memory container summary.
+     * Fingerprints are being loaded only if they are requested by the API client.
+     * @param summary Container summary
+     * @return Generated report
+     * @since 1.3
+     */
+    public static @Nonnull DockerAPIReport forSummary(@Nonnull DockerContainerIndex.Entry summary) {
+        final Image image = new Image(summary.getImageId(), summary.getImageName(), 
+                (summary.getImageCreated() != null) ? summary.getImageCreated() : "N/A");
+        final State state = new State(summary.getStatus(), summary.getStartedAt(), summary.getFinishedAt(), 
+                summary.isRunning(), summary.isPaused(), summary.getPid(), summary.getExitCode());
+        final Container container = new Container(summary.getContainerId(), summary.getContainerName(), 
+                summary.getCreated(), state);
+        final Host host = new Host(summary.getHostId(), summary.getHostName());
+        final String lastUpdate = DockerTraceabilityHelper.formatTime(summary.getTime());
+        return new DockerAPIReport(lastUpdate, container, image, summary.getEnvironment(), host, summary.getParents());
+    }
 }
@@ -26,12 +26,13 @@ package org.jenkinsci.plugins.docker.traceability.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.jenkinsci.plugins.docker.traceability.dockerjava.api.model.Event;
 import java.io.IOException;
 import java.util.Date;
 import java.util.Locale;
 import javax.annotation.Nonnull;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityCodecs;
 
 /**
  * Describes events happening in Docker.
@@ -106,8 +107,13 @@ public class DockerEvent {
      * @throws IOException Conversion error
      */
     public @Nonnull Event toDockerEvent() throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        String json = mapper.writeValueAsString(this);
-        return mapper.readValue(json, Event.class);
+        // docker-java does not provide a way to construct Events directly,
+        // but we can avoid the serialization to JSON string
+        final ObjectNode node = DockerTraceabilityCodecs.newObjectNode();
+        node.put("status", status);
+        node.put("id", id);
+        node.put("from", from);
+        node.put("time", time);
+        return DockerTraceabilityCodecs.eventReader().readValue(node);
     }
 }
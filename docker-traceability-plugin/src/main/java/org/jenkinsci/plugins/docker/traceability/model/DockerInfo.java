@@ -24,10 +24,11 @@
 package org.jenkinsci.plugins.docker.traceability.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.jenkinsci.plugins.docker.traceability.dockerjava.api.model.Info;
 import java.io.IOException;
 import javax.annotation.Nonnull;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityCodecs;
 
 /**
  * Internal model stub for {@link Info} from docker-java.
@@ -60,8 +61,9 @@ public class DockerInfo {
      * @throws IOException Conversion error
      */
     public @Nonnull Info toInfo() throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        String json = mapper.writeValueAsString(this);
-        return mapper.readValue(json, Info.class);
+        final ObjectNode node = DockerTraceabilityCodecs.newObjectNode();
+        node.put("ID", id);
+        node.put("Name", name);
+        return DockerTraceabilityCodecs.infoReader().readValue(node);
     }
 }
@@ -25,23 +25,71 @@ package org.jenkinsci.plugins.docker.traceability.model;
 
 import hudson.ExtensionList;
 import hudson.ExtensionPoint;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 import javax.annotation.Nonnull;
 import jenkins.model.Jenkins;
-import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPlugin;
+import org.jenkinsci.plugins.docker.traceability.core.DockerTraceabilityListenerDispatcher;
 import org.jenkinsci.plugins.docker.traceability.fingerprint.DockerDeploymentFacet;
 import org.jenkinsci.plugins.docker.traceability.model.DockerEvent;
 import org.jenkinsci.plugins.docker.traceability.api.DockerTraceabilityReport;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityMetrics;
 
 /**
  * An extension point, which allows to subscribe to {@link DockerTraceabilityReport}s in Jenkins.
+ * <p>
+ * Listeners are being invoked synchronously by default. Listeners, which use
+ * the {@link DispatchMode#ASYNCHRONOUS} mode, are being invoked by their own executors
+ * with bounded queues, so slow listeners do not delay the report processing.
+ * The order of notifications is being preserved for each listener.
+ * The default mode can be changed by the 
+ * {@code org.jenkinsci.plugins.docker.traceability.model.DockerTraceabilityReportListener.asyncDispatch}
+ * system property.
  * @author Oleg Nenashev
  * @since 1.0
  */
 public class DockerTraceabilityReportListener implements ExtensionPoint {
     
-    private final static Logger LOGGER = Logger.getLogger(DockerTraceabilityPlugin.class.getName());
+    private static final String PROPERTY_PREFIX = DockerTraceabilityReportListener.class.getName();
+    
+    private static final DispatchMode DEFAULT_DISPATCH_MODE = Boolean.getBoolean(PROPERTY_PREFIX + ".asyncDispatch") 
+            ? DispatchMode.ASYNCHRONOUS : DispatchMode.SYNCHRONOUS;
+    
+    private static final int DEFAULT_QUEUE_CAPACITY = 
+            Math.max(1, Integer.getInteger(PROPERTY_PREFIX + ".queueCapacity", 1024));
+    
+    /**
+     * Defines how the listener is being invoked.
+     * @since 1.3
+     */
+    public enum DispatchMode {
+        /**
+         * The listener is being invoked by the thread, which processes the report.
+         */
+        SYNCHRONOUS,
+        /**
+         * The listener is being invoked by its own executor.
+         */
+        ASYNCHRONOUS
+    }
+    
+    /**
+     * Defines the behavior of {@link DispatchMode#ASYNCHRONOUS} listeners if their queues are full.
+     * @since 1.3
+     */
+    public enum OverflowPolicy {
+        /**
+         * Wait for the queue space. Notifications are not being lost, 
+         * but the report processing is being delayed.
+         */
+        BLOCK,
+        /**
+         * Drop the notification.
+         */
+        DROP,
+        /**
+         * Drop the notification and log a warning.
+         */
+        LOG
+    }
     
     /**
      * Notifies external listeners that a new Docker report has been received.
@@ -61,17 +109,48 @@ public class DockerTraceabilityReportListener implements ExtensionPoint {
         // Do nothing by default
     }
     
+    /**
+     * Gets the dispatch mode of the listener.
+     * @return Dispatch mode. By default it is being defined by the system property
+     * @since 1.3
+     */
+    public @Nonnull DispatchMode getDispatchMode() {
+        return DEFAULT_DISPATCH_MODE;
+    }
+    
+    /**
+     * Gets the behavior of the {@link DispatchMode#ASYNCHRONOUS} listener on the queue overflow.
+     * @return Overflow policy. {@link OverflowPolicy#BLOCK} by default
+     * @since 1.3
+     */
+    public @Nonnull OverflowPolicy getOverflowPolicy() {
+        return OverflowPolicy.BLOCK;
+    }
+    
+    /**
+     * Gets the maximum number of pending notifications of 
+     * the {@link DispatchMode#ASYNCHRONOUS} listener.
+     * The value is being read once, when the listener gets its first notification.
+     * @return Queue capacity
+     * @since 1.3
+     */
+    public int getQueueCapacity() {
+        return DEFAULT_QUEUE_CAPACITY;
+    }
+    
     /**
      * Process {@link DockerTraceabilityReport} on all listeners.
      * @param report Event to be triggered
      */
     public static void fire(@Nonnull DockerTraceabilityReport report) {
-        for (DockerTraceabilityReportListener listener : all()) {
-            try {
-                listener.onReport(report);
-            } catch (Throwable t) { // Prevent failures on runtime exceptions
-                LOGGER.log(Level.SEVERE, "Runtime exception during the event processing in "+ listener, t);
+        final DockerTraceabilityListenerDispatcher dispatcher = DockerTraceabilityListenerDispatcher.getInstance();
+        final long start = DockerTraceabilityMetrics.LISTENER_FANOUT.start();
+        try {
+            for (DockerTraceabilityReportListener listener : all()) {
+                dispatcher.onReport(listener, report);
             }
+        } finally {
+            DockerTraceabilityMetrics.LISTENER_FANOUT.stop(start);
         }
     }
     
@@ -80,12 +159,9 @@ public class DockerTraceabilityReportListener implements ExtensionPoint {
      * @param containerId Container ID (full 64-char representation)
      */
     public static void fireNewDeployment(@Nonnull String containerId) {
+        final DockerTraceabilityListenerDispatcher dispatcher = DockerTraceabilityListenerDispatcher.getInstance();
         for (DockerTraceabilityReportListener listener : all()) {
-            try {
-                listener.onNewDeployment(containerId);
-            } catch (Throwable t) { // Prevent failures on runtime exceptions
-                LOGGER.log(Level.SEVERE, "Runtime exception during the new deployment processing in "+ listener, t);
-            }
+            dispatcher.onNewDeployment(listener, containerId);
         }
     }
 
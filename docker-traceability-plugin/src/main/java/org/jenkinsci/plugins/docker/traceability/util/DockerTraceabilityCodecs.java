@@ -0,0 +1,123 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import javax.annotation.Nonnull;
+import org.jenkinsci.plugins.docker.traceability.api.DockerTraceabilityReport;
+import org.jenkinsci.plugins.docker.traceability.dockerjava.api.command.InspectContainerResponse;
+import org.jenkinsci.plugins.docker.traceability.dockerjava.api.command.InspectImageResponse;
+import org.jenkinsci.plugins.docker.traceability.dockerjava.api.model.Event;
+import org.jenkinsci.plugins.docker.traceability.dockerjava.api.model.Info;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Shared JSON codecs for the plugin.
+ * {@link ObjectMapper} construction and type introspection are expensive, 
+ * hence the plugin should reuse the preconfigured readers and writers from this
+ * class instead of creating new mappers.
+ * {@link ObjectReader} and {@link ObjectWriter} are immutable and thread-safe.
+ * Deserialized strings are being deduplicated by {@link DockerTraceabilityStringPool}.
+ */
+@Restricted(NoExternalUse.class)
+public class DockerTraceabilityCodecs {
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(DockerTraceabilityStringPool.createModule());
+    
+    private static final ObjectReader REPORT_READER = MAPPER.reader(DockerTraceabilityReport.class);
+    private static final ObjectReader INSPECT_CONTAINER_ARRAY_READER = MAPPER.reader(InspectContainerResponse[].class);
+    private static final ObjectReader INSPECT_CONTAINER_READER = MAPPER.reader(InspectContainerResponse.class);
+    private static final ObjectReader INSPECT_IMAGE_READER = MAPPER.reader(InspectImageResponse.class);
+    private static final ObjectReader EVENT_READER = MAPPER.reader(Event.class);
+    private static final ObjectReader INFO_READER = MAPPER.reader(Info.class);
+    private static final ObjectWriter WRITER = MAPPER.writer();
+    
+    private DockerTraceabilityCodecs() {
+        // Instantiation is prohibited
+    }
+
+    /**
+     * Gets the shared {@link ObjectMapper}.
+     * The mapper must not be reconfigured by callers.
+     * @return Shared mapper
+     */
+    public static @Nonnull ObjectMapper getMapper() {
+        return MAPPER;
+    }
+    
+    public static @Nonnull JsonFactory getFactory() {
+        return MAPPER.getFactory();
+    }
+    
+    public static @Nonnull ObjectReader reportReader() {
+        return REPORT_READER;
+    }
+
+    public static @Nonnull ObjectReader inspectContainerArrayReader() {
+        return INSPECT_CONTAINER_ARRAY_READER;
+    }
+    
+    public static @Nonnull ObjectReader inspectContainerReader() {
+        return INSPECT_CONTAINER_READER;
+    }
+    
+    public static @Nonnull ObjectReader inspectImageReader() {
+        return INSPECT_IMAGE_READER;
+    }
+    
+    /**
+     * Gets a reader for docker-java {@link Event}s.
+     * @return Reader, which can be also used to convert {@link ObjectNode}s
+     */
+    public static @Nonnull ObjectReader eventReader() {
+        return EVENT_READER;
+    }
+    
+    /**
+     * Gets a reader for docker-java {@link Info}s.
+     * @return Reader, which can be also used to convert {@link ObjectNode}s
+     */
+    public static @Nonnull ObjectReader infoReader() {
+        return INFO_READER;
+    }
+    
+    public static @Nonnull ObjectWriter writer() {
+        return WRITER;
+    }
+    
+    /**
+     * Creates a new empty tree node.
+     * @return Node, which may be converted by readers without the serialization to string
+     */
+    public static @Nonnull ObjectNode newObjectNode() {
+        return JsonNodeFactory.instance.objectNode();
+    }
+}
@@ -0,0 +1,241 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.util;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPlugin;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Common code of background workers in the plugin.
+ * It provides daemon thread factories, the shutdown with a timeout, 
+ * bounded executors and lazily started singletons.
+ */
+@Restricted(NoExternalUse.class)
+public class DockerTraceabilityExecutors {
+    
+    private final static Logger LOGGER = Logger.getLogger(DockerTraceabilityPlugin.class.getName());
+    
+    private DockerTraceabilityExecutors() {
+        // Instantiation is prohibited
+    }
+    
+    /**
+     * Creates a factory of daemon threads.
+     * @param name Name of threads
+     * @return Thread factory
+     */
+    public static @Nonnull ThreadFactory threadFactory(@Nonnull String name) {
+        return new NamingThreadFactory(new DaemonThreadFactory(), name);
+    }
+    
+    /**
+     * Stops the executor and waits for the completion of submitted tasks.
+     * If the timeout expires, running tasks are being interrupted and pending ones are being dropped.
+     * @param executor Executor to be stopped
+     * @param name Name of the executor for logging
+     * @param timeoutSec Timeout in seconds
+     * @return true if the executor has been terminated within the timeout
+     */
+    public static boolean shutdown(@Nonnull ExecutorService executor, @Nonnull String name, long timeoutSec) {
+        executor.shutdown();
+        try {
+            if (executor.awaitTermination(timeoutSec, TimeUnit.SECONDS)) {
+                return true;
+            }
+            LOGGER.log(Level.WARNING, "{0} has not been terminated in {1} seconds. {2} pending tasks will be dropped", 
+                    new Object[] {name, timeoutSec, executor.shutdownNow().size()});
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+        return false;
+    }
+    
+    /**
+     * Fixed-size thread pool with a bounded number of pending tasks.
+     * Tasks are always being passed via {@link ThreadPoolExecutor#execute(Runnable)}, 
+     * the limit is enforced by a semaphore, so callers may either fail fast or wait for the space.
+     */
+    public static final class BoundedExecutor {
+        
+        private final @Nonnull String name;
+        private final @Nonnull ThreadPoolExecutor executor;
+        private final @Nonnull Semaphore slots;
+
+        /**
+         * Creates and starts the executor.
+         * @param name Name of the executor and its threads
+         * @param threads Number of worker threads
+         * @param queueCapacity Maximum number of tasks waiting for a worker
+         */
+        public BoundedExecutor(@Nonnull String name, int threads, int queueCapacity) {
+            this.name = name;
+            this.slots = new Semaphore(threads + queueCapacity);
+            this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<Runnable>(), threadFactory(name), new ThreadPoolExecutor.AbortPolicy());
+            this.executor.prestartAllCoreThreads();
+        }
+        
+        public @Nonnull String getName() {
+            return name;
+        }
+        
+        /**
+         * Gets the number of tasks waiting for a worker.
+         * @return Queue depth
+         */
+        public int getQueueDepth() {
+            return executor.getQueue().size();
+        }
+        
+        /**
+         * Checks if there is no space for new tasks.
+         * @return true if {@link #tryExecute(Runnable)} would reject the task at the moment
+         */
+        public boolean isFull() {
+            return slots.availablePermits() == 0;
+        }
+        
+        /**
+         * Submits the task without waiting.
+         * @param task Task to be executed
+         * @return false if there is no space for the task
+         * @throws RejectedExecutionException The executor has been stopped
+         */
+        public boolean tryExecute(@Nonnull Runnable task) throws RejectedExecutionException {
+            if (!slots.tryAcquire()) {
+                return false;
+            }
+            doExecute(task);
+            return true;
+        }
+        
+        /**
+         * Submits the task, waits for the space if required.
+         * @param task Task to be executed
+         * @throws InterruptedException Interrupted while waiting for the space
+         * @throws RejectedExecutionException The executor has been stopped
+         */
+        public void execute(@Nonnull Runnable task) throws InterruptedException, RejectedExecutionException {
+            slots.acquire();
+            doExecute(task);
+        }
+        
+        private void doExecute(final @Nonnull Runnable task) throws RejectedExecutionException {
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            task.run();
+                        } finally {
+                            slots.release();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                slots.release();
+                throw ex;
+            }
+        }
+        
+        /**
+         * Stops the executor.
+         * @param timeoutSec Timeout for the completion of submitted tasks
+         * @see DockerTraceabilityExecutors#shutdown(ExecutorService, String, long)
+         */
+        public void shutdown(long timeoutSec) {
+            DockerTraceabilityExecutors.shutdown(executor, name, timeoutSec);
+        }
+    }
+    
+    /**
+     * Holder of a singleton, which is being started on the first access.
+     * @param <T> Type of the instance
+     */
+    public static abstract class LazyInstance<T> {
+        
+        private @CheckForNull T instance;
+        
+        /**
+         * Creates and starts a new instance.
+         * @return New instance
+         */
+        protected abstract @Nonnull T create();
+        
+        /**
+         * Stops the instance.
+         * @param instance Instance, which is not available to new callers anymore
+         */
+        protected abstract void stop(@Nonnull T instance);
+        
+        /**
+         * Gets the instance. The instance will be started on the first call.
+         * @return Instance
+         */
+        public synchronized @Nonnull T get() {
+            if (instance == null) {
+                instance = create();
+            }
+            return instance;
+        }
+        
+        /**
+         * Gets the instance if it has been started.
+         * @return Instance or null
+         */
+        public synchronized @CheckForNull T getIfStarted() {
+            return instance;
+        }
+        
+        /**
+         * Stops the instance if it has been started.
+         * The next {@link #get()} call will start a new instance.
+         */
+        public void shutdown() {
+            final T toStop;
+            synchronized (this) {
+                toStop = instance;
+                instance = null;
+            }
+            if (toStop != null) {
+                stop(toStop);
+            }
+        }
+    }
+}
@@ -0,0 +1,316 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.util;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.annotation.Nonnull;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Latency and throughput metrics of the plugin hot paths.
+ * All values are being accumulated since the startup.
+ * Timers are cheap enough to be used for every report: they use atomic 
+ * counters and a fixed log-scale histogram without allocations.
+ * @see org.jenkinsci.plugins.docker.traceability.core.DockerTraceabilityStatistics
+ */
+@Restricted(NoExternalUse.class)
+public class DockerTraceabilityMetrics {
+    
+    private static final Map<String, Timer> TIMERS = new LinkedHashMap<String, Timer>();
+    
+    /**
+     * Parsing of submitted reports.
+     */
+    public static final Timer SUBMIT_PARSE = timer("submit.parse");
+    
+    /**
+     * Complete processing of the report by 
+     * {@link org.jenkinsci.plugins.docker.traceability.core.DockerTraceabilityReportListenerImpl}.
+     * In the asynchronous mode it also includes the wait for the persist stage.
+     */
+    public static final Timer REPORT_PROCESS = timer("report.process");
+    
+    /**
+     * Resolution of image fingerprints for reports. 
+     * Every processed report passes this stage.
+     */
+    public static final Timer REPORT_RESOLVE = timer("report.resolve");
+    
+    /**
+     * Persisting of reports to fingerprints.
+     */
+    public static final Timer REPORT_PERSIST = timer("report.persist");
+    
+    /**
+     * Lookups of container and image fingerprints.
+     */
+    public static final Timer FINGERPRINT_LOOKUP = timer("fingerprint.lookup");
+    
+    /**
+     * Fingerprint saves.
+     */
+    public static final Timer FINGERPRINT_SAVE = timer("fingerprint.save");
+    
+    /**
+     * Notification of all report listeners about a single report.
+     */
+    public static final Timer LISTENER_FANOUT = timer("listener.fanout");
+    
+    /**
+     * Container history queries.
+     */
+    public static final Timer QUERY_CONTAINER = timer("query.container");
+    
+    private static final AtomicLong rejectedSubmissions = new AtomicLong();
+    
+    private DockerTraceabilityMetrics() {
+        // Instantiation is prohibited
+    }
+    
+    private static @Nonnull Timer timer(@Nonnull String name) {
+        final Timer timer = new Timer(name);
+        TIMERS.put(name, timer);
+        return timer;
+    }
+    
+    /**
+     * Gets all timers.
+     * @return Unmodifiable map of timers with names as keys
+     */
+    public static @Nonnull Map<String, Timer> getTimers() {
+        return Collections.unmodifiableMap(TIMERS);
+    }
+    
+    /**
+     * Counts a submission, which has been rejected by the full ingestion queue.
+     */
+    public static void markRejectedSubmission() {
+        rejectedSubmissions.incrementAndGet();
+    }
+    
+    /**
+     * Gets the number of rejected submissions.
+     * @return Number of submissions since the startup
+     */
+    public static long getRejectedSubmissions() {
+        return rejectedSubmissions.get();
+    }
+    
+    /**
+     * JMX interface of {@link Timer}.
+     */
+    public interface TimerMXBean {
+        
+        long getCount();
+        
+        double getRatePerSecond();
+        
+        double getMeanMillis();
+        
+        double get50thPercentileMillis();
+        
+        double get99thPercentileMillis();
+        
+        double getMaxMillis();
+    }
+    
+    /**
+     * Counter with a latency histogram and a rate estimation.
+     * Usage:
+     * <pre>
+     * final long start = timer.start();
+     * try {
+     *     ...
+     * } finally {
+     *     timer.stop(start);
+     * }
+     * </pre>
+     */
+    public static final class Timer implements TimerMXBean {
+        
+        /**
+         * Each power of two is split into {@code 1 << SUB_BITS} buckets, 
+         * hence the relative error of percentiles does not exceed 25%.
+         */
+        private static final int SUB_BITS = 2;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+        private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+        
+        /**
+         * Rate is being estimated over this number of last complete seconds.
+         */
+        private static final int RATE_WINDOW_SEC = 60;
+        
+        private final @Nonnull String name;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLongArray rateSeconds = new AtomicLongArray(RATE_WINDOW_SEC);
+        private final AtomicLongArray rateCounts = new AtomicLongArray(RATE_WINDOW_SEC);
+
+        Timer(@Nonnull String name) {
+            this.name = name;
+        }
+
+        public @Nonnull String getName() {
+            return name;
+        }
+        
+        /**
+         * Starts the measurement.
+         * @return Start time, which should be passed to {@link #stop(long)}
+         */
+        public long start() {
+            return System.nanoTime();
+        }
+        
+        /**
+         * Completes the measurement.
+         * @param start Value returned by {@link #start()}
+         */
+        public void stop(long start) {
+            update(System.nanoTime() - start, System.currentTimeMillis());
+        }
+        
+        void update(long nanos, long timestamp) {
+            final long value = Math.max(0, nanos);
+            count.incrementAndGet();
+            totalNanos.addAndGet(value);
+            buckets.incrementAndGet(bucketOf(value));
+            long max;
+            while (value > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, value)) {
+                // Retry
+            }
+            
+            // The slot reset may lose concurrent increments, it is fine for the estimation
+            final long second = TimeUnit.MILLISECONDS.toSeconds(timestamp);
+            final int slot = (int) (second % RATE_WINDOW_SEC);
+            final long slotSecond = rateSeconds.get(slot);
+            if (slotSecond != second && rateSeconds.compareAndSet(slot, slotSecond, second)) {
+                rateCounts.set(slot, 0);
+            }
+            rateCounts.incrementAndGet(slot);
+        }
+        
+        @Override
+        public long getCount() {
+            return count.get();
+        }
+        
+        @Override
+        public double getRatePerSecond() {
+            return getRatePerSecond(System.currentTimeMillis());
+        }
+        
+        double getRatePerSecond(long timestamp) {
+            final long now = TimeUnit.MILLISECONDS.toSeconds(timestamp);
+            long events = 0;
+            for (int i = 0; i < RATE_WINDOW_SEC; i++) {
+                final long second = rateSeconds.get(i);
+                if (second < now && second >= now - RATE_WINDOW_SEC) {
+                    events += rateCounts.get(i);
+                }
+            }
+            return (double) events / RATE_WINDOW_SEC;
+        }
+        
+        @Override
+        public double getMeanMillis() {
+            final long n = count.get();
+            return n != 0 ? toMillis(totalNanos.get() / n) : 0;
+        }
+        
+        @Override
+        public double get50thPercentileMillis() {
+            return toMillis(getPercentileNanos(0.5));
+        }
+        
+        @Override
+        public double get99thPercentileMillis() {
+            return toMillis(getPercentileNanos(0.99));
+        }
+        
+        @Override
+        public double getMaxMillis() {
+            return toMillis(maxNanos.get());
+        }
+        
+        /**
+         * Gets the estimated percentile.
+         * @param quantile Quantile (0..1)
+         * @return Upper bound of the histogram bucket, which contains the percentile. 
+         *      0 if there is no measurements
+         */
+        long getPercentileNanos(double quantile) {
+            final long[] snapshot = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = buckets.get(i);
+                total += snapshot[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            
+            final long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), maxNanos.get());
+                }
+            }
+            return maxNanos.get();
+        }
+        
+        static int bucketOf(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            final int msb = 63 - Long.numberOfLeadingZeros(value);
+            final int sub = (int) (value >>> (msb - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return (msb - SUB_BITS + 1) * SUB_BUCKETS + sub;
+        }
+        
+        static long upperBoundOf(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            final int shift = bucket / SUB_BUCKETS - 1;
+            final long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+            return lower + (1L << shift) - 1;
+        }
+        
+        private static double toMillis(long nanos) {
+            return nanos / 1000000.0;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.KeyDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Canonicalizing pool for strings in deserialized reports.
+ * Reports contain many equal strings like host IDs, image IDs, environment 
+ * variables and label keys, hence the deduplication reduces the heap usage.
+ * The pool is being applied by {@link DockerTraceabilityCodecs} on the parsing
+ * of submissions and journal entries.
+ * <p>
+ * The pool keeps weak references only, so unused strings are being collected by GC.
+ * The pool is split into stripes in order to reduce the contention.
+ * Each stripe is bounded, new strings are not pooled when the stripe is full.
+ * The size can be adjusted by the 
+ * {@code org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityStringPool.maxSize}
+ * system property, 0 disables the pool.
+ */
+@Restricted(NoExternalUse.class)
+public class DockerTraceabilityStringPool {
+    
+    private static final int MAX_SIZE = 
+            Integer.getInteger(DockerTraceabilityStringPool.class.getName() + ".maxSize", 100000);
+    
+    /**
+     * Longer strings are usually unique, there is no sense to pool them.
+     */
+    private static final int MAX_LENGTH = 512;
+    
+    private static final int STRIPES = 16;
+    
+    private static final Stripe[] POOL = new Stripe[STRIPES];
+    
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong SAVED_BYTES = new AtomicLong();
+    
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            POOL[i] = new Stripe(MAX_SIZE / STRIPES);
+        }
+    }
+    
+    private DockerTraceabilityStringPool() {
+        // Instantiation is prohibited
+    }
+    
+    public static boolean isEnabled() {
+        return MAX_SIZE > 0;
+    }
+    
+    /**
+     * Gets the canonical instance of the string.
+     * @param value String
+     * @return Equal string from the pool or the value itself
+     */
+    public static @CheckForNull String intern(@CheckForNull String value) {
+        if (value == null || MAX_SIZE <= 0 || value.length() > MAX_LENGTH) {
+            return value;
+        }
+        
+        return POOL[(value.hashCode() & Integer.MAX_VALUE) % STRIPES].intern(value);
+    }
+    
+    /**
+     * Gets the number of strings, which have been replaced by pooled instances.
+     * @return Number of deduplicated strings since the startup
+     */
+    public static long getHits() {
+        return HITS.get();
+    }
+    
+    /**
+     * Gets the estimated number of bytes saved by the deduplication.
+     * Repeated interning of the same duplicate instance is not counted again.
+     * The value does not take GC of the replaced strings into account.
+     * @return Number of bytes since the startup
+     */
+    public static long getSavedBytes() {
+        return SAVED_BYTES.get();
+    }
+    
+    /**
+     * Gets the number of pooled strings.
+     * @return Number of entries including ones, which have not been collected by GC yet
+     */
+    public static int getSize() {
+        int size = 0;
+        for (Stripe stripe : POOL) {
+            size += stripe.size();
+        }
+        return size;
+    }
+    
+    /**
+     * Creates a Jackson module, which deduplicates strings and map keys on deserialization.
+     * @return Module for {@link com.fasterxml.jackson.databind.ObjectMapper}
+     */
+    static @Nonnull SimpleModule createModule() {
+        final SimpleModule module = new SimpleModule("DockerTraceabilityStringPool");
+        module.addDeserializer(String.class, new InterningStringDeserializer());
+        module.addKeyDeserializer(String.class, new InterningKeyDeserializer());
+        return module;
+    }
+    
+    private static final class Stripe {
+        
+        private final int maxSize;
+        private final Map<String, Entry> entries = new WeakHashMap<String, Entry>();
+
+        Stripe(int maxSize) {
+            this.maxSize = maxSize;
+        }
+        
+        synchronized @Nonnull String intern(@Nonnull String value) {
+            final Entry entry = entries.get(value);
+            final String existing = entry != null ? entry.pooled.get() : null;
+            if (existing == null) {
+                if (entries.size() < maxSize) {
+                    entries.put(value, new Entry(value));
+                }
+                return value;
+            }
+            
+            if (existing != value && entry.lastReplaced.get() != value) {
+                entry.lastReplaced = new WeakReference<String>(value);
+                HITS.incrementAndGet();
+                // Object header, fields and the char array
+                SAVED_BYTES.addAndGet(40 + 2L * value.length());
+            }
+            return existing;
+        }
+        
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+    
+    /**
+     * Pooled string and the last instance, which has been replaced by it.
+     * The latter prevents the overcounting if the same shared instance is being interned multiple times.
+     */
+    private static final class Entry {
+        
+        private final @Nonnull WeakReference<String> pooled;
+        private @Nonnull WeakReference<String> lastReplaced = new WeakReference<String>(null);
+
+        Entry(@Nonnull String value) {
+            this.pooled = new WeakReference<String>(value);
+        }
+    }
+    
+    private static final class InterningStringDeserializer extends StdScalarDeserializer<String> {
+        
+        private static final long serialVersionUID = 1L;
+
+        InterningStringDeserializer() {
+            super(String.class);
+        }
+        
+        @Override
+        public String deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException {
+            return intern(StringDeserializer.instance.deserialize(jp, ctxt));
+        }
+    }
+    
+    private static final class InterningKeyDeserializer extends KeyDeserializer {
+
+        @Override
+        public Object deserializeKey(String key, DeserializationContext ctxt) throws IOException {
+            return intern(key);
+        }
+    }
+}
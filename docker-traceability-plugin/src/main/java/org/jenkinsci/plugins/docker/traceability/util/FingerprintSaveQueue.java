@@ -0,0 +1,175 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.util;
+
+import hudson.model.Fingerprint;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPlugin;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Write-behind group commit of {@link Fingerprint}s.
+ * Modified fingerprints are being collected over a short window, and then each
+ * of them is saved once regardless of the number of modifications.
+ * Pending fingerprints are strongly referenced by the queue, so 
+ * {@link jenkins.model.FingerprintMap} keeps returning the modified instances 
+ * until they are written to the disk.
+ * Facets must be modified under the monitor of the owning fingerprint,
+ * because deferred saves hold it while the fingerprint is being serialized.
+ * <p>
+ * The window is configured by the 
+ * {@code org.jenkinsci.plugins.docker.traceability.util.FingerprintSaveQueue.windowMs} 
+ * system property. The queue is disabled by default, hence fingerprints are being
+ * saved immediately.
+ */
+@Restricted(NoExternalUse.class)
+public class FingerprintSaveQueue {
+    
+    private final static Logger LOGGER = Logger.getLogger(DockerTraceabilityPlugin.class.getName());
+    
+    private static final long WINDOW_MS = 
+            Long.getLong(FingerprintSaveQueue.class.getName() + ".windowMs", 0);
+    
+    private static final Set<Fingerprint> dirty = 
+            Collections.newSetFromMap(new ConcurrentHashMap<Fingerprint, Boolean>());
+    /**
+     * Timeout for the completion of a running flush on shutdown.
+     */
+    private static final long SHUTDOWN_TIMEOUT_SEC = Long.getLong(
+            FingerprintSaveQueue.class.getName() + ".shutdownTimeoutSec", 30);
+    
+    private static final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private static @CheckForNull ScheduledExecutorService executor;
+    
+    private FingerprintSaveQueue() {
+        // Instantiation is prohibited
+    }
+    
+    /**
+     * Saves the fingerprint.
+     * If the group commit is enabled, the fingerprint will be saved at the end 
+     * of the current window. Save errors are being logged in such case.
+     * @param fingerprint Fingerprint to be saved
+     * @throws IOException Save error (in the write-through mode only)
+     */
+    public static void save(@Nonnull Fingerprint fingerprint) throws IOException {
+        if (WINDOW_MS <= 0) {
+            doSave(fingerprint);
+            return;
+        }
+        
+        dirty.add(fingerprint);
+        if (flushScheduled.compareAndSet(false, true)) {
+            getExecutor().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    flushScheduled.set(false);
+                    flush();
+                }
+            }, WINDOW_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * Saves all pending fingerprints immediately.
+     */
+    public static void flush() {
+        final Iterator<Fingerprint> it = dirty.iterator();
+        while (it.hasNext()) {
+            final Fingerprint fingerprint = it.next();
+            // Remove before saving, new modifications will schedule a new save
+            it.remove(); 
+            try {
+                doSave(fingerprint);
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, "Cannot save the fingerprint " + fingerprint.getHashString(), ex);
+            }
+        }
+    }
+    
+    private static void doSave(@Nonnull Fingerprint fingerprint) throws IOException {
+        final long start = DockerTraceabilityMetrics.FINGERPRINT_SAVE.start();
+        try {
+            fingerprint.save();
+        } finally {
+            DockerTraceabilityMetrics.FINGERPRINT_SAVE.stop(start);
+        }
+    }
+    
+    /**
+     * Checks if the fingerprint is waiting for the save.
+     * @param fingerprint Fingerprint to be checked
+     * @return true if the fingerprint has unsaved modifications
+     */
+    public static boolean isPending(@Nonnull Fingerprint fingerprint) {
+        return dirty.contains(fingerprint);
+    }
+    
+    /**
+     * Gets the number of fingerprints waiting for the save.
+     * @return Number of pending fingerprints
+     */
+    public static int getPendingCount() {
+        return dirty.size();
+    }
+    
+    /**
+     * Flushes pending fingerprints and stops the background thread.
+     * A running flush is not being interrupted, the method waits for its completion.
+     * Further saves will restart the thread on-demand.
+     */
+    public static void shutdown() {
+        final ScheduledExecutorService toStop;
+        synchronized (FingerprintSaveQueue.class) {
+            toStop = executor;
+            executor = null;
+        }
+        if (toStop != null) {
+            DockerTraceabilityExecutors.shutdown(toStop, "Docker Traceability fingerprint writer", SHUTDOWN_TIMEOUT_SEC);
+        }
+        flushScheduled.set(false);
+        flush();
+    }
+    
+    private static synchronized @Nonnull ScheduledExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(
+                    DockerTraceabilityExecutors.threadFactory("Docker Traceability fingerprint writer"));
+        }
+        return executor;
+    }
+}
@@ -28,6 +28,7 @@ import hudson.model.AbstractProject;
 import hudson.model.Fingerprint;
 import hudson.model.Run;
 import hudson.util.RunList;
+import java.io.File;
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.Set;
@@ -54,6 +55,18 @@ public class FingerprintsHelper {
         return null;      
     }
              
+    /**
+     * Gets the XML file of the fingerprint.
+     * The layout is the same as in {@code Fingerprint.getFingerprintFile()}.
+     * @param jenkins Jenkins instance
+     * @param md5sum MD5 hash of the fingerprint
+     * @return Fingerprint file, which may not exist
+     */
+    public static @Nonnull File getFingerprintFile(@Nonnull Jenkins jenkins, @Nonnull String md5sum) {
+        return new File(jenkins.getRootDir(), "fingerprints/" + md5sum.substring(0, 2) + '/' 
+                + md5sum.substring(2, 4) + '/' + md5sum.substring(4) + ".xml");
+    }
+    
     public static void addFacet(@Nonnull Fingerprint fingerprint, @Nonnull FingerprintFacet facet)
            throws IOException {
         fingerprint.getFacets().add(facet);
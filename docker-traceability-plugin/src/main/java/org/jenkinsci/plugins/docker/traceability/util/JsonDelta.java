@@ -0,0 +1,151 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Structural diffs of JSON objects.
+ * A delta is an object with the following optional fields:
+ * <ul>
+ *   <li>{@code set} - object with fields, which have been added or replaced</li>
+ *   <li>{@code patch} - object with nested deltas for the modified object fields</li>
+ *   <li>{@code remove} - array of removed field names</li>
+ * </ul>
+ * Arrays and values are being replaced as a whole.
+ * Unlike JSON Merge Patch, this format preserves {@code null} values.
+ */
+@Restricted(NoExternalUse.class)
+public class JsonDelta {
+    
+    private static final String SET = "set";
+    private static final String PATCH = "patch";
+    private static final String REMOVE = "remove";
+    
+    private JsonDelta() {
+        // Instantiation is prohibited
+    }
+    
+    /**
+     * Calculates the delta between two objects.
+     * @param base Base object
+     * @param target Target object
+     * @return Delta, which converts {@code base} to {@code target}. 
+     *      An empty object if the objects are equal
+     */
+    public static @Nonnull ObjectNode diff(@Nonnull ObjectNode base, @Nonnull ObjectNode target) {
+        final ObjectNode delta = DockerTraceabilityCodecs.newObjectNode();
+        
+        final Iterator<Map.Entry<String, JsonNode>> fields = target.fields();
+        while (fields.hasNext()) {
+            final Map.Entry<String, JsonNode> field = fields.next();
+            final String name = field.getKey();
+            final JsonNode targetValue = field.getValue();
+            final JsonNode baseValue = base.get(name);
+            if (baseValue != null && baseValue.equals(targetValue)) {
+                continue;
+            }
+            
+            if (baseValue != null && baseValue.isObject() && targetValue.isObject()) {
+                getOrCreate(delta, PATCH).set(name, diff((ObjectNode) baseValue, (ObjectNode) targetValue));
+            } else {
+                getOrCreate(delta, SET).set(name, targetValue);
+            }
+        }
+        
+        ArrayNode removed = null;
+        final Iterator<String> baseFields = base.fieldNames();
+        while (baseFields.hasNext()) {
+            final String name = baseFields.next();
+            if (!target.has(name)) {
+                if (removed == null) {
+                    removed = delta.putArray(REMOVE);
+                }
+                removed.add(name);
+            }
+        }
+        return delta;
+    }
+    
+    private static @Nonnull ObjectNode getOrCreate(@Nonnull ObjectNode delta, @Nonnull String name) {
+        final JsonNode existing = delta.get(name);
+        if (existing != null) {
+            return (ObjectNode) existing;
+        }
+        final ObjectNode res = DockerTraceabilityCodecs.newObjectNode();
+        delta.set(name, res);
+        return res;
+    }
+    
+    /**
+     * Applies the delta to the object.
+     * @param base Base object. It won't be modified
+     * @param delta Delta produced by {@link #diff(ObjectNode, ObjectNode)}
+     * @return New object
+     * @throws IOException The delta does not match the object
+     */
+    public static @Nonnull ObjectNode apply(@Nonnull ObjectNode base, @Nonnull JsonNode delta) 
+            throws IOException {
+        final ObjectNode res = base.deepCopy();
+        
+        final JsonNode remove = delta.get(REMOVE);
+        if (remove != null) {
+            for (JsonNode name : remove) {
+                res.remove(name.asText());
+            }
+        }
+        
+        final JsonNode set = delta.get(SET);
+        if (set != null) {
+            final Iterator<Map.Entry<String, JsonNode>> fields = set.fields();
+            while (fields.hasNext()) {
+                final Map.Entry<String, JsonNode> field = fields.next();
+                res.set(field.getKey(), field.getValue());
+            }
+        }
+        
+        final JsonNode patch = delta.get(PATCH);
+        if (patch != null) {
+            final Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+            while (fields.hasNext()) {
+                final Map.Entry<String, JsonNode> field = fields.next();
+                final JsonNode nested = res.get(field.getKey());
+                if (nested == null || !nested.isObject()) {
+                    throw new IOException("Cannot apply the delta to the field " + field.getKey() 
+                            + ", it is not an object");
+                }
+                res.set(field.getKey(), apply((ObjectNode) nested, field.getValue()));
+            }
+        }
+        return res;
+    }
+}
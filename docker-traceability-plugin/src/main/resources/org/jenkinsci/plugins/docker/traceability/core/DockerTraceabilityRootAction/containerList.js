@@ -0,0 +1,178 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+// Server-side paginated list of registered containers.
+// Rows are being loaded from DockerTraceabilityRootAction#doContainerList page-by-page.
+(function() {
+    var PAGE_SIZE = 50;
+
+    function escapeHTML(value) {
+        if (value === null || value === undefined) {
+            return "";
+        }
+        return String(value).replace(/&/g, "&amp;").replace(/</g, "&lt;").replace(/>/g, "&gt;")
+                .replace(/"/g, "&quot;").replace(/'/g, "&#39;");
+    }
+
+    function link(url, text) {
+        return '<a href="' + escapeHTML(url) + '">' + escapeHTML(text) + '</a>';
+    }
+
+    function init(root) {
+        var baseURL = root.getAttribute("data-url");
+        var rootURL = baseURL.substring(0, baseURL.lastIndexOf("/") + 1);
+        var body = root.getElementsByTagName("tbody")[0];
+        var filterInput = root.querySelector(".docker-containers-filter");
+        var statusSelect = root.querySelector(".docker-containers-status");
+        var info = root.querySelector(".docker-containers-info");
+        var prevButton = root.querySelector(".docker-containers-prev");
+        var nextButton = root.querySelector(".docker-containers-next");
+        var state = {offset: 0, sort: "containerId", order: "asc", filter: "", status: ""};
+        var filtered = 0;
+        var requestId = 0;
+        var filterTimer = null;
+
+        function renderRow(row) {
+            var cells = [
+                link(rootURL + "container?id=" + encodeURIComponent(row.containerId), row.containerId),
+                escapeHTML(row.containerName),
+                row.imageId ? link(rootURL + "image?id=" + encodeURIComponent(row.imageId), 
+                        row.imageName || row.imageId) : escapeHTML(row.imageName),
+                escapeHTML(row.hostName),
+                escapeHTML(row.environment),
+                escapeHTML(row.status),
+                row.time ? escapeHTML(row.running) : "",
+                row.time ? escapeHTML(row.exitCode) : "",
+                row.time ? escapeHTML(new Date(row.time * 1000).toLocaleString()) : ""
+            ];
+            return "<tr><td>" + cells.join("</td><td>") + "</td></tr>";
+        }
+
+        function render(page) {
+            var html = [];
+            for (var i = 0; i < page.rows.length; i++) {
+                html.push(renderRow(page.rows[i]));
+            }
+            if (html.length === 0) {
+                html.push('<tr><td colspan="9">No containers</td></tr>');
+            }
+            // tbody.innerHTML is read-only in old IE versions, hence the whole table body is being replaced
+            var container = document.createElement("div");
+            container.innerHTML = "<table><tbody>" + html.join("") + "</tbody></table>";
+            var newBody = container.getElementsByTagName("tbody")[0];
+            body.parentNode.replaceChild(newBody, body);
+            body = newBody;
+
+            filtered = page.filtered;
+            var from = page.rows.length > 0 ? page.offset + 1 : 0;
+            info.innerHTML = escapeHTML(from + "-" + (page.offset + page.rows.length) + " of " + page.filtered
+                    + (page.filtered !== page.total ? " (" + page.total + " registered)" : ""));
+            prevButton.disabled = page.offset === 0;
+            nextButton.disabled = page.offset + page.rows.length >= page.filtered;
+        }
+
+        function load() {
+            var id = ++requestId;
+            var url = baseURL + "?offset=" + state.offset + "&limit=" + PAGE_SIZE
+                    + "&sort=" + encodeURIComponent(state.sort) + "&order=" + state.order
+                    + "&filter=" + encodeURIComponent(state.filter) + "&status=" + encodeURIComponent(state.status);
+            var xhr = new XMLHttpRequest();
+            xhr.open("GET", url, true);
+            xhr.onreadystatechange = function() {
+                if (xhr.readyState !== 4 || id !== requestId) {
+                    return; // Responses to outdated requests are being ignored
+                }
+                if (xhr.status === 200) {
+                    render(JSON.parse(xhr.responseText));
+                } else if (xhr.status === 503) { // The container index is being built after the startup
+                    info.innerHTML = escapeHTML("Loading containers...");
+                    setTimeout(function() {
+                        if (id === requestId) {
+                            load();
+                        }
+                    }, 2000);
+                } else {
+                    info.innerHTML = escapeHTML("Cannot load containers: HTTP " + xhr.status);
+                }
+            };
+            xhr.send(null);
+        }
+
+        var sortLinks = root.querySelectorAll("a[data-sort]");
+        for (var i = 0; i < sortLinks.length; i++) {
+            sortLinks[i].onclick = function() {
+                var column = this.getAttribute("data-sort");
+                state.order = (state.sort === column && state.order === "asc") ? "desc" : "asc";
+                state.sort = column;
+                state.offset = 0;
+                load();
+                return false;
+            };
+        }
+        filterInput.onkeyup = function() {
+            if (filterTimer !== null) {
+                clearTimeout(filterTimer);
+            }
+            filterTimer = setTimeout(function() {
+                filterTimer = null;
+                if (state.filter !== filterInput.value) {
+                    state.filter = filterInput.value;
+                    state.offset = 0;
+                    load();
+                }
+            }, 300);
+        };
+        statusSelect.onchange = function() {
+            state.status = statusSelect.value;
+            state.offset = 0;
+            load();
+        };
+        prevButton.onclick = function() {
+            state.offset = Math.max(0, state.offset - PAGE_SIZE);
+            load();
+        };
+        nextButton.onclick = function() {
+            if (state.offset + PAGE_SIZE < filtered) {
+                state.offset += PAGE_SIZE;
+                load();
+            }
+        };
+        load();
+    }
+
+    function onLoad() {
+        var root = document.getElementById("docker-traceability-containers");
+        if (root) {
+            init(root);
+        }
+    }
+
+    if (document.readyState === "complete" || document.readyState === "interactive") {
+        onLoad();
+    } else if (window.addEventListener) {
+        window.addEventListener("DOMContentLoaded", onLoad, false);
+    } else {
+        window.attachEvent("onload", onLoad);
+    }
+})();
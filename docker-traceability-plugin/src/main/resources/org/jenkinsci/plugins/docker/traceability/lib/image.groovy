@@ -25,7 +25,7 @@ import lib.LayoutTagLib
 import jenkins.model.Jenkins
 import hudson.model.Fingerprint
 import java.io.IOException
-import org.jenkinsci.plugins.docker.commons.fingerprint.DockerFingerprints
+import org.jenkinsci.plugins.docker.traceability.core.DockerTraceabilityHelper
 import org.apache.commons.lang.StringUtils
 
 l=namespace(LayoutTagLib)
@@ -43,7 +43,7 @@ st.documentation() {
 Fingerprint fp = null;
 if (StringUtils.isNotBlank(id)) {
   try {
-     fp = DockerFingerprints.of(id); 
+     fp = DockerTraceabilityHelper.ofImage(id); 
   } catch (IOException ex) {
       // Do nothing
   }
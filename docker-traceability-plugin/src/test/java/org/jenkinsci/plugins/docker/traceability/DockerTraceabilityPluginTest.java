@@ -24,6 +24,10 @@
 package org.jenkinsci.plugins.docker.traceability;
 
 import java.io.IOException;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPluginConfiguration.AuditLevel;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPluginConfiguration.AuditSettings;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPluginConfiguration.IngestionSettings;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPluginConfiguration.RetentionSettings;
 import static org.junit.Assert.*;
 import org.junit.Rule;
 import org.junit.Test;
@@ -52,16 +56,41 @@ public class DockerTraceabilityPluginTest {
         // Round-trip with true/false
         DockerTraceabilityPluginConfiguration config2 = new DockerTraceabilityPluginConfiguration(true, false);
         testRoundtrip(config2);
+        
+        // Round-trip with the asynchronous ingestion
+        DockerTraceabilityPluginConfiguration config3 = new DockerTraceabilityPluginConfiguration(true, false, 
+                new IngestionSettings(true), null, null);
+        testRoundtrip(config3);
+        
+        // Round-trip with the retention policy
+        DockerTraceabilityPluginConfiguration config4 = new DockerTraceabilityPluginConfiguration(true, false, 
+                null, new RetentionSettings(100, 30, 15), null);
+        testRoundtrip(config4);
+        
+        // Round-trip with the audit log
+        DockerTraceabilityPluginConfiguration config5 = new DockerTraceabilityPluginConfiguration(true, false, 
+                null, null, new AuditSettings(AuditLevel.SAMPLED, 10));
+        testRoundtrip(config5);
     }
     
     private void testRoundtrip(DockerTraceabilityPluginConfiguration config)throws IOException {
         final DockerTraceabilityPlugin plugin = DockerTraceabilityPlugin.getInstance();
         plugin.configure(config);
-        assertEquals(config.isCreateImageFingerprints(), plugin.getConfiguration().isCreateImageFingerprints());
-        assertEquals(config.isShowRootAction(), plugin.getConfiguration().isShowRootAction());
+        assertConfigurationEquals(config, plugin.getConfiguration());
         plugin.load();
-        assertEquals(config.isCreateImageFingerprints(), plugin.getConfiguration().isCreateImageFingerprints());
-        assertEquals(config.isShowRootAction(), plugin.getConfiguration().isShowRootAction());
+        assertConfigurationEquals(config, plugin.getConfiguration());
+    }
+    
+    private static void assertConfigurationEquals(DockerTraceabilityPluginConfiguration expected, 
+            DockerTraceabilityPluginConfiguration actual) {
+        assertEquals(expected.isCreateImageFingerprints(), actual.isCreateImageFingerprints());
+        assertEquals(expected.isShowRootAction(), actual.isShowRootAction());
+        assertEquals(expected.getIngestion().isAsyncIngestion(), actual.getIngestion().isAsyncIngestion());
+        assertEquals(expected.getRetention().getMaxRecordsPerContainer(), actual.getRetention().getMaxRecordsPerContainer());
+        assertEquals(expected.getRetention().getMaxRecordAgeDays(), actual.getRetention().getMaxRecordAgeDays());
+        assertEquals(expected.getRetention().getInspectIntervalMinutes(), actual.getRetention().getInspectIntervalMinutes());
+        assertEquals(expected.getAudit().getAuditLevel(), actual.getAudit().getAuditLevel());
+        assertEquals(expected.getAudit().getAuditSampleRate(), actual.getAudit().getAuditSampleRate());
     }
     
     /**
@@ -0,0 +1,117 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import org.jenkinsci.plugins.docker.traceability.test.FingerprintTestUtil;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link DockerContainerRegistry}.
+ */
+public class DockerContainerRegistryTest {
+    
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+    
+    @Test
+    public void restoreFromLogAndSnapshot() throws Exception {
+        final File dir = tmp.newFolder();
+        final String id1 = FingerprintTestUtil.generateDockerId("1");
+        final String id2 = FingerprintTestUtil.generateDockerId("2");
+        final String id3 = FingerprintTestUtil.generateDockerId("3");
+        
+        DockerContainerRegistry registry = new DockerContainerRegistry(dir);
+        assertTrue(registry.add(id1));
+        assertTrue(registry.add(id2));
+        assertFalse(registry.add(id2));
+        assertTrue(registry.remove(id1));
+        assertFalse(registry.remove(id3));
+        
+        // Restore from the log
+        registry = new DockerContainerRegistry(dir);
+        assertEquals(1, registry.size());
+        assertTrue(registry.contains(id2));
+        
+        // Restore from the snapshot and the log tail
+        registry.compact();
+        assertTrue(registry.add(id3));
+        registry = new DockerContainerRegistry(dir);
+        assertEquals(2, registry.size());
+        assertTrue(registry.contains(id2));
+        assertTrue(registry.contains(id3));
+    }
+    
+    @Test
+    public void snapshotsAreImmutable() throws Exception {
+        final String id1 = FingerprintTestUtil.generateDockerId("1");
+        final String id2 = FingerprintTestUtil.generateDockerId("2");
+        final DockerContainerRegistry registry = new DockerContainerRegistry(tmp.newFolder());
+        registry.add(id1);
+        
+        final Set<String> snapshot = registry.getContainerIDs();
+        assertSame("Snapshot should be reused until the next modification", snapshot, registry.getContainerIDs());
+        try {
+            snapshot.add(id2);
+            fail("Snapshots should be unmodifiable");
+        } catch (UnsupportedOperationException ex) {
+            // expected
+        }
+        
+        registry.add(id2);
+        assertEquals(1, snapshot.size());
+        assertEquals(2, registry.getContainerIDs().size());
+        registry.remove(id1);
+        assertEquals(Collections.singleton(id2), registry.getContainerIDs());
+        assertTrue(snapshot.contains(id1));
+    }
+    
+    @Test
+    public void failedWriteDoesNotModifyRegistry() throws Exception {
+        final File dir = new File(tmp.newFolder(), "registry");
+        final String id = FingerprintTestUtil.generateDockerId("1");
+        final DockerContainerRegistry registry = new DockerContainerRegistry(dir);
+        
+        assertTrue("Cannot create a file, which blocks the registry directory", dir.createNewFile());
+        try {
+            registry.add(id);
+            fail("The log entry should not be written");
+        } catch (IOException ex) {
+            // expected
+        }
+        assertFalse(registry.contains(id));
+        assertEquals(0, registry.size());
+        
+        assertTrue(dir.delete());
+        assertTrue(registry.add(id));
+        registry.close();
+        assertTrue(new DockerContainerRegistry(dir).contains(id));
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.core;
+
+import hudson.search.SearchItem;
+import java.util.ArrayList;
+import java.util.List;
+import org.jenkinsci.plugins.docker.traceability.test.FingerprintTestUtil;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests for {@link DockerContainerSearchIndex}.
+ */
+public class DockerContainerSearchIndexTest {
+    
+    @Test
+    public void suggestByPrefixes() {
+        final String id1 = FingerprintTestUtil.generateDockerId("a1");
+        final String id2 = FingerprintTestUtil.generateDockerId("a2");
+        final DockerContainerSearchIndex index = new DockerContainerSearchIndex();
+        index.put(id1, "/web-1", "nginx:latest");
+        index.put(id2, "/db-1", "postgres");
+        
+        assertEquals(2, suggest(index, "A").size());
+        assertEquals(1, suggest(index, "a1cc").size());
+        assertEquals(1, suggest(index, "WEB").size());
+        assertEquals("container?id=" + id1, suggest(index, "nginx").get(0).getSearchUrl());
+        assertEquals("container?id=" + id2, suggest(index, "postgres").get(0).getSearchUrl());
+        assertEquals(0, suggest(index, "redis").size());
+        
+        // Exact matches
+        assertEquals(1, find(index, id1.substring(0, DockerContainerSearchIndex.SHORT_ID_LENGTH)).size());
+        assertEquals(1, find(index, "web-1").size());
+        assertEquals(0, find(index, "web").size());
+    }
+    
+    @Test
+    public void updateAndRemove() {
+        final String id = FingerprintTestUtil.generateDockerId("b");
+        final DockerContainerSearchIndex index = new DockerContainerSearchIndex();
+        index.put(id, null, null);
+        assertEquals(0, suggest(index, "web").size());
+        
+        index.put(id, "/web-1", "nginx");
+        assertEquals(1, suggest(index, "web").size());
+        index.put(id, "/web-2", "nginx");
+        assertEquals(0, find(index, "web-1").size());
+        assertEquals(1, find(index, "web-2").size());
+        
+        index.remove(id);
+        assertEquals(0, index.size());
+        assertEquals(0, suggest(index, "b").size());
+        assertEquals(0, suggest(index, "nginx").size());
+    }
+    
+    private static List<SearchItem> suggest(DockerContainerSearchIndex index, String token) {
+        final List<SearchItem> res = new ArrayList<SearchItem>();
+        index.suggest(token, res);
+        return res;
+    }
+    
+    private static List<SearchItem> find(DockerContainerSearchIndex index, String token) {
+        final List<SearchItem> res = new ArrayList<SearchItem>();
+        index.find(token, res);
+        return res;
+    }
+}
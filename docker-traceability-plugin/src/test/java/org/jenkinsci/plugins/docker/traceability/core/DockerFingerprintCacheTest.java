@@ -0,0 +1,102 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.core;
+
+import hudson.model.Fingerprint;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link DockerFingerprintCache}.
+ */
+public class DockerFingerprintCacheTest {
+    
+    @Test
+    public void evictLeastRecentlyUsed() {
+        final DockerFingerprintCache cache = new DockerFingerprintCache("test", 3);
+        final Fingerprint fp1 = mock(Fingerprint.class);
+        cache.putLoaded("1", fp1);
+        cache.putLoaded("2", mock(Fingerprint.class));
+        cache.putLoaded("3", mock(Fingerprint.class));
+        assertSame(fp1, cache.get("1"));
+        cache.putLoaded("4", mock(Fingerprint.class));
+        
+        assertEquals(3, cache.getSize());
+        assertNotNull(cache.get("1"));
+        assertNull("The least recently used entry should be evicted", cache.get("2"));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(2.0 / 3, cache.getHitRate(), 1e-9);
+    }
+    
+    @Test
+    public void writtenEntriesSurviveScans() {
+        final DockerFingerprintCache cache = new DockerFingerprintCache("test", 10);
+        final Fingerprint active = mock(Fingerprint.class);
+        cache.putWritten("active", active);
+        for (int i = 0; i < 100; i++) {
+            cache.putLoaded("scan" + i, mock(Fingerprint.class));
+        }
+        
+        assertEquals(10, cache.getSize());
+        assertEquals(1, cache.getProtectedSize());
+        assertSame(active, cache.get("active"));
+    }
+    
+    @Test
+    public void protectedSegmentOverflow() {
+        final DockerFingerprintCache cache = new DockerFingerprintCache("test", 10);
+        for (int i = 0; i < 10; i++) {
+            cache.putWritten("active" + i, mock(Fingerprint.class));
+        }
+        
+        assertEquals(8, cache.getProtectedSize());
+        assertEquals(10, cache.getSize());
+        cache.putWritten("active10", mock(Fingerprint.class));
+        assertNull("The least recently written entry should be evicted", cache.get("active0"));
+        assertNotNull(cache.get("active10"));
+    }
+    
+    @Test
+    public void invalidate() {
+        final DockerFingerprintCache cache = new DockerFingerprintCache("test", 10);
+        cache.putWritten("1", mock(Fingerprint.class));
+        cache.putLoaded("2", mock(Fingerprint.class));
+        cache.invalidate("1");
+        assertNull(cache.get("1"));
+        assertNotNull(cache.get("2"));
+        cache.invalidateAll();
+        assertEquals(0, cache.getSize());
+    }
+    
+    @Test
+    public void disabledCache() {
+        final DockerFingerprintCache cache = new DockerFingerprintCache("test", 0);
+        cache.putWritten("1", mock(Fingerprint.class));
+        cache.putLoaded("2", mock(Fingerprint.class));
+        assertEquals(0, cache.getSize());
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.File;
+import org.apache.commons.io.FileUtils;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPluginConfiguration.AuditLevel;
+import org.jenkinsci.plugins.docker.traceability.api.DockerTraceabilityReport;
+import org.jenkinsci.plugins.docker.traceability.dockerjava.api.command.InspectContainerResponse;
+import org.jenkinsci.plugins.docker.traceability.samples.JSONSamples;
+import org.jenkinsci.plugins.docker.traceability.test.FingerprintTestUtil;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityCodecs;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link DockerTraceabilityAuditLog} and {@link DockerTraceabilityReportLogger}.
+ */
+public class DockerTraceabilityAuditLogTest {
+    
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+    
+    @Test
+    public void writeAndRotate() throws Exception {
+        final File rootDir = tmp.newFolder();
+        final DockerTraceabilityAuditLog log = new DockerTraceabilityAuditLog(rootDir, 1000, 1024, 2);
+        final String record = "{\"record\":\"" + FingerprintTestUtil.generateDockerId("1") + "\"}";
+        for (int i = 0; i < 100; i++) {
+            assertTrue("Record has been dropped", log.offer(record));
+        }
+        log.shutdown();
+        
+        assertEquals(100, log.getWrittenCount());
+        assertEquals(0, log.getDroppedCount());
+        assertTrue(new File(rootDir, "audit.log.1").exists());
+        assertTrue(new File(rootDir, "audit.log.2").exists());
+        assertFalse("Only two rotated files should be retained", new File(rootDir, "audit.log.3").exists());
+        for (String line : FileUtils.readLines(new File(rootDir, "audit.log.1"))) {
+            assertEquals(record, line);
+        }
+        
+        // Stopped log drops records
+        assertFalse(log.offer(record));
+        assertEquals(1, log.getDroppedCount());
+    }
+    
+    @Test
+    public void compactRecord() throws Exception {
+        final String imageId = FingerprintTestUtil.generateDockerId("1");
+        final InspectContainerResponse containerInfo = JSONSamples.inspectContainerData_emptyImage.
+                readObject(InspectContainerResponse.class);
+        final DockerTraceabilityReport report = FingerprintTestUtil.createReport("start", 12345, containerInfo, 
+                "test/image", "prod");
+        
+        final String record = DockerTraceabilityReportLogger.toRecord(report, 1000);
+        assertFalse("Record should be single-line", record.contains("\n"));
+        final JsonNode node = DockerTraceabilityCodecs.getMapper().readTree(record);
+        assertEquals(1000, node.get("timestamp").asLong());
+        assertEquals(12345, node.get("time").asLong());
+        assertEquals("start", node.get("status").asText());
+        assertEquals(containerInfo.getId(), node.get("containerId").asText());
+        assertEquals(imageId, node.get("imageId").asText());
+        assertEquals("test/image", node.get("imageName").asText());
+        assertEquals("prod", node.get("environment").asText());
+        assertEquals("hostId", node.get("hostId").asText());
+        assertEquals("host", node.get("hostName").asText());
+    }
+    
+    @Test
+    public void sampling() {
+        final DockerTraceabilityReportLogger logger = new DockerTraceabilityReportLogger();
+        int sampled = 0;
+        for (int i = 0; i < 100; i++) {
+            assertFalse(logger.isSampled(AuditLevel.OFF, 10));
+            assertTrue(logger.isSampled(AuditLevel.FULL, 10));
+            if (logger.isSampled(AuditLevel.SAMPLED, 10)) {
+                sampled++;
+            }
+        }
+        assertEquals(10, sampled);
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.jenkinsci.plugins.docker.traceability.model.DockerTraceabilityReportListener;
+import org.jenkinsci.plugins.docker.traceability.model.DockerTraceabilityReportListener.OverflowPolicy;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests for {@link DockerTraceabilityListenerDispatcher}.
+ */
+public class DockerTraceabilityListenerDispatcherTest {
+    
+    @Test
+    public void asyncListenersPreserveOrder() throws Exception {
+        final RecordingListener listener = new RecordingListener(OverflowPolicy.BLOCK, 4);
+        final DockerTraceabilityListenerDispatcher dispatcher = new DockerTraceabilityListenerDispatcher();
+        final List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 100; i++) {
+            expected.add("container" + i);
+            dispatcher.onNewDeployment(listener, "container" + i);
+        }
+        dispatcher.shutdown();
+        
+        assertEquals(expected, listener.received);
+        assertNotSame(Thread.currentThread(), listener.thread);
+    }
+    
+    @Test
+    public void dropOnOverflow() throws Exception {
+        final RecordingListener listener = new RecordingListener(OverflowPolicy.DROP, 1);
+        listener.release = new CountDownLatch(1);
+        final DockerTraceabilityListenerDispatcher dispatcher = new DockerTraceabilityListenerDispatcher();
+        
+        dispatcher.onNewDeployment(listener, "first");
+        assertTrue("The first notification has not been delivered", listener.started.await(10, TimeUnit.SECONDS));
+        dispatcher.onNewDeployment(listener, "second"); // Waits in the queue
+        dispatcher.onNewDeployment(listener, "third"); // Dropped
+        assertEquals(Long.valueOf(1), dispatcher.getDroppedCounts().get(RecordingListener.class.getName()));
+        
+        listener.release.countDown();
+        dispatcher.shutdown();
+        assertEquals(Arrays.asList("first", "second"), listener.received);
+    }
+    
+    @Test
+    public void syncListenersAreInvokedDirectly() throws Exception {
+        final RecordingListener listener = new RecordingListener(OverflowPolicy.BLOCK, 1) {
+            @Override
+            public DispatchMode getDispatchMode() {
+                return DispatchMode.SYNCHRONOUS;
+            }
+        };
+        new DockerTraceabilityListenerDispatcher().onNewDeployment(listener, "container");
+        assertEquals(Collections.singletonList("container"), listener.received);
+        assertSame(Thread.currentThread(), listener.thread);
+    }
+    
+    private static class RecordingListener extends DockerTraceabilityReportListener {
+        
+        private final OverflowPolicy overflowPolicy;
+        private final int queueCapacity;
+        final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch started = new CountDownLatch(1);
+        volatile CountDownLatch release;
+        volatile Thread thread;
+
+        RecordingListener(OverflowPolicy overflowPolicy, int queueCapacity) {
+            this.overflowPolicy = overflowPolicy;
+            this.queueCapacity = queueCapacity;
+        }
+        
+        @Override
+        public void onNewDeployment(String containerId) {
+            thread = Thread.currentThread();
+            started.countDown();
+            if (release != null) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            received.add(containerId);
+        }
+
+        @Override
+        public DispatchMode getDispatchMode() {
+            return DispatchMode.ASYNCHRONOUS;
+        }
+
+        @Override
+        public OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        @Override
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+    }
+}
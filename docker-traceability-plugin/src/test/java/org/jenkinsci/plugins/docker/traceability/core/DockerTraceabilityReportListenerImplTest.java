@@ -37,6 +37,7 @@ import org.jenkinsci.plugins.docker.traceability.samples.JSONSamples;
 import org.jenkinsci.plugins.docker.traceability.test.FingerprintTestUtil;
 import static org.junit.Assert.*;
 import org.junit.Rule;
+import org.junit.Test;
 import org.jvnet.hudson.test.Bug;
 import org.jvnet.hudson.test.JenkinsRule;
 
@@ -79,4 +80,22 @@ public class DockerTraceabilityReportListenerImplTest {
         assertEquals("Expected both reports to be saved in the fingerprint", 2, facet.getDeploymentRecords().size());     
     }
     
+    /**
+     * Checks that equal reports from multiple reporters are stored once.
+     * @throws Exception test failure
+     */
+    @Test
+    public void duplicateReportsAreIgnored() throws Exception {
+        DockerTraceabilityPluginTest.configure(new DockerTraceabilityPluginConfiguration(true, true));
+        DockerTraceabilityReport report = null;
+        for (int i = 0; i < 2; i++) { // Equal, but not identical reports
+            report = FingerprintTestUtil.createReport("run", 12345);
+            DockerTraceabilityReportListener.fire(report);
+        }
+        
+        final DockerDeploymentFacet facet = 
+            DockerFingerprints.getFacet(report.getContainerId(), DockerDeploymentFacet.class);
+        assertNotNull(facet);
+        assertEquals("Expected the duplicate report to be ignored", 1, facet.getDeploymentRecords().size());
+    }
 }
@@ -23,15 +23,21 @@
  */
 package org.jenkinsci.plugins.docker.traceability.core;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.gargoylesoftware.htmlunit.Page;
 import hudson.model.Action;
 import hudson.model.Fingerprint;
 import hudson.model.FreeStyleBuild;
 import hudson.model.FreeStyleProject;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.apache.commons.lang.StringUtils;
 import org.jenkinsci.plugins.docker.commons.fingerprint.DockerFingerprints;
 import org.jenkinsci.plugins.docker.traceability.api.DockerTraceabilityReport;
 import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPlugin;
@@ -43,8 +49,11 @@ import org.jenkinsci.plugins.docker.traceability.fingerprint.DockerContainerReco
 import org.jenkinsci.plugins.docker.traceability.fingerprint.DockerDeploymentFacet;
 import org.jenkinsci.plugins.docker.traceability.fingerprint.DockerDeploymentRefFacet;
 import org.jenkinsci.plugins.docker.traceability.fingerprint.DockerInspectImageFacet;
+import org.jenkinsci.plugins.docker.traceability.model.DockerAPIReport;
 import org.jenkinsci.plugins.docker.traceability.samples.JSONSamples;
 import org.jenkinsci.plugins.docker.traceability.test.FingerprintTestUtil;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityCodecs;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityMetrics;
 import org.jenkinsci.plugins.docker.traceability.util.FingerprintsHelper;
 import static org.junit.Assert.*;
 import org.junit.Rule;
@@ -109,6 +118,185 @@ public class DockerTraceabilityRootActionTest {
         assertEquals(1, parsedData.length);       
     }
     
+    @Test
+    public void queryContainers() throws Exception {
+        final String inspectData = JSONSamples.inspectContainerData.readString();
+        final InspectContainerResponse inspectResponse = JSONSamples.inspectContainerData.
+                readObject(InspectContainerResponse[].class)[0];
+        final String containerId = inspectResponse.getId();
+        final String imageId = inspectResponse.getImageId();
+        
+        final DockerTraceabilityRootAction action = DockerTraceabilityRootAction.getInstance();
+        assertNotNull(action);
+        DockerTraceabilityPluginTest.configure(new DockerTraceabilityPluginConfiguration(true, false));
+        action.doSubmitContainerStatus(inspectData, "hostId", "prod-host-1", "start", 0, "prod", null);
+        buildContainerIndex(action); // Queries are rejected while the index is being built
+        
+        final JenkinsRule.WebClient client = j.createWebClient();
+        final ObjectMapper mapper = new ObjectMapper();
+        JsonNode res = mapper.readTree(client.goTo("docker-traceability/queryContainers?imageId=" + imageId 
+                + "&hostName=prod-host-1&environment=prod&status=START", "application/json")
+                .getWebResponse().getContentAsString());
+        assertEquals(1, res.size());
+        assertEquals(containerId, res.get(0).get("containerId").asText());
+        assertEquals("prod-host-1", res.get(0).get("hostName").asText());
+        
+        res = mapper.readTree(client.goTo("docker-traceability/queryContainers?environment=test", "application/json")
+                .getWebResponse().getContentAsString());
+        assertEquals(0, res.size());
+        
+        // Removed containers should disappear from the index
+        action.removeContainerID(containerId);
+        res = mapper.readTree(client.goTo("docker-traceability/queryContainers?hostName=prod-host-1", "application/json")
+                .getWebResponse().getContentAsString());
+        assertEquals(0, res.size());
+    }
+    
+    @Test
+    public void recordsFromSummaries() throws Exception {
+        final String inspectData = JSONSamples.inspectContainerData.readString();
+        final InspectContainerResponse inspectResponse = JSONSamples.inspectContainerData.
+                readObject(InspectContainerResponse[].class)[0];
+        final String containerId = inspectResponse.getId();
+        
+        final DockerTraceabilityRootAction action = DockerTraceabilityRootAction.getInstance();
+        assertNotNull(action);
+        DockerTraceabilityPluginTest.configure(new DockerTraceabilityPluginConfiguration(true, false));
+        action.doSubmitContainerStatus(inspectData, "hostId", "prod-host-1", "start", 1000, "prod", "my-image");
+        action.doSubmitContainerStatus(inspectData, "hostId", "prod-host-1", "die", 2000, "prod", "my-image");
+        // Inspect snapshots do not change the status
+        action.doSubmitContainerStatus(inspectData, "hostId", "prod-host-1", null, 3000, "prod", "my-image");
+        
+        final DockerContainerIndex.Entry summary = action.getContainerSummary(containerId);
+        assertNotNull(summary);
+        assertEquals("DIE", summary.getStatus());
+        assertEquals(3000, summary.getTime());
+        assertEquals(inspectResponse.getName(), summary.getContainerName());
+        assertEquals("my-image", summary.getImageName());
+        assertEquals(inspectResponse.getState().getExitCode(), summary.getExitCode());
+        
+        // records() should be equal to reports built from fingerprints
+        final DockerAPIReport expected = DockerAPIReport.forContainer(containerId);
+        assertNotNull(expected);
+        assertEquals(1, action.records().size());
+        final DockerAPIReport actual = action.records().get(0);
+        assertEquals(expected.getLastUpdate(), actual.getLastUpdate());
+        assertEquals(expected.getContainer().getName(), actual.getContainer().getName());
+        assertEquals(expected.getContainer().getState().getLastStatus(), actual.getContainer().getState().getLastStatus());
+        assertEquals(expected.getContainer().getState().isRunning(), actual.getContainer().getState().isRunning());
+        assertEquals(expected.getContainer().getState().getStartedAt(), actual.getContainer().getState().getStartedAt());
+        assertEquals(expected.getImage().getId(), actual.getImage().getId());
+        assertEquals(expected.getHost().getName(), actual.getHost().getName());
+        assertEquals(expected.getParents(), actual.getParents());
+        assertEquals(expected.getContainer().getFingerprint().getHashString(), 
+                actual.getContainer().getFingerprint().getHashString());
+    }
+    
+    @Test
+    public void containerList() throws Exception {
+        final String inspectData = JSONSamples.inspectContainerData.readString();
+        final String containerId = JSONSamples.inspectContainerData.
+                readObject(InspectContainerResponse[].class)[0].getId();
+        final String unknownContainerId = StringUtils.repeat("f", 64);
+        
+        final DockerTraceabilityRootAction action = DockerTraceabilityRootAction.getInstance();
+        assertNotNull(action);
+        DockerTraceabilityPluginTest.configure(new DockerTraceabilityPluginConfiguration(true, false));
+        action.doSubmitContainerStatus(inspectData, "hostId", "prod-host-1", "start", 0, "prod", null);
+        action.addContainerID(unknownContainerId);
+        buildContainerIndex(action);
+        
+        final JenkinsRule.WebClient client = j.createWebClient();
+        final ObjectMapper mapper = new ObjectMapper();
+        JsonNode res = mapper.readTree(client.goTo("docker-traceability/containerList?sort=time&order=desc", 
+                "application/json").getWebResponse().getContentAsString());
+        assertEquals(2, res.get("total").asInt());
+        assertEquals(2, res.get("filtered").asInt());
+        assertEquals(containerId, res.get("rows").get(0).get("containerId").asText());
+        assertEquals(unknownContainerId, res.get("rows").get(1).get("containerId").asText());
+        
+        res = mapper.readTree(client.goTo("docker-traceability/containerList?filter=PROD-HOST&status=start", 
+                "application/json").getWebResponse().getContentAsString());
+        assertEquals(1, res.get("filtered").asInt());
+        assertEquals("prod-host-1", res.get("rows").get(0).get("hostName").asText());
+        
+        res = mapper.readTree(client.goTo("docker-traceability/containerList?offset=1&limit=1", 
+                "application/json").getWebResponse().getContentAsString());
+        assertEquals(2, res.get("filtered").asInt());
+        assertEquals(1, res.get("rows").size());
+        assertEquals(unknownContainerId, res.get("rows").get(0).get("containerId").asText());
+        
+        // The page renders only the table skeleton, rows are being loaded by the script
+        client.goTo("docker-traceability/");
+    }
+    
+    @Test
+    public void metrics() throws Exception {
+        final String inspectData = JSONSamples.inspectContainerData.readString();
+        final String containerId = JSONSamples.inspectContainerData.
+                readObject(InspectContainerResponse[].class)[0].getId();
+        
+        final DockerTraceabilityRootAction action = DockerTraceabilityRootAction.getInstance();
+        assertNotNull(action);
+        DockerTraceabilityPluginTest.configure(new DockerTraceabilityPluginConfiguration(true, false));
+        action.doSubmitContainerStatus(inspectData, "hostId", "prod-host-1", "start", 0, "prod", null);
+        
+        final JenkinsRule.WebClient client = j.createWebClient();
+        client.goTo("docker-traceability/queryContainer?id=" + containerId, "application/json");
+        final JsonNode res = new ObjectMapper().readTree(client.goTo("docker-traceability/metrics", 
+                "application/json").getWebResponse().getContentAsString());
+        final JsonNode timers = res.get("timers");
+        for (String timer : new String[] {"submit.parse", "report.process", "report.resolve", 
+                "report.persist", "fingerprint.lookup", "fingerprint.save", "listener.fanout", "query.container"}) {
+            assertTrue("Timer " + timer + " has no measurements", timers.get(timer).get("count").asLong() > 0);
+        }
+        assertTrue(res.get("reportsPerSecond").isNumber());
+        assertTrue(res.get("dropped").has("rejectedSubmissions"));
+        
+        // Statistics are also available via JMX
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertTrue(server.isRegistered(new ObjectName(DockerTraceabilityStatistics.JMX_DOMAIN + ":type=Statistics")));
+        assertTrue((Long) server.getAttribute(DockerTraceabilityStatistics.timerName(
+                DockerTraceabilityMetrics.REPORT_PROCESS), "Count") > 0);
+    }
+    
+    @Test
+    public void recordsPagination() throws Exception {
+        final String inspectData = JSONSamples.inspectContainerData.readString();
+        final String containerId = JSONSamples.inspectContainerData.
+                readObject(InspectContainerResponse[].class)[0].getId();
+        final String missingBefore = StringUtils.repeat("0", 64);
+        final String missingAfter = StringUtils.repeat("f", 64);
+        
+        final DockerTraceabilityRootAction action = DockerTraceabilityRootAction.getInstance();
+        assertNotNull(action);
+        DockerTraceabilityPluginTest.configure(new DockerTraceabilityPluginConfiguration(true, false));
+        action.doSubmitContainerStatus(inspectData, null, null, null, 0, null, null);
+        // Containers without fingerprints should be skipped
+        action.addContainerID(missingBefore);
+        action.addContainerID(missingAfter);
+        
+        final JenkinsRule.WebClient client = j.createWebClient();
+        final ObjectMapper mapper = new ObjectMapper();
+        JsonNode res = mapper.readTree(client.goTo("docker-traceability/records?limit=1", "application/json")
+                .getWebResponse().getContentAsString());
+        assertEquals(3, res.get("total").asInt());
+        assertEquals(1, res.get("records").size());
+        assertEquals(containerId, res.get("records").get(0).get("container").get("id").asText());
+        assertEquals(containerId, res.get("nextCursor").asText());
+        
+        res = mapper.readTree(client.goTo("docker-traceability/records?after=" + containerId, "application/json")
+                .getWebResponse().getContentAsString());
+        assertEquals(2, res.get("offset").asInt());
+        assertEquals(0, res.get("records").size());
+        assertTrue(res.get("nextCursor").isNull());
+        
+        res = mapper.readTree(client.goTo("docker-traceability/records?offset=1&limit=5", "application/json")
+                .getWebResponse().getContentAsString());
+        assertEquals(1, res.get("records").size());
+        assertTrue(res.get("nextCursor").isNull());
+    }
+    
     @Test
     @Bug(28656)
     public void createFingerPrintsOnDemand() throws Exception {
@@ -199,6 +387,60 @@ public class DockerTraceabilityRootActionTest {
         assertEquals(imageId, apiResponse.getId()); 
     }
     
+    @Test
+    public void queryContainerTimeRange() throws Exception {
+        DockerTraceabilityPluginTest.configure(new DockerTraceabilityPluginConfiguration(true, false));
+        final DockerTraceabilityRootAction action = DockerTraceabilityRootAction.getInstance();
+        assertNotNull(action);
+        
+        final ObjectNode template = (ObjectNode) DockerTraceabilityCodecs.getMapper().readTree(
+                JSONSamples.submitReport.readString());
+        final String containerId = template.get("container").get("Id").asText();
+        final String[] statuses = {"create", "start", "none", "none", "die"};
+        for (int i = 0; i < statuses.length; i++) {
+            final ObjectNode report = template.deepCopy();
+            ((ObjectNode) report.get("event")).put("status", statuses[i]);
+            ((ObjectNode) report.get("event")).put("time", 1000 + i * 10);
+            action.doSubmitReport(DockerTraceabilityCodecs.writer().writeValueAsString(report));
+        }
+        
+        final JsonNode events = DockerTraceabilityCodecs.getMapper().readTree(j.createWebClient().goTo(
+                "docker-traceability/queryContainer?id=" + containerId + "&mode=events&since=1010&until=1030", 
+                "application/json").getWebResponse().getContentAsString());
+        assertEquals(3, events.size());
+        assertEquals("start", events.get(0).get("status").asText());
+        assertEquals(1030, events.get(2).get("time").asLong());
+        
+        // Ordering and pagination
+        final String query = "docker-traceability/queryContainer?id=" + containerId + "&mode=events";
+        JsonNode page = DockerTraceabilityCodecs.getMapper().readTree(j.createWebClient().goTo(
+                query + "&order=desc&offset=1&limit=2", "application/json").getWebResponse().getContentAsString());
+        assertEquals(2, page.size());
+        assertEquals(1030, page.get(0).get("time").asLong());
+        assertEquals(1020, page.get(1).get("time").asLong());
+        
+        page = DockerTraceabilityCodecs.getMapper().readTree(j.createWebClient().goTo(
+                query + "&latest=2", "application/json").getWebResponse().getContentAsString());
+        assertEquals(2, page.size());
+        assertEquals(1030, page.get(0).get("time").asLong());
+        assertEquals("die", page.get(1).get("status").asText());
+        
+        page = DockerTraceabilityCodecs.getMapper().readTree(j.createWebClient().goTo(
+                query + "&latest=3&order=desc&offset=1&until=1030", "application/json").getWebResponse().getContentAsString());
+        assertEquals(2, page.size());
+        assertEquals(1020, page.get(0).get("time").asLong());
+        assertEquals(1010, page.get(1).get("time").asLong());
+        
+        final DockerDeploymentFacet facet = DockerDeploymentFacet.getDeploymentFacet(containerId);
+        assertNotNull(facet);
+        assertEquals(2, facet.getDeploymentRecords(Long.MIN_VALUE, Long.MAX_VALUE, 
+                facet.getLatest(), true, 2).size());
+        assertNull(facet.getRecordAt(999));
+        assertEquals("start", facet.getRecordAt(1015).getEvent().getStatus());
+        assertEquals("die", facet.getRecordAt(Long.MAX_VALUE).getEvent().getStatus());
+        assertEquals(1030, DockerTraceabilityHelper.getContainerRecordAt(containerId, 1039).getTime());
+    }
+    
     @Test
     public void containerIDs_CRUD() throws Exception {
         // TODO: replace by a helper method from the branch
@@ -322,6 +564,15 @@ public class DockerTraceabilityRootActionTest {
         assertEquals(imageId, inspectImageFacet.getData().getId());
         return inspectImageFacet;
     }
-            
     
+    /**
+     * Builds the container index, the background build may be running concurrently.
+     */
+    private static void buildContainerIndex(DockerTraceabilityRootAction action) throws InterruptedException {
+        for (int i = 0; i < 500 && !action.containerIndex().isBuilt(); i++) {
+            action.buildContainerIndex();
+            Thread.sleep(10);
+        }
+        assertTrue("The container index has not been built", action.containerIndex().isBuilt());
+    }
 }
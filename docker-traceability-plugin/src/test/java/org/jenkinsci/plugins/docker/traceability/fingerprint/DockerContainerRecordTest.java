@@ -0,0 +1,99 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.fingerprint;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import hudson.util.XStream2;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import org.jenkinsci.plugins.docker.traceability.dockerjava.api.command.InspectContainerResponse;
+import org.jenkinsci.plugins.docker.traceability.samples.JSONSamples;
+import org.jenkinsci.plugins.docker.traceability.test.FingerprintTestUtil;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityCodecs;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests for {@link DockerContainerRecord}.
+ */
+public class DockerContainerRecordTest {
+    
+    @Test
+    public void deltaEncoding() throws Exception {
+        final ObjectNode state = tree(JSONSamples.inspectContainerData_emptyImage.readObject(InspectContainerResponse.class));
+        final ObjectNode modifiedState = state.deepCopy();
+        modifiedState.put("Name", "/renamed");
+        
+        final DockerContainerRecord base = record("start", 1, state);
+        final DockerContainerRecord delta = record("none", 2, modifiedState);
+        
+        delta.encodeDelta(base);
+        assertTrue(delta.isDelta());
+        assertEquals(1, delta.getDeltaChainLength());
+        assertEquals(modifiedState, tree(delta.getReport().getContainer()));
+        
+        // Materialization keeps the data
+        delta.materialize();
+        assertFalse(delta.isDelta());
+        assertEquals(modifiedState, tree(delta.getReport().getContainer()));
+    }
+    
+    @Test
+    public void timeRangeViews() throws Exception {
+        final ObjectNode state = tree(JSONSamples.inspectContainerData_emptyImage.readObject(InspectContainerResponse.class));
+        final TreeSet<DockerContainerRecord> records = new TreeSet<DockerContainerRecord>(
+                new DockerContainerRecord.TimeComparator());
+        records.add(record("create", 10, state));
+        records.add(record("start", 10, state));
+        records.add(record("none", 20, state));
+        records.add(record("die", 30, state));
+        
+        final SortedSet<DockerContainerRecord> range = records.subSet(
+                DockerContainerRecord.searchKey(10), true, DockerContainerRecord.searchKey(21), false);
+        assertEquals(3, range.size());
+        assertEquals(20, range.last().getTime());
+        assertNull(records.lower(DockerContainerRecord.searchKey(10)));
+        assertEquals("none", records.lower(DockerContainerRecord.searchKey(30)).getEvent().getStatus());
+    }
+    
+    @Test
+    public void timeIsRestoredAfterLoading() throws Exception {
+        final ObjectNode state = tree(JSONSamples.inspectContainerData_emptyImage.readObject(InspectContainerResponse.class));
+        final DockerContainerRecord record = record("start", 42, state);
+        final XStream2 xs = new XStream2();
+        final DockerContainerRecord loaded = (DockerContainerRecord) xs.fromXML(xs.toXML(record));
+        
+        assertEquals(42, loaded.getTime());
+        assertEquals(0, new DockerContainerRecord.TimeComparator().compare(record, loaded));
+    }
+    
+    private static ObjectNode tree(Object value) {
+        return DockerTraceabilityCodecs.getMapper().valueToTree(value);
+    }
+    
+    private static DockerContainerRecord record(String status, long time, ObjectNode container) throws Exception {
+        final InspectContainerResponse containerInfo = DockerTraceabilityCodecs.inspectContainerReader().readValue(container);
+        return new DockerContainerRecord(FingerprintTestUtil.createReport(status, time, containerInfo, null, null));
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.fingerprint;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import org.jenkinsci.plugins.docker.traceability.test.FingerprintTestUtil;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link DockerDeploymentJournal}.
+ */
+public class DockerDeploymentJournalTest {
+    
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+    
+    @Test
+    public void appendAndRead() throws Exception {
+        final DockerDeploymentJournal journal = new DockerDeploymentJournal(new File(tmp.getRoot(), "test.journal"));
+        assertTrue(journal.read().isEmpty());
+        
+        journal.append(Arrays.asList(FingerprintTestUtil.createRecord("create", 1), 
+                FingerprintTestUtil.createRecord("start", 2)));
+        journal.append(Arrays.asList(FingerprintTestUtil.createRecord("die", 3)));
+        
+        final List<DockerContainerRecord> records = journal.read();
+        assertEquals(3, records.size());
+        assertEquals("die", records.get(2).getReport().getEvent().getStatus());
+        assertEquals(1, records.get(0).getTime());
+        assertEquals("hostId", records.get(0).getReport().getHostInfo().getID());
+    }
+    
+    @Test
+    public void truncatedTailIsDiscarded() throws Exception {
+        final File file = new File(tmp.getRoot(), "test.journal");
+        final DockerDeploymentJournal journal = new DockerDeploymentJournal(file);
+        journal.append(Arrays.asList(FingerprintTestUtil.createRecord("create", 1), 
+                FingerprintTestUtil.createRecord("start", 2)));
+        
+        // Simulate an interrupted write
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(file.length() - 10);
+        } finally {
+            raf.close();
+        }
+        
+        assertEquals(1, journal.read().size());
+        journal.append(Arrays.asList(FingerprintTestUtil.createRecord("die", 3)));
+        final List<DockerContainerRecord> records = journal.read();
+        assertEquals(2, records.size());
+        assertEquals("die", records.get(1).getReport().getEvent().getStatus());
+    }
+    
+    @Test
+    public void undeserializableEntryIsSkipped() throws Exception {
+        final File file = new File(tmp.getRoot(), "test.journal");
+        final DockerDeploymentJournal journal = new DockerDeploymentJournal(file);
+        journal.append(Arrays.asList(FingerprintTestUtil.createRecord("create", 1)));
+        appendRawEntry(file, "{\"unknown\": ".getBytes("UTF-8"), true);
+        journal.append(Arrays.asList(FingerprintTestUtil.createRecord("start", 2)));
+        final long length = file.length();
+        
+        final List<DockerContainerRecord> records = journal.read();
+        assertEquals(2, records.size());
+        assertEquals("start", records.get(1).getReport().getEvent().getStatus());
+        assertEquals("Valid entries must not be truncated", length, file.length());
+    }
+    
+    @Test
+    public void checksumMismatchIsSkippedInTheMiddle() throws Exception {
+        final File file = new File(tmp.getRoot(), "test.journal");
+        final DockerDeploymentJournal journal = new DockerDeploymentJournal(file);
+        journal.append(Arrays.asList(FingerprintTestUtil.createRecord("create", 1)));
+        appendRawEntry(file, "{}".getBytes("UTF-8"), false);
+        journal.append(Arrays.asList(FingerprintTestUtil.createRecord("start", 2)));
+        final long length = file.length();
+        
+        assertEquals(2, journal.read().size());
+        assertEquals("Valid entries must not be truncated", length, file.length());
+        
+        // The same mismatch at the tail is a torn write
+        appendRawEntry(file, "{}".getBytes("UTF-8"), false);
+        assertEquals(2, journal.read().size());
+        assertEquals(length, file.length());
+    }
+    
+    @Test
+    public void staleOffsetDoesNotTruncateNewerEntries() throws Exception {
+        final File file = new File(tmp.getRoot(), "test.journal");
+        final DockerDeploymentJournal journal = new DockerDeploymentJournal(file);
+        journal.append(Arrays.asList(FingerprintTestUtil.createRecord("create", 1)));
+        final long offset = journal.length();
+        final DockerContainerRecord inspect = FingerprintTestUtil.createRecord("none", 2);
+        journal.append(Arrays.asList(inspect));
+        
+        // A newer entry has been appended after the offset was recorded
+        journal.append(Arrays.asList(FingerprintTestUtil.createRecord("none", 3)));
+        assertFalse(journal.truncateLast(offset, inspect));
+        assertEquals(3, journal.read().size());
+        
+        // Another record at the offset
+        final long lastOffset = offset + (journal.length() - offset) / 2;
+        assertFalse(journal.truncateLast(lastOffset, inspect));
+        assertTrue(journal.truncateLast(lastOffset, FingerprintTestUtil.createRecord("none", 3)));
+        assertEquals(2, journal.read().size());
+    }
+    
+    private static void appendRawEntry(File file, byte[] payload, boolean validChecksum) throws Exception {
+        final CRC32 crc = new CRC32();
+        crc.update(payload);
+        final DataOutputStream out = new DataOutputStream(new FileOutputStream(file, true));
+        try {
+            out.writeInt(payload.length);
+            out.writeInt(validChecksum ? (int) crc.getValue() : (int) crc.getValue() + 1);
+            out.write(payload);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.fingerprint;
+
+import java.util.List;
+import java.util.TreeSet;
+import org.jenkinsci.plugins.docker.traceability.test.FingerprintTestUtil;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests for {@link DockerDeploymentRetentionPolicy}.
+ */
+public class DockerDeploymentRetentionPolicyTest {
+    
+    @Test
+    public void downsampleInspectRecords() throws Exception {
+        final DockerDeploymentRetentionPolicy policy = new DockerDeploymentRetentionPolicy(0, 0, 60);
+        final TreeSet<DockerContainerRecord> records = records();
+        final DockerContainerRecord start = FingerprintTestUtil.createRecord("start", 1000);
+        records.add(start);
+        
+        // Inspect records are rejected within the interval, lifecycle events are not
+        final DockerContainerRecord inspect1 = FingerprintTestUtil.createRecord("none", 1010);
+        assertFalse(policy.isRejected(records, inspect1, 2000));
+        records.add(inspect1);
+        records.add(FingerprintTestUtil.createRecord("die", 1100));
+        assertTrue(policy.isRejected(records, FingerprintTestUtil.createRecord("none", 1020), 2000));
+        assertFalse(policy.isRejected(records, FingerprintTestUtil.createRecord("none", 1080), 2000));
+        assertFalse(policy.isRejected(records, FingerprintTestUtil.createRecord("none", 1200), 2000));
+        
+        // The sweep keeps the first inspect record in every interval
+        records.add(FingerprintTestUtil.createRecord("inspect_container", 1030));
+        records.add(FingerprintTestUtil.createRecord("none", 1075));
+        final List<DockerContainerRecord> expired = policy.selectExpired(records, 2000);
+        assertEquals(1, expired.size());
+        assertEquals(1030, expired.get(0).getReport().getEvent().getTime());
+    }
+    
+    @Test
+    public void maxAgeAndMaxRecords() throws Exception {
+        final TreeSet<DockerContainerRecord> records = records();
+        for (int i = 1; i <= 5; i++) {
+            records.add(FingerprintTestUtil.createRecord("start", i * 100));
+        }
+        
+        final List<DockerContainerRecord> byAge = new DockerDeploymentRetentionPolicy(0, 250, 0).selectExpired(records, 600);
+        assertEquals(3, byAge.size());
+        assertTrue(new DockerDeploymentRetentionPolicy(0, 250, 0).isRejected(records, 
+                FingerprintTestUtil.createRecord("die", 300), 600));
+        
+        final List<DockerContainerRecord> byCount = new DockerDeploymentRetentionPolicy(2, 0, 0).selectExpired(records, 600);
+        assertEquals(3, byCount.size());
+        assertEquals(300, byCount.get(2).getReport().getEvent().getTime());
+        
+        // The latest record is always retained
+        final List<DockerContainerRecord> all = new DockerDeploymentRetentionPolicy(0, 1, 0).selectExpired(records, 10000);
+        assertEquals(4, all.size());
+        assertFalse(all.contains(records.last()));
+    }
+    
+    @Test
+    public void expiredRecordIsRejectedEvenIfLatest() throws Exception {
+        final DockerDeploymentRetentionPolicy policy = new DockerDeploymentRetentionPolicy(0, 100, 0);
+        final TreeSet<DockerContainerRecord> records = records();
+        assertTrue(policy.isRejected(records, FingerprintTestUtil.createRecord("start", 100), 1000));
+        records.add(FingerprintTestUtil.createRecord("start", 950));
+        assertTrue(policy.isRejected(records, FingerprintTestUtil.createRecord("die", 800), 1000));
+        assertFalse(policy.isRejected(records, FingerprintTestUtil.createRecord("die", 960), 1000));
+    }
+    
+    @Test
+    public void newLatestInspectReplacesPreviousOne() throws Exception {
+        final DockerDeploymentRetentionPolicy policy = new DockerDeploymentRetentionPolicy(0, 0, 60);
+        final TreeSet<DockerContainerRecord> records = records();
+        records.add(FingerprintTestUtil.createRecord("start", 1000));
+        records.add(FingerprintTestUtil.createRecord("none", 1010));
+        
+        // The first inspect record in the interval is kept
+        assertNull(policy.selectReplaced(records, FingerprintTestUtil.createRecord("none", 1020)));
+        
+        // The latest inspect record within the interval is replaced by the newer one
+        final DockerContainerRecord inspect2 = FingerprintTestUtil.createRecord("none", 1020);
+        records.add(inspect2);
+        assertSame(inspect2, policy.selectReplaced(records, FingerprintTestUtil.createRecord("none", 1030)));
+        assertSame(inspect2, policy.selectReplaced(records, FingerprintTestUtil.createRecord("die", 1030)));
+        assertNull(policy.selectReplaced(records, FingerprintTestUtil.createRecord("none", 1015)));
+        assertNull(new DockerDeploymentRetentionPolicy(0, 0, 0).selectReplaced(records, 
+                FingerprintTestUtil.createRecord("none", 1030)));
+        
+        // Same decisions without the records
+        assertTrue(policy.isReplaced(inspect2, 1010));
+        assertFalse(policy.isReplaced(inspect2, 950));
+        assertFalse(policy.isReplaced(inspect2, Long.MIN_VALUE));
+        assertFalse(policy.isReplaced(FingerprintTestUtil.createRecord("die", 1020), 1010));
+    }
+    
+    private static TreeSet<DockerContainerRecord> records() {
+        return new TreeSet<DockerContainerRecord>(new DockerContainerRecord.TimeComparator());
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.load;
+
+/**
+ * Parameters of the synthetic load.
+ * Default values define a short smoke run, which is a part of the regular build.
+ * Production-like runs can be configured by system properties with the
+ * {@code org.jenkinsci.plugins.docker.traceability.load.LoadProfile.} prefix, e.g.
+ * {@code -Dorg.jenkinsci.plugins.docker.traceability.load.LoadProfile.containers=5000}.
+ */
+public class LoadProfile {
+    
+    private static final String PROPERTY_PREFIX = LoadProfile.class.getName() + ".";
+    
+    /**
+     * Number of simulated containers.
+     */
+    final int containers;
+    
+    /**
+     * Number of simulated Docker hosts. Containers are being distributed evenly.
+     */
+    final int hosts;
+    
+    /**
+     * Number of simulated environments. Containers are being distributed evenly.
+     */
+    final int environments;
+    
+    /**
+     * Probability of a container restart ({@code die} and {@code start} events) 
+     * instead of a periodic status report.
+     */
+    final double restartRate;
+    
+    /**
+     * Target rate of reports per second.
+     */
+    final int rate;
+    
+    /**
+     * Duration of the load in seconds.
+     */
+    final int durationSec;
+    
+    /**
+     * Number of client threads.
+     */
+    final int threads;
+    
+    /**
+     * Number of reports in a single request. 
+     * If greater than 1, reports are being submitted by the bulk {@code submitReports} endpoint.
+     */
+    final int batchSize;
+    
+    /**
+     * Enables {@link org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPluginConfiguration.IngestionSettings#isAsyncIngestion()}.
+     */
+    final boolean asyncIngestion;
+
+    LoadProfile(int containers, int hosts, int environments, double restartRate, int rate, 
+            int durationSec, int threads, int batchSize, boolean asyncIngestion) {
+        this.containers = Math.max(1, containers);
+        this.hosts = Math.max(1, hosts);
+        this.environments = Math.max(1, environments);
+        this.restartRate = restartRate;
+        this.rate = Math.max(1, rate);
+        this.durationSec = Math.max(1, durationSec);
+        this.threads = Math.max(1, threads);
+        this.batchSize = Math.max(1, batchSize);
+        this.asyncIngestion = asyncIngestion;
+    }
+    
+    /**
+     * Reads the profile from system properties.
+     * @return Load profile
+     */
+    static LoadProfile fromSystemProperties() {
+        return new LoadProfile(
+                Integer.getInteger(PROPERTY_PREFIX + "containers", 10),
+                Integer.getInteger(PROPERTY_PREFIX + "hosts", 2),
+                Integer.getInteger(PROPERTY_PREFIX + "environments", 2),
+                Double.parseDouble(System.getProperty(PROPERTY_PREFIX + "restartRate", "0.1")),
+                Integer.getInteger(PROPERTY_PREFIX + "rate", 50),
+                Integer.getInteger(PROPERTY_PREFIX + "durationSec", 3),
+                Integer.getInteger(PROPERTY_PREFIX + "threads", 2),
+                Integer.getInteger(PROPERTY_PREFIX + "batchSize", 1),
+                Boolean.getBoolean(PROPERTY_PREFIX + "asyncIngestion"));
+    }
+    
+    /**
+     * Gets the total number of reports to be submitted.
+     * @return Number of reports
+     */
+    int getTotalReports() {
+        return rate * durationSec;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("containers=%d, hosts=%d, environments=%d, restartRate=%.2f, rate=%d/s, "
+                + "duration=%ds, threads=%d, batchSize=%d, asyncIngestion=%s", containers, hosts, environments, 
+                restartRate, rate, durationSec, threads, batchSize, asyncIngestion);
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.load;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.util.Random;
+import javax.annotation.Nonnull;
+import org.jenkinsci.plugins.docker.traceability.samples.JSONSamples;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityCodecs;
+
+/**
+ * Generates a stream of {@link org.jenkinsci.plugins.docker.traceability.api.DockerTraceabilityReport}s
+ * in JSON from the {@link JSONSamples#submitReport} template.
+ * Every container starts with {@code create} and {@code start} events, then it 
+ * gets periodic status reports or restarts ({@code die} and {@code start} events).
+ * Containers are being reported in a round-robin order.
+ * Event times are being taken from a virtual clock, which advances by one 
+ * second per report, so all generated records are unique.
+ */
+class ReportStreamGenerator {
+    
+    private static final String[] INITIAL_EVENTS = {"create", "start"};
+    private static final String[] RESTART_EVENTS = {"die", "start"};
+    private static final String STATUS_EVENT = "none";
+    
+    private final @Nonnull LoadProfile profile;
+    private final @Nonnull ObjectNode template;
+    private final @Nonnull Random random;
+    private final int[] pendingEvents;
+    private final String[][] pendingSequences;
+    private long clock;
+    private long sequence;
+
+    ReportStreamGenerator(@Nonnull LoadProfile profile, long seed) throws IOException {
+        this.profile = profile;
+        this.template = (ObjectNode) DockerTraceabilityCodecs.getMapper().readTree(
+                JSONSamples.submitReport.readString());
+        this.random = new Random(seed);
+        this.pendingEvents = new int[profile.containers];
+        this.pendingSequences = new String[profile.containers][];
+        for (int i = 0; i < profile.containers; i++) {
+            pendingSequences[i] = INITIAL_EVENTS;
+        }
+        this.clock = System.currentTimeMillis() / 1000;
+    }
+    
+    /**
+     * Gets the ID of the simulated container.
+     * @param index Index of the container
+     * @return Full 64-char container ID
+     */
+    static @Nonnull String containerId(int index) {
+        final StringBuilder id = new StringBuilder(String.format("%08x", index));
+        while (id.length() < 64) {
+            id.append('c');
+        }
+        return id.toString();
+    }
+    
+    /**
+     * Generates the next report.
+     * @return Single-line JSON representation of the report
+     * @throws IOException Serialization error
+     */
+    synchronized @Nonnull String next() throws IOException {
+        final int index = (int) (sequence++ % profile.containers);
+        final String status = nextStatus(index);
+        final String containerId = containerId(index);
+        final boolean running = !"die".equals(status);
+        
+        final ObjectNode report = template.deepCopy();
+        final ObjectNode event = (ObjectNode) report.get("event");
+        event.put("status", status);
+        event.put("id", containerId);
+        event.put("time", clock++);
+        
+        final ObjectNode container = (ObjectNode) report.get("container");
+        container.put("Id", containerId);
+        container.put("Name", "/load-container-" + index);
+        final ObjectNode state = (ObjectNode) container.get("State");
+        state.put("Running", running);
+        state.put("ExitCode", running ? 0 : 137);
+        
+        final int host = index % profile.hosts;
+        final ObjectNode hostInfo = (ObjectNode) report.get("hostInfo");
+        hostInfo.put("ID", String.format("LOAD:HOST:%04d", host));
+        hostInfo.put("Name", "load-host-" + host);
+        report.put("environment", "load-env-" + (index % profile.environments));
+        
+        return DockerTraceabilityCodecs.writer().writeValueAsString(report);
+    }
+    
+    private @Nonnull String nextStatus(int index) {
+        String[] events = pendingSequences[index];
+        if (events == null) {
+            if (random.nextDouble() >= profile.restartRate) {
+                return STATUS_EVENT;
+            }
+            events = RESTART_EVENTS;
+            pendingSequences[index] = events;
+            pendingEvents[index] = 0;
+        }
+        
+        final String status = events[pendingEvents[index]++];
+        if (pendingEvents[index] == events.length) {
+            pendingSequences[index] = null;
+            pendingEvents[index] = 0;
+        }
+        return status;
+    }
+}
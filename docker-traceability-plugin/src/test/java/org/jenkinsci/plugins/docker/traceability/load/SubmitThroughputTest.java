@@ -0,0 +1,228 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.load;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPluginConfiguration;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPluginConfiguration.IngestionSettings;
+import org.jenkinsci.plugins.docker.traceability.DockerTraceabilityPluginTest;
+import org.jenkinsci.plugins.docker.traceability.core.DockerTraceabilityRootAction;
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityMetrics;
+import org.jenkinsci.plugins.docker.traceability.util.FingerprintSaveQueue;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+/**
+ * Drives synthetic report streams through the submission endpoints of 
+ * {@link DockerTraceabilityRootAction} and reports the sustained throughput, 
+ * latency percentiles, heap growth and the on-disk size of fingerprints.
+ * By default the test performs a short smoke run. See {@link LoadProfile} for 
+ * the configuration of longer runs.
+ */
+public class SubmitThroughputTest {
+    
+    private static final Logger LOGGER = Logger.getLogger(SubmitThroughputTest.class.getName());
+    
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+    
+    @Test
+    public void sustainedSubmission() throws Exception {
+        final LoadProfile profile = LoadProfile.fromSystemProperties();
+        DockerTraceabilityPluginTest.configure(new DockerTraceabilityPluginConfiguration(
+                true, false, new IngestionSettings(profile.asyncIngestion), null, null));
+        
+        final ReportStreamGenerator generator = new ReportStreamGenerator(profile, 42);
+        final int requests = (profile.getTotalReports() + profile.batchSize - 1) / profile.batchSize;
+        final String endpoint = j.getURL() + "docker-traceability/" 
+                + (profile.batchSize > 1 ? "submitReports" : "submitReport");
+        
+        final long heapBefore = usedHeap();
+        final long processedBefore = DockerTraceabilityMetrics.REPORT_PROCESS.getCount();
+        final long[] latencies = new long[requests];
+        final AtomicInteger nextRequest = new AtomicInteger();
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final CountDownLatch done = new CountDownLatch(profile.threads);
+        final long intervalNanos = TimeUnit.SECONDS.toNanos(1) * profile.batchSize / profile.rate;
+        final long startTime = System.nanoTime();
+        
+        for (int i = 0; i < profile.threads; i++) {
+            final Thread client = new Thread("Load client #" + i) {
+                @Override
+                public void run() {
+                    try {
+                        int request;
+                        while ((request = nextRequest.getAndIncrement()) < requests && failure.get() == null) {
+                            final String body = nextBody(generator, profile.batchSize);
+                            // Latency is being measured from the intended send time, 
+                            // so it includes the delay caused by a stalled server
+                            final long intendedTime = startTime + request * intervalNanos;
+                            final long delay = intendedTime - System.nanoTime();
+                            if (delay > 0) {
+                                TimeUnit.NANOSECONDS.sleep(delay);
+                            }
+                            post(endpoint, body);
+                            latencies[request] = System.nanoTime() - intendedTime;
+                        }
+                    } catch (Throwable ex) {
+                        failure.compareAndSet(null, ex);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            };
+            client.setDaemon(true);
+            client.start();
+        }
+        
+        assertTrue("Load clients have not finished in time", 
+                done.await(profile.durationSec * 10L + 60, TimeUnit.SECONDS));
+        if (failure.get() != null) {
+            throw new AssertionError("Submission failed", failure.get());
+        }
+        waitForProcessing(processedBefore + profile.getTotalReports(), profile.durationSec * 10L + 60);
+        final long elapsedNanos = System.nanoTime() - startTime;
+        FingerprintSaveQueue.flush();
+        
+        final long heapAfter = usedHeap();
+        final File rootDir = j.jenkins.getRootDir();
+        final long fingerprintsSize = sizeOf(new File(rootDir, "fingerprints")) 
+                + sizeOf(new File(rootDir, "docker-traceability"));
+        Arrays.sort(latencies);
+        
+        LOGGER.log(Level.INFO, String.format("Load profile: %s%n"
+                + "Throughput: %.1f reports/s (%d reports in %.2f s)%n"
+                + "Request latency: p50=%.2f ms, p99=%.2f ms, p99.9=%.2f ms, max=%.2f ms%n"
+                + "Heap growth: %d KB%n"
+                + "On-disk size: %d KB",
+                profile, profile.getTotalReports() * 1e9 / elapsedNanos, profile.getTotalReports(), 
+                elapsedNanos / 1e9, percentileMillis(latencies, 0.5), percentileMillis(latencies, 0.99),
+                percentileMillis(latencies, 0.999), percentileMillis(latencies, 1.0),
+                (heapAfter - heapBefore) / 1024, fingerprintsSize / 1024));
+        
+        final DockerTraceabilityRootAction action = DockerTraceabilityRootAction.getInstance();
+        assertNotNull(action);
+        final Set<String> containerIDs = action.getContainerIDs();
+        for (int i = 0; i < Math.min(profile.containers, profile.getTotalReports()); i++) {
+            assertTrue("Container #" + i + " has not been registered", 
+                    containerIDs.contains(ReportStreamGenerator.containerId(i)));
+        }
+    }
+    
+    private static @Nonnull String nextBody(@Nonnull ReportStreamGenerator generator, int batchSize) 
+            throws IOException {
+        if (batchSize == 1) {
+            return generator.next();
+        }
+        final StringBuilder body = new StringBuilder();
+        for (int i = 0; i < batchSize; i++) {
+            body.append(generator.next()).append('\n');
+        }
+        return body.toString();
+    }
+    
+    private static void post(@Nonnull String endpoint, @Nonnull String body) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL(endpoint).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json;charset=UTF-8");
+        final byte[] data = body.getBytes("UTF-8");
+        connection.setFixedLengthStreamingMode(data.length);
+        final OutputStream out = connection.getOutputStream();
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+        
+        final int responseCode = connection.getResponseCode();
+        final InputStream in = responseCode < 400 ? connection.getInputStream() : connection.getErrorStream();
+        final ByteArrayOutputStream response = new ByteArrayOutputStream();
+        if (in != null) {
+            try {
+                IOUtils.copy(in, response);
+            } finally {
+                in.close();
+            }
+        }
+        if (responseCode >= 300) {
+            throw new IOException("Submission failed with the code " + responseCode + ": " 
+                    + response.toString("UTF-8"));
+        }
+        if (response.toString("UTF-8").contains("\"error\"")) {
+            throw new IOException("Some reports have been rejected: " + response.toString("UTF-8"));
+        }
+    }
+    
+    private static void waitForProcessing(long expectedCount, long timeoutSec) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeoutSec);
+        while (DockerTraceabilityMetrics.REPORT_PROCESS.getCount() < expectedCount) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Only " + DockerTraceabilityMetrics.REPORT_PROCESS.getCount() + " of " 
+                        + expectedCount + " reports have been processed in time");
+            }
+            Thread.sleep(100);
+        }
+    }
+    
+    private static long usedHeap() {
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+    
+    private static long sizeOf(@CheckForNull File directory) {
+        return directory != null && directory.isDirectory() ? FileUtils.sizeOfDirectory(directory) : 0;
+    }
+    
+    private static double percentileMillis(@Nonnull long[] sortedValues, double quantile) {
+        if (sortedValues.length == 0) {
+            return 0;
+        }
+        final int index = (int) Math.ceil(quantile * sortedValues.length) - 1;
+        return sortedValues[Math.max(0, Math.min(index, sortedValues.length - 1))] / 1e6;
+    }
+}
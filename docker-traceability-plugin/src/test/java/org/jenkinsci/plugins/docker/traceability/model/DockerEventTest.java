@@ -0,0 +1,51 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.model;
+
+import org.jenkinsci.plugins.docker.traceability.dockerjava.api.model.Event;
+import org.jenkinsci.plugins.docker.traceability.dockerjava.api.model.Info;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Tests for {@link DockerEvent} and {@link DockerInfo} conversions.
+ */
+public class DockerEventTest {
+    
+    @Test
+    public void toDockerEvent() throws Exception {
+        Event event = new DockerEvent("start", "imageId", "host", 12345).toDockerEvent();
+        assertEquals("start", event.getStatus());
+        assertEquals("imageId", event.getId());
+        assertEquals("host", event.getFrom());
+        assertEquals(12345, event.getTime());
+    }
+    
+    @Test
+    public void toInfo() throws Exception {
+        Info info = new DockerInfo("hostId", "hostName").toInfo();
+        assertEquals("hostId", info.getID());
+        assertEquals("hostName", info.getName());
+    }
+}
@@ -28,11 +28,19 @@ import hudson.model.AbstractProject;
 import hudson.model.Fingerprint;
 import hudson.model.Run;
 import java.io.IOException;
+import java.util.LinkedList;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import javax.servlet.ServletException;
 import jenkins.model.Jenkins;
 import org.apache.commons.lang.StringUtils;
 import org.jenkinsci.plugins.docker.commons.fingerprint.DockerFingerprints;
+import org.jenkinsci.plugins.docker.traceability.api.DockerTraceabilityReport;
+import org.jenkinsci.plugins.docker.traceability.dockerjava.api.command.InspectContainerResponse;
+import org.jenkinsci.plugins.docker.traceability.fingerprint.DockerContainerRecord;
+import org.jenkinsci.plugins.docker.traceability.model.DockerEvent;
+import org.jenkinsci.plugins.docker.traceability.model.DockerInfo;
+import org.jenkinsci.plugins.docker.traceability.samples.JSONSamples;
 import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.StaplerResponse;
@@ -91,4 +99,47 @@ public class FingerprintTestUtil {
         final String src = "cccccccccccccccccccccccccccccccccccccccccccccccccccccccccccccccc";
         return prefix + StringUtils.substring(src, 0, 64-prefix.length());
     }
+    
+    /**
+     * Creates a report with a valid host info.
+     * @param status Event status
+     * @param time Event time in seconds
+     * @param container Container info
+     * @param imageName Optional image name
+     * @param environment Optional environment
+     * @return Report for the image {@code generateDockerId("1")}
+     */
+    public static @Nonnull DockerTraceabilityReport createReport(@Nonnull String status, long time, 
+            @Nonnull InspectContainerResponse container, @CheckForNull String imageName, 
+            @CheckForNull String environment) {
+        final String imageId = generateDockerId("1");
+        return new DockerTraceabilityReport(new DockerEvent(status, imageId, "host", time).toDockerEvent(), 
+                new DockerInfo("hostId", "host").toInfo(), container, imageId, imageName, null, 
+                new LinkedList<String>(), environment);
+    }
+    
+    /**
+     * Creates a report for the {@link JSONSamples#inspectContainerData_emptyImage} container.
+     * @param status Event status
+     * @param time Event time in seconds
+     * @return Report with a valid host info
+     * @throws IOException Cannot read the sample
+     */
+    public static @Nonnull DockerTraceabilityReport createReport(@Nonnull String status, long time) 
+            throws IOException {
+        return createReport(status, time, 
+                JSONSamples.inspectContainerData_emptyImage.readObject(InspectContainerResponse.class), null, null);
+    }
+    
+    /**
+     * Creates a record for the {@link JSONSamples#inspectContainerData_emptyImage} container.
+     * @param status Event status
+     * @param time Event time in seconds
+     * @return Record with a valid host info
+     * @throws IOException Cannot read the sample
+     */
+    public static @Nonnull DockerContainerRecord createRecord(@Nonnull String status, long time) 
+            throws IOException {
+        return new DockerContainerRecord(createReport(status, time));
+    }
 }
@@ -0,0 +1,75 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.util;
+
+import org.jenkinsci.plugins.docker.traceability.util.DockerTraceabilityMetrics.Timer;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests for {@link DockerTraceabilityMetrics}.
+ */
+public class DockerTraceabilityMetricsTest {
+    
+    @Test
+    public void bucketsCoverValues() {
+        for (long value : new long[] {0, 1, 3, 4, 7, 8, 9, 1000, 123456789, Long.MAX_VALUE}) {
+            final int bucket = Timer.bucketOf(value);
+            assertTrue("Upper bound is less than " + value, Timer.upperBoundOf(bucket) >= value);
+            if (bucket > 0) {
+                assertTrue("Previous bucket covers " + value, Timer.upperBoundOf(bucket - 1) < value);
+            }
+        }
+    }
+    
+    @Test
+    public void percentiles() {
+        final Timer timer = new Timer("test");
+        assertEquals(0, timer.getPercentileNanos(0.5));
+        for (int i = 1; i <= 100; i++) {
+            timer.update(i * 1000000L, 0);
+        }
+        
+        assertEquals(100, timer.getCount());
+        assertEquals(100.0, timer.getMaxMillis(), 0.001);
+        assertEquals(50.5, timer.getMeanMillis(), 0.001);
+        // Percentiles are estimated with the precision of histogram buckets
+        assertEquals(50.0, timer.get50thPercentileMillis(), 50.0 * 0.25);
+        assertEquals(99.0, timer.get99thPercentileMillis(), 99.0 * 0.25);
+        assertTrue(timer.get99thPercentileMillis() <= timer.getMaxMillis());
+    }
+    
+    @Test
+    public void rate() {
+        final Timer timer = new Timer("test");
+        final long now = 1000000000L;
+        for (int i = 0; i < 120; i++) {
+            timer.update(1, now - 30000);
+        }
+        timer.update(1, now); // Current second is not complete yet
+        timer.update(1, now - 120000); // Outside the window
+        
+        assertEquals(2.0, timer.getRatePerSecond(now), 0.001);
+    }
+}
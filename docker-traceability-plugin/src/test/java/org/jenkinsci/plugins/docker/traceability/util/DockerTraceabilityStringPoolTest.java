@@ -0,0 +1,64 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.util;
+
+import org.jenkinsci.plugins.docker.traceability.dockerjava.api.command.InspectContainerResponse;
+import org.jenkinsci.plugins.docker.traceability.samples.JSONSamples;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests for {@link DockerTraceabilityStringPool}.
+ */
+public class DockerTraceabilityStringPoolTest {
+    
+    @Test
+    public void deduplicateStrings() {
+        final String value1 = new String("docker-traceability-string-pool-test");
+        final String value2 = new String("docker-traceability-string-pool-test");
+        assertNotSame(value1, value2);
+        
+        final long savedBytes = DockerTraceabilityStringPool.getSavedBytes();
+        assertSame(value1, DockerTraceabilityStringPool.intern(value1));
+        assertSame(value1, DockerTraceabilityStringPool.intern(value2));
+        final long savedBytesAfterHit = DockerTraceabilityStringPool.getSavedBytes();
+        assertTrue(savedBytesAfterHit > savedBytes);
+        
+        // The same duplicate instance is counted once
+        assertSame(value1, DockerTraceabilityStringPool.intern(value2));
+        assertEquals(savedBytesAfterHit, DockerTraceabilityStringPool.getSavedBytes());
+        assertNull(DockerTraceabilityStringPool.intern(null));
+    }
+    
+    @Test
+    public void deduplicateParsedReports() throws Exception {
+        final String json = JSONSamples.inspectContainerData.readString();
+        final InspectContainerResponse response1 = 
+                DockerTraceabilityCodecs.inspectContainerArrayReader().<InspectContainerResponse[]>readValue(json)[0];
+        final InspectContainerResponse response2 = 
+                DockerTraceabilityCodecs.inspectContainerArrayReader().<InspectContainerResponse[]>readValue(json)[0];
+        assertSame(response1.getId(), response2.getId());
+        assertSame(response1.getImageId(), response2.getImageId());
+    }
+}
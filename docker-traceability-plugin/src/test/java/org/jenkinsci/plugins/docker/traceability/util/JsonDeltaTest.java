@@ -0,0 +1,63 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.docker.traceability.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests for {@link JsonDelta}.
+ */
+public class JsonDeltaTest {
+    
+    @Test
+    public void roundtrip() throws Exception {
+        final ObjectNode base = parse("{\"Id\":\"1\",\"State\":{\"Running\":true,\"Pid\":42,\"ExitCode\":0},"
+                + "\"Config\":{\"Env\":[\"A=1\"]},\"Removed\":\"x\",\"Nullable\":\"y\"}");
+        final ObjectNode target = parse("{\"Id\":\"1\",\"State\":{\"Running\":false,\"Pid\":0,\"ExitCode\":0},"
+                + "\"Config\":{\"Env\":[\"A=1\",\"B=2\"]},\"Nullable\":null,\"Added\":{\"a\":1}}");
+        
+        final ObjectNode delta = JsonDelta.diff(base, target);
+        assertFalse("Unchanged fields should not be stored", delta.toString().contains("\"Id\""));
+        assertEquals(target, JsonDelta.apply(base, delta));
+        assertEquals("The base object must not be modified", 
+                parse("{\"Id\":\"1\",\"State\":{\"Running\":true,\"Pid\":42,\"ExitCode\":0},"
+                + "\"Config\":{\"Env\":[\"A=1\"]},\"Removed\":\"x\",\"Nullable\":\"y\"}"), base);
+    }
+    
+    @Test
+    public void equalObjects() throws Exception {
+        final ObjectNode base = parse("{\"Id\":\"1\",\"State\":{\"Running\":true}}");
+        final ObjectNode delta = JsonDelta.diff(base, base.deepCopy());
+        assertEquals(0, delta.size());
+        assertEquals(base, JsonDelta.apply(base, delta));
+    }
+    
+    private static ObjectNode parse(String json) throws Exception {
+        final JsonNode node = DockerTraceabilityCodecs.getMapper().readTree(json);
+        return (ObjectNode) node;
+    }
+}